@@ -0,0 +1,51 @@
+package com.rsaladocid.util.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runs the benchmarks and writes their results as JSON, so the results of
+ * different releases can be compared.
+ * </p>
+ * <p>
+ * The command line accepts the same options as the JMH runner. Unless another
+ * result file is given with <i>-rff</i>, the results are written to
+ * <i>jmh-result-&lt;version&gt;.json</i> in the working directory.
+ * </p>
+ * 
+ * <pre>
+ * <code>
+ * java -jar benchmarks/target/benchmarks.jar ConfigurationBenchmark
+ * </code>
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions options = new CommandLineOptions(args);
+
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(options);
+
+		if (!options.getResultFormat().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON);
+		}
+
+		if (!options.getResult().hasValue()) {
+			builder.result("jmh-result-" + version() + ".json");
+		}
+
+		new Runner(builder.build()).run();
+	}
+
+	private static String version() {
+		String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+		return version != null ? version : "snapshot";
+	}
+
+}
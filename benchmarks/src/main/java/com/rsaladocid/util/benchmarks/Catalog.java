@@ -0,0 +1,21 @@
+package com.rsaladocid.util.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement
+public class Catalog {
+
+	private List<Item> items = new ArrayList<Item>();
+
+	public List<Item> getItems() {
+		return items;
+	}
+
+	public void setItems(List<Item> items) {
+		this.items = items;
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.rsaladocid.util.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsaladocid.util.configuration.Configuration;
+
+/**
+ * Measures {@link Configuration#getProperties(Object)} and
+ * {@link Configuration#setProperties(Object, Map)} on a bean with 3 properties
+ * and on a bean with 30 properties.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigurationBenchmark {
+
+	private SmallBean small;
+	private LargeBean large;
+	private Map<String, Object> smallProperties;
+	private Map<String, Object> largeProperties;
+
+	@Setup
+	public void setUp() {
+		small = new SmallBean();
+		small.setName("foo");
+		small.setPort(8080);
+		small.setEnabled(true);
+
+		large = new LargeBean();
+		large.setText0("foo");
+		large.setNumber5(5);
+		large.setRatio9(0.5);
+
+		smallProperties = new HashMap<String, Object>(Configuration.getProperties(small));
+		largeProperties = new HashMap<String, Object>(Configuration.getProperties(large));
+	}
+
+	@Benchmark
+	public Map<String, Object> getPropertiesSmall() {
+		return Configuration.getProperties(small);
+	}
+
+	@Benchmark
+	public Map<String, Object> getPropertiesLarge() {
+		return Configuration.getProperties(large);
+	}
+
+	@Benchmark
+	public SmallBean setPropertiesSmall() {
+		Configuration.setProperties(small, smallProperties);
+		return small;
+	}
+
+	@Benchmark
+	public LargeBean setPropertiesLarge() {
+		Configuration.setProperties(large, largeProperties);
+		return large;
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.rsaladocid.util.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsaladocid.util.data.DataHistory;
+import com.rsaladocid.util.data.DataRecord;
+import com.rsaladocid.util.data.RetentionPolicies;
+
+/**
+ * <p>
+ * Measures {@link DataHistory#putSingle(Object, Object)} and
+ * {@link DataHistory#getAllMostRecent()} alone, and both of them running at the
+ * same time on a shared history, with several writers and one reader.
+ * </p>
+ * <p>
+ * The history keeps the last 1024 records of each key, so the writers evict
+ * records as a long-running history does instead of growing it for the whole
+ * iteration. The readers go through the entries of the view returned by
+ * {@link DataHistory#getAllMostRecent()}, since the view is live and returning
+ * it only measures a field read.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class DataHistoryBenchmark {
+
+	private final static int RETAINED_RECORDS = 1024;
+
+	@Param({ "16", "1024" })
+	public int keys;
+
+	private DataHistory<Integer, Double> history;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		history = new DataHistory<Integer, Double>();
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(RETAINED_RECORDS));
+
+		for (int key = 0; key < keys; key++) {
+			history.putSingle(key, 0.0);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Writer {
+
+		private int next;
+
+		int nextKey(int keys) {
+			next = (next + 1) % keys;
+			return next;
+		}
+
+	}
+
+	@Benchmark
+	@Group("putSingle")
+	@GroupThreads(1)
+	public void putSingle(Writer writer) {
+		history.putSingle(writer.nextKey(keys), 1.0);
+	}
+
+	@Benchmark
+	@Group("getAllMostRecent")
+	@GroupThreads(1)
+	public double getAllMostRecent() {
+		return readAllMostRecent();
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(3)
+	public void contendedPutSingle(Writer writer) {
+		history.putSingle(writer.nextKey(keys), 1.0);
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(1)
+	public double contendedGetAllMostRecent() {
+		return readAllMostRecent();
+	}
+
+	private double readAllMostRecent() {
+		double sum = 0;
+
+		for (DataRecord<Double> record : history.getAllMostRecent().values()) {
+			sum += record.getValue();
+		}
+
+		return sum;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.rsaladocid.util.benchmarks;
+
+public class Item {
+
+	private String name;
+	private int quantity;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+}
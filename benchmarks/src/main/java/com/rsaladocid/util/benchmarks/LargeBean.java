@@ -0,0 +1,276 @@
+package com.rsaladocid.util.benchmarks;
+
+public class LargeBean {
+
+	private String text0;
+	private int number0;
+	private double ratio0;
+	private String text1;
+	private int number1;
+	private double ratio1;
+	private String text2;
+	private int number2;
+	private double ratio2;
+	private String text3;
+	private int number3;
+	private double ratio3;
+	private String text4;
+	private int number4;
+	private double ratio4;
+	private String text5;
+	private int number5;
+	private double ratio5;
+	private String text6;
+	private int number6;
+	private double ratio6;
+	private String text7;
+	private int number7;
+	private double ratio7;
+	private String text8;
+	private int number8;
+	private double ratio8;
+	private String text9;
+	private int number9;
+	private double ratio9;
+
+	public String getText0() {
+		return text0;
+	}
+
+	public void setText0(String text0) {
+		this.text0 = text0;
+	}
+
+	public int getNumber0() {
+		return number0;
+	}
+
+	public void setNumber0(int number0) {
+		this.number0 = number0;
+	}
+
+	public double getRatio0() {
+		return ratio0;
+	}
+
+	public void setRatio0(double ratio0) {
+		this.ratio0 = ratio0;
+	}
+
+	public String getText1() {
+		return text1;
+	}
+
+	public void setText1(String text1) {
+		this.text1 = text1;
+	}
+
+	public int getNumber1() {
+		return number1;
+	}
+
+	public void setNumber1(int number1) {
+		this.number1 = number1;
+	}
+
+	public double getRatio1() {
+		return ratio1;
+	}
+
+	public void setRatio1(double ratio1) {
+		this.ratio1 = ratio1;
+	}
+
+	public String getText2() {
+		return text2;
+	}
+
+	public void setText2(String text2) {
+		this.text2 = text2;
+	}
+
+	public int getNumber2() {
+		return number2;
+	}
+
+	public void setNumber2(int number2) {
+		this.number2 = number2;
+	}
+
+	public double getRatio2() {
+		return ratio2;
+	}
+
+	public void setRatio2(double ratio2) {
+		this.ratio2 = ratio2;
+	}
+
+	public String getText3() {
+		return text3;
+	}
+
+	public void setText3(String text3) {
+		this.text3 = text3;
+	}
+
+	public int getNumber3() {
+		return number3;
+	}
+
+	public void setNumber3(int number3) {
+		this.number3 = number3;
+	}
+
+	public double getRatio3() {
+		return ratio3;
+	}
+
+	public void setRatio3(double ratio3) {
+		this.ratio3 = ratio3;
+	}
+
+	public String getText4() {
+		return text4;
+	}
+
+	public void setText4(String text4) {
+		this.text4 = text4;
+	}
+
+	public int getNumber4() {
+		return number4;
+	}
+
+	public void setNumber4(int number4) {
+		this.number4 = number4;
+	}
+
+	public double getRatio4() {
+		return ratio4;
+	}
+
+	public void setRatio4(double ratio4) {
+		this.ratio4 = ratio4;
+	}
+
+	public String getText5() {
+		return text5;
+	}
+
+	public void setText5(String text5) {
+		this.text5 = text5;
+	}
+
+	public int getNumber5() {
+		return number5;
+	}
+
+	public void setNumber5(int number5) {
+		this.number5 = number5;
+	}
+
+	public double getRatio5() {
+		return ratio5;
+	}
+
+	public void setRatio5(double ratio5) {
+		this.ratio5 = ratio5;
+	}
+
+	public String getText6() {
+		return text6;
+	}
+
+	public void setText6(String text6) {
+		this.text6 = text6;
+	}
+
+	public int getNumber6() {
+		return number6;
+	}
+
+	public void setNumber6(int number6) {
+		this.number6 = number6;
+	}
+
+	public double getRatio6() {
+		return ratio6;
+	}
+
+	public void setRatio6(double ratio6) {
+		this.ratio6 = ratio6;
+	}
+
+	public String getText7() {
+		return text7;
+	}
+
+	public void setText7(String text7) {
+		this.text7 = text7;
+	}
+
+	public int getNumber7() {
+		return number7;
+	}
+
+	public void setNumber7(int number7) {
+		this.number7 = number7;
+	}
+
+	public double getRatio7() {
+		return ratio7;
+	}
+
+	public void setRatio7(double ratio7) {
+		this.ratio7 = ratio7;
+	}
+
+	public String getText8() {
+		return text8;
+	}
+
+	public void setText8(String text8) {
+		this.text8 = text8;
+	}
+
+	public int getNumber8() {
+		return number8;
+	}
+
+	public void setNumber8(int number8) {
+		this.number8 = number8;
+	}
+
+	public double getRatio8() {
+		return ratio8;
+	}
+
+	public void setRatio8(double ratio8) {
+		this.ratio8 = ratio8;
+	}
+
+	public String getText9() {
+		return text9;
+	}
+
+	public void setText9(String text9) {
+		this.text9 = text9;
+	}
+
+	public int getNumber9() {
+		return number9;
+	}
+
+	public void setNumber9(int number9) {
+		this.number9 = number9;
+	}
+
+	public double getRatio9() {
+		return ratio9;
+	}
+
+	public void setRatio9(double ratio9) {
+		this.ratio9 = ratio9;
+	}
+
+}
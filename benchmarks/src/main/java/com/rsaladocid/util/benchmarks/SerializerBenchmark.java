@@ -0,0 +1,98 @@
+package com.rsaladocid.util.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsaladocid.util.io.Serializer;
+
+/**
+ * Measures {@link Serializer#toJson(Object, java.io.OutputStream)},
+ * {@link Serializer#toXml(Object, java.io.OutputStream)} and
+ * {@link Serializer#fromJson(java.io.InputStream, Class)} with payloads of
+ * different number of items.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializerBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	public int items;
+
+	private Serializer serializer;
+	private Catalog catalog;
+	private Map<String, Object> map;
+	private byte[] json;
+
+	@Setup
+	public void setUp() throws JAXBException, IOException {
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+		serializer = Serializer.build(properties);
+
+		catalog = new Catalog();
+		map = new HashMap<String, Object>();
+
+		for (int i = 0; i < items; i++) {
+			Item item = new Item();
+			item.setName("item" + i);
+			item.setQuantity(i);
+
+			catalog.getItems().add(item);
+			map.put(item.getName(), i);
+		}
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		serializer.toJson(catalog, output);
+		json = output.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] toJson() throws JAXBException, IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		serializer.toJson(catalog, output);
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] toJsonMap() throws JAXBException, IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		serializer.toJson(map, output);
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] toXml() throws JAXBException, IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		serializer.toXml(catalog, output);
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public Object fromJson() throws JAXBException, IOException {
+		return serializer.fromJson(new ByteArrayInputStream(json), Catalog.class);
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.rsaladocid.util.benchmarks;
+
+public class SmallBean {
+
+	private String name;
+	private int port;
+	private boolean enabled;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public boolean getEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+}
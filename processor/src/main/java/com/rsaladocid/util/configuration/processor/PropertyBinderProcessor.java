@@ -0,0 +1,284 @@
+package com.rsaladocid.util.configuration.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * <p>
+ * Generates a <i>PropertyBinder</i> for each public top-level class that uses
+ * the annotations <i>Property</i> or <i>IgnoreProperty</i> on its methods.
+ * </p>
+ * <p>
+ * The generated binder of the class <i>Person</i> is named
+ * <i>PersonPropertyBinder</i> and is placed in the same package. It reads and
+ * writes the same properties that <i>Configuration</i> resolves through
+ * reflection with the default name strategy, using straight-line calls to the
+ * getter and setter methods.
+ * </p>
+ * <p>
+ * The annotations are referred to by name, so this processor does not depend
+ * on the <i>util</i> artifact.
+ * </p>
+ */
+@SupportedAnnotationTypes({ PropertyBinderProcessor.PROPERTY, PropertyBinderProcessor.IGNORE_PROPERTY })
+public class PropertyBinderProcessor extends AbstractProcessor {
+
+	final static String PROPERTY = "com.rsaladocid.util.configuration.Property";
+	final static String IGNORE_PROPERTY = "com.rsaladocid.util.configuration.IgnoreProperty";
+
+	private final static String BINDER = "com.rsaladocid.util.configuration.PropertyBinder";
+	private final static String CONVERTER = "com.rsaladocid.util.configuration.TypeConverter";
+	private final static String CONVERTERS = "com.rsaladocid.util.configuration.TypeConverters";
+	private final static String XML_ELEMENT = "javax.xml.bind.annotation.XmlElement";
+	private final static String XML_TRANSIENT = "javax.xml.bind.annotation.XmlTransient";
+
+	private final static String SUFFIX = "PropertyBinder";
+	private final static String SETTER = "set";
+	private final static String GETTER = "get";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				Element enclosing = element.getEnclosingElement();
+
+				if (element.getKind() == ElementKind.METHOD && enclosing.getKind() == ElementKind.CLASS) {
+					types.add((TypeElement) enclosing);
+				}
+			}
+		}
+
+		for (TypeElement type : types) {
+			if (isBindable(type)) {
+				generate(type);
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isBindable(TypeElement type) {
+		return type.getNestingKind() == NestingKind.TOP_LEVEL && type.getModifiers().contains(Modifier.PUBLIC)
+				&& !type.getModifiers().contains(Modifier.ABSTRACT) && type.getTypeParameters().isEmpty();
+	}
+
+	private void generate(TypeElement type) {
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String typeName = type.getQualifiedName().toString();
+		String binderName = type.getSimpleName() + SUFFIX;
+
+		Set<String> names = new LinkedHashSet<String>();
+		List<String> getters = new ArrayList<String>();
+		List<String> setters = new ArrayList<String>();
+		List<String> converters = new ArrayList<String>();
+
+		DeclaredType declared = (DeclaredType) type.asType();
+
+		for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+			if (member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.PUBLIC)
+					|| member.getModifiers().contains(Modifier.STATIC) || isIgnored(member)) {
+				continue;
+			}
+
+			ExecutableElement method = (ExecutableElement) member;
+			ExecutableType signature = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declared, method);
+			String methodName = method.getSimpleName().toString();
+
+			if (methodName.startsWith(GETTER) && methodName.length() > GETTER.length()
+					&& method.getParameters().isEmpty()) {
+				names.add(nameOf(method));
+
+				if (signature.getReturnType().getKind() == TypeKind.VOID) {
+					getters.add("\t\t\tobject." + methodName + "();\n" + "\t\t\tproperties.put("
+							+ literal(nameOf(method)) + ", null);\n");
+				} else {
+					getters.add("\t\t\tproperties.put(" + literal(nameOf(method)) + ", object." + methodName
+							+ "());\n");
+				}
+			} else if (methodName.startsWith(SETTER) && methodName.length() > SETTER.length()
+					&& method.getParameters().size() == 1) {
+				TypeMirror parameter = processingEnv.getTypeUtils().erasure(signature.getParameterTypes().get(0));
+
+				String converter = "CONVERTER_" + setters.size();
+
+				converters.add("\tprivate final static " + CONVERTER + "<Object, " + boxed(parameter) + "> " + converter
+						+ " = " + CONVERTERS + ".converterTo(" + parameter + ".class);\n");
+				setters.add("\t\tif (properties.containsKey(" + literal(nameOf(method)) + ")) {\n" + "\t\t\ttry {\n"
+						+ "\t\t\t\tobject." + methodName + "(" + converter + ".convert(properties.get("
+						+ literal(nameOf(method)) + ")));\n" + "\t\t\t} catch (Exception e) {\n\n" + "\t\t\t}\n"
+						+ "\t\t}\n");
+			}
+		}
+
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("import java.util.Map;\n\n");
+		source.append("/**\n * Binds the properties of {@link ").append(typeName)
+				.append("} without reflection.\n * Generated by ").append(getClass().getName()).append(".\n */\n");
+		source.append("public final class ").append(binderName).append(" implements ").append(BINDER).append("<")
+				.append(typeName).append("> {\n\n");
+
+		source.append("\tprivate final static String[] NAMES = { ");
+		for (String name : names) {
+			source.append(literal(name)).append(", ");
+		}
+		source.append("};\n\n");
+
+		for (String converter : converters) {
+			source.append(converter);
+		}
+		if (!converters.isEmpty()) {
+			source.append("\n");
+		}
+
+		source.append("\t@Override\n\tpublic String[] getPropertyNames() {\n\t\treturn NAMES.clone();\n\t}\n\n");
+
+		source.append("\t@Override\n\tpublic void getProperties(").append(typeName)
+				.append(" object, Map<String, Object> properties) {\n");
+		for (String getter : getters) {
+			source.append("\t\ttry {\n").append(getter).append("\t\t} catch (Exception e) {\n\n\t\t}\n");
+		}
+		source.append("\t}\n\n");
+
+		source.append("\t@Override\n\tpublic void setProperties(").append(typeName)
+				.append(" object, Map<String, Object> properties) {\n");
+		for (String setter : setters) {
+			source.append(setter);
+		}
+		source.append("\t}\n\n}\n");
+
+		try {
+			Writer writer = processingEnv.getFiler()
+					.createSourceFile(packageName.isEmpty() ? binderName : packageName + "." + binderName, type)
+					.openWriter();
+			try {
+				writer.write(source.toString());
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Unable to generate " + binderName + ": " + e.getMessage(), type);
+		}
+	}
+
+	private boolean isIgnored(Element method) {
+		return getAnnotation(method, IGNORE_PROPERTY) != null || getAnnotation(method, XML_TRANSIENT) != null;
+	}
+
+	/**
+	 * Resolves the property name exactly as <i>AnnotatedPropertyNameStrategy</i>
+	 * does at runtime.
+	 */
+	private String nameOf(ExecutableElement method) {
+		String name = method.getSimpleName().toString();
+
+		AnnotationMirror property = getAnnotation(method, PROPERTY);
+		AnnotationMirror element = getAnnotation(method, XML_ELEMENT);
+
+		if (property != null) {
+			name = getName(property);
+		} else if (element != null) {
+			name = getName(element);
+		} else {
+			name = name.substring(3);
+		}
+
+		if (name.length() > 1) {
+			name = Character.toString(name.charAt(0)).toLowerCase() + name.substring(1);
+		}
+
+		return name;
+	}
+
+	private String getName(AnnotationMirror annotation) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv
+				.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals("name")) {
+				return entry.getValue().getValue().toString();
+			}
+		}
+
+		return "";
+	}
+
+	private AnnotationMirror getAnnotation(Element element, String annotationName) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+
+			if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+				return annotation;
+			}
+		}
+
+		return null;
+	}
+
+	private String boxed(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind()))
+					.getQualifiedName().toString();
+		}
+
+		return type.toString();
+	}
+
+	private static String literal(String value) {
+		StringBuilder literal = new StringBuilder("\"");
+
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				literal.append('\\').append(c);
+			} else if (c == '\n') {
+				literal.append("\\n");
+			} else if (c == '\r') {
+				literal.append("\\r");
+			} else if (c == '\t') {
+				literal.append("\\t");
+			} else if (c < 0x20) {
+				// Unicode escapes are translated before lexing, so a line break
+				// written as one would end the literal
+				literal.append(String.format("\\%03o", (int) c));
+			} else if (c > 0x7e) {
+				literal.append(String.format("\\u%04x", (int) c));
+			} else {
+				literal.append(c);
+			}
+		}
+
+		return literal.append('"').toString();
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import javax.xml.bind.annotation.XmlElement;
+
+public class AnnotatedPropertyNameStrategy extends PropertyNameStrategy {
+
+	private final PropertyAccess access;
+
+	public AnnotatedPropertyNameStrategy() {
+		this(PropertyAccess.METHODS);
+	}
+
+	/**
+	 * Creates a strategy that reaches the properties with the given access. The
+	 * annotations {@link Property} and {@link IgnoreProperty} are honoured on
+	 * fields as well as on methods.
+	 * 
+	 * @param access
+	 *            the property access
+	 */
+	public AnnotatedPropertyNameStrategy(PropertyAccess access) {
+		this.access = access;
+	}
+
+	@Override
+	public String getName(Method method) {
+		String name = method.getName();
+
+		if (method.isAnnotationPresent(Property.class)) {
+			Property property = method.getAnnotation(Property.class);
+			name = property.name();
+		} else if (method.isAnnotationPresent(XmlElement.class)) {
+			XmlElement property = method.getAnnotation(XmlElement.class);
+			name = property.name();
+		} else {
+			name = name.substring(3);
+		}
+
+		return decapitalize(name);
+	}
+
+	@Override
+	public String getName(Field field) {
+		String name = field.getName();
+
+		if (field.isAnnotationPresent(Property.class)) {
+			Property property = field.getAnnotation(Property.class);
+			name = property.name();
+		} else if (field.isAnnotationPresent(XmlElement.class)) {
+			XmlElement property = field.getAnnotation(XmlElement.class);
+			name = property.name();
+		}
+
+		return decapitalize(name);
+	}
+
+	@Override
+	public PropertyAccess getAccess() {
+		return access;
+	}
+
+	private String decapitalize(String name) {
+		if (name.length() > 1) {
+			name = Character.toString(name.charAt(0)).toLowerCase() + name.substring(1);
+		}
+
+		return name;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && obj.getClass() == getClass() && ((AnnotatedPropertyNameStrategy) obj).access == access;
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode() ^ access.hashCode();
+	}
+
+}
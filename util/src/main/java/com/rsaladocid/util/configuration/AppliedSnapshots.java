@@ -0,0 +1,95 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the last configuration values applied to each object. Objects are
+ * compared by identity and held through weak references, so a snapshot is
+ * discarded once its object is garbage collected.
+ */
+final class AppliedSnapshots {
+
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+	private final Map<IdentityReference, Map<String, Object>> snapshots = new HashMap<IdentityReference, Map<String, Object>>();
+
+	/**
+	 * Returns the last snapshot stored for the given object
+	 * 
+	 * @param object
+	 *            the configured object
+	 * @return the snapshot, or <code>null</code> if no snapshot was stored
+	 */
+	synchronized Map<String, Object> get(Object object) {
+		expunge();
+		return snapshots.get(new IdentityReference(object, null));
+	}
+
+	/**
+	 * Adds the given values to the snapshot of the given object. The snapshot is
+	 * replaced by an updated copy, so the snapshots returned before do not change.
+	 * 
+	 * @param object
+	 *            the configured object
+	 * @param applied
+	 *            the values applied since the last snapshot
+	 */
+	synchronized void putAll(Object object, Map<String, Object> applied) {
+		expunge();
+
+		Map<String, Object> snapshot = snapshots.get(new IdentityReference(object, null));
+		snapshot = snapshot != null ? new HashMap<String, Object>(snapshot) : new HashMap<String, Object>();
+		snapshot.putAll(applied);
+
+		snapshots.put(new IdentityReference(object, queue), snapshot);
+	}
+
+	/**
+	 * Discards the snapshot of the given object
+	 * 
+	 * @param object
+	 *            the configured object
+	 */
+	synchronized void remove(Object object) {
+		expunge();
+		snapshots.remove(new IdentityReference(object, null));
+	}
+
+	private void expunge() {
+		Object reference;
+		while ((reference = queue.poll()) != null) {
+			snapshots.remove(reference);
+		}
+	}
+
+	private static class IdentityReference extends WeakReference<Object> {
+
+		private final int hash;
+
+		IdentityReference(Object referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.hash = System.identityHashCode(referent);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof IdentityReference)) {
+				return false;
+			}
+
+			Object referent = get();
+			return referent != null && referent == ((IdentityReference) obj).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.rsaladocid.util.configuration;
+
+/**
+ * A converter into a fixed target type that keeps the converter resolved for
+ * the last source type, and resolves it again when the registered converters
+ * change.
+ *
+ * @param <T>
+ *            the target type
+ * @see TypeConverters#converterTo(Class)
+ */
+final class CachedConverter<T> implements TypeConverter<Object, T> {
+
+	private final Class<T> target;
+	private final Class<?> boxedTarget;
+
+	/**
+	 * The converter resolved for the last source type. Instances are immutable,
+	 * so it can be replaced without synchronization.
+	 */
+	private Conversion conversion;
+
+	private CachedConverter(Class<T> target) {
+		this.target = target;
+		this.boxedTarget = PropertyAccessors.wrap(target);
+	}
+
+	static <T> CachedConverter<T> of(Class<T> target) {
+		return new CachedConverter<T>(target);
+	}
+
+	/**
+	 * Converts the given value to the target type. A value that is already an
+	 * instance of the type is returned as is.
+	 *
+	 * @param value
+	 *            the value to convert
+	 * @return the converted value
+	 * @throws IllegalArgumentException
+	 *             if the value cannot be converted
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T convert(Object value) {
+		if (value == null) {
+			if (target.isPrimitive()) {
+				throw new IllegalArgumentException("Cannot convert null to " + target.getName());
+			}
+
+			return null;
+		} else if (boxedTarget.isInstance(value)) {
+			return (T) value;
+		}
+
+		TypeConverter<Object, Object> converter = find(value.getClass());
+		if (converter == null) {
+			throw new IllegalArgumentException(
+					"Cannot convert " + value.getClass().getName() + " to " + target.getName());
+		}
+
+		return (T) converter.convert(value);
+	}
+
+	/**
+	 * Returns the converter from the given source type to the target type
+	 *
+	 * @param source
+	 *            the source type
+	 * @return the converter, or <code>null</code> if the conversion is not
+	 *         supported
+	 */
+	TypeConverter<Object, Object> find(Class<?> source) {
+		Conversion conversion = this.conversion;
+
+		int generation = TypeConverters.generation();
+
+		if (conversion == null || conversion.source != source || conversion.generation != generation) {
+			conversion = new Conversion(source, TypeConverters.find(source, target), generation);
+			this.conversion = conversion;
+		}
+
+		return conversion.converter;
+	}
+
+	private static class Conversion {
+
+		private final Class<?> source;
+		private final TypeConverter<Object, Object> converter;
+		private final int generation;
+
+		Conversion(Class<?> source, TypeConverter<Object, Object> converter, int generation) {
+			this.source = source;
+			this.converter = converter;
+			this.generation = generation;
+		}
+
+	}
+
+}
@@ -0,0 +1,585 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class consists exclusively of static methods that operate on objects to
+ * manage configuration values as <i>key-value pairs</i>.
+ */
+public class Configuration {
+
+	private final static PropertyNameStrategy DEFAULT_STRATEGY = new AnnotatedPropertyNameStrategy();
+
+	private final static AppliedSnapshots SNAPSHOTS = new AppliedSnapshots();
+
+	private Configuration() {
+
+	}
+
+	/**
+	 * <p>
+	 * Extracts all values provided by the public getter methods of the given object
+	 * as <i>key-value pairs</i>. Note that a getter method is considered any method
+	 * whose name starts with <i>get</i> and has zero arguments.
+	 * </p>
+	 * <p>
+	 * Example:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * public class Person {
+	 *     
+	 *     private String name;
+	 *     
+	 *     public Person(String name) {
+	 *         this.name = name;
+	 *     }
+	 *     
+	 *     public String getName() {
+	 *         return name;
+	 *     }
+	 *     
+	 * }
+	 * 
+	 * Person person = new Person("Alice");
+	 * Configuration.getProperties(person); // Returns: {name=Alice}
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * By default, the key is defined by the getter method name (for example, the
+	 * getter method called <i>getName()</i> defines the key <i>name</i>). However,
+	 * the key can be manually defined using the annotation {@link Property} on the
+	 * method definition:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * {@code @Property(name = "e-mail")}
+	 * public String getEmail() {
+	 *     return email;
+	 * }
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * In this case, the key <i>e-mail</i> is defined instead of the default key
+	 * <i>email</i>.
+	 * </p>
+	 * <p>
+	 * Additionally, it is possible to ignore a specific getter method including the
+	 * annotation {@link IgnoreProperty} on the method definition:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * {@code @IgnoreProperty}
+	 * public int getAge() {
+	 *     return age;
+	 * }
+	 * </code>
+	 * </pre>
+	 * 
+	 * @param object
+	 *            the object to extract the configuration values
+	 * @return an immutable map containing the configuration values
+	 */
+	public static Map<String, Object> getProperties(Object object) {
+		return getProperties(object, DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Extracts all values provided by the public getter methods of the given object
+	 * as <i>key-value pairs</i>. The key is defined according to the value returned
+	 * by the given name strategy.
+	 * 
+	 * @param object
+	 *            the object to extract the configuration values
+	 * @param strategy
+	 *            the strategy to define the key
+	 * @return an immutable map containing the configuration values
+	 * @see Configuration#getProperties(Object)
+	 */
+	public static Map<String, Object> getProperties(Object object, PropertyNameStrategy strategy) {
+		PropertyBinder<Object> binder = getBinder(object, strategy);
+		if (binder != null) {
+			PropertyMap.Collector properties = new PropertyMap.Collector(PropertyBinders.schema(object.getClass()));
+			binder.getProperties(object, properties);
+			return properties.toPropertyMap();
+		}
+
+		PropertyMetadata metadata = PropertyCache.get(object.getClass(), strategy);
+		Object[] values = new Object[metadata.schema().size()];
+		Arrays.fill(values, PropertyMap.ABSENT);
+
+		for (int i = 0; i < metadata.getterCount(); i++) {
+			try {
+				values[metadata.getterSlot(i)] = metadata.getter(i).get(object);
+			} catch (Exception e) {
+
+			}
+		}
+
+		return new PropertyMap(metadata.schema(), values);
+	}
+
+	/**
+	 * <p>
+	 * Establishes the content of the given object using values from given
+	 * <i>key-value pairs</i>.
+	 * </p>
+	 * <p>
+	 * Example:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * public class Person {
+	 *     
+	 *     private String name;
+	 *     
+	 *     public Person(String name) {
+	 *         setName(name);
+	 *     }
+	 *     
+	 *     public String getName() {
+	 *         return name;
+	 *     }
+	 *     
+	 *     public void setName(String name) {
+	 *         this.name = name;
+	 *     }
+	 *     
+	 * }
+	 * 
+	 * Person person = new Person("Alice");
+	 * {@code Map<String, Object> config = new HashMap<String, Object>();}
+	 * config.put("name", "Bob");
+	 * Configuration.setProperties(person, config);
+	 * person.getName(); // Returns: Bob
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * By default, the key defines the public setter method to invoke (for example,
+	 * the key <i>name</i> invokes the setter method <i>setName()</i>). Note that a
+	 * setter method is considered any method whose name starts with <i>set</i> and
+	 * has one argument.
+	 * </p>
+	 * <p>
+	 * However, the key can invoke a different public setter method using the
+	 * annotation {@link Property} on the method definition:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * public void setEmail(String email) {
+	 *     this.email = email;
+	 * }
+	 * 
+	 * {@code @Property(name = "email")}
+	 * public void setCanonicalEmail(String canonicalEmail) {
+	 *     this.canonicalEmail = canonicalEmail;
+	 * }
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * In this case, the key <i>email</i> also invokes the setter method
+	 * <i>setCanonicalEmail(String)</i>.
+	 * </p>
+	 * <p>
+	 * A key is ignored if it cannot be related to any existing public setter
+	 * method.
+	 * </p>
+	 * 
+	 * @param object
+	 *            the object to configure
+	 * @param properties
+	 *            the <i>key-value pairs</i> to configure the given object
+	 */
+	public static void setProperties(Object object, Map<String, Object> properties) {
+		setProperties(object, properties, DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Establishes the content of the given object using values from given
+	 * <i>key-value pairs</i>.
+	 * 
+	 * @param object
+	 *            the object to configure
+	 * @param properties
+	 *            the <i>key-value pairs</i> to configure the given object
+	 * @param strategy
+	 *            the strategy to define the setter method to invoke
+	 * @see Configuration#setProperties(Object, Map)
+	 */
+	public static void setProperties(Object object, Map<String, Object> properties, PropertyNameStrategy strategy) {
+		PropertyBinder<Object> binder = getBinder(object, strategy);
+		if (binder != null) {
+			binder.setProperties(object, properties);
+			return;
+		}
+
+		PropertyMetadata metadata = PropertyCache.get(object.getClass(), strategy);
+
+		for (int i = 0; i < metadata.setterCount(); i++) {
+			PropertySetter setter = metadata.setter(i);
+
+			if (properties.containsKey(setter.getName())) {
+				try {
+					setter.set(object, properties.get(setter.getName()));
+				} catch (Exception e) {
+
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Establishes the content of the given object using only the values from the
+	 * given <i>key-value pairs</i> that changed since the last time this method
+	 * was called on the same object.
+	 * </p>
+	 * <p>
+	 * The values applied to each object are remembered, so the setter methods of
+	 * a key are only invoked if its value is not equal to the last applied value
+	 * (arrays are compared by content). The first call on an object applies all
+	 * the given values, as {@link #setProperties(Object, Map)} does.
+	 * </p>
+	 * <p>
+	 * Example:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * {@code Map<String, Object> config = new HashMap<String, Object>();}
+	 * config.put("name", "Bob");
+	 * config.put("email", "bob@geemail.com");
+	 * Configuration.applyChanges(person, config); // Returns: [name, email]
+	 * 
+	 * config.put("email", "bob@foo.com");
+	 * Configuration.applyChanges(person, config); // Returns: [email]
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * Only the values that have been written are remembered and returned: a key
+	 * without a setter method, a value that cannot be converted or a setter
+	 * method that throws an exception is tried again on the next call.
+	 * </p>
+	 * <p>
+	 * The remembered values do not prevent the object from being garbage
+	 * collected. Concurrent calls on the same object are not synchronized, but the
+	 * values remembered by each call are added atomically.
+	 * </p>
+	 * 
+	 * @param object
+	 *            the object to configure
+	 * @param properties
+	 *            the <i>key-value pairs</i> to configure the given object
+	 * @return the keys whose values changed and have been written
+	 * @see Configuration#forgetChanges(Object)
+	 */
+	public static Set<String> applyChanges(Object object, Map<String, Object> properties) {
+		return applyChanges(object, properties, DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Establishes the content of the given object using only the values from the
+	 * given <i>key-value pairs</i> that changed since the last time this method
+	 * was called on the same object.
+	 * 
+	 * @param object
+	 *            the object to configure
+	 * @param properties
+	 *            the <i>key-value pairs</i> to configure the given object
+	 * @param strategy
+	 *            the strategy to define the setter method to invoke
+	 * @return the keys whose values changed and have been written
+	 * @see Configuration#applyChanges(Object, Map)
+	 */
+	public static Set<String> applyChanges(Object object, Map<String, Object> properties,
+			PropertyNameStrategy strategy) {
+		Map<String, Object> previous = SNAPSHOTS.get(object);
+		PropertyMetadata metadata = PropertyCache.get(object.getClass(), strategy);
+		Map<String, Object> applied = new LinkedHashMap<String, Object>();
+
+		// Uses the setters of the metadata even if the class has a binder, to know
+		// which values have been applied
+		for (int i = 0; i < metadata.setterCount(); i++) {
+			PropertySetter setter = metadata.setter(i);
+			String key = setter.getName();
+
+			if (!properties.containsKey(key)) {
+				continue;
+			}
+
+			Object value = properties.get(key);
+			if (previous != null && previous.containsKey(key) && Objects.deepEquals(previous.get(key), value)) {
+				continue;
+			}
+
+			try {
+				if (setter.set(object, value)) {
+					applied.put(key, value);
+				}
+			} catch (Exception e) {
+
+			}
+		}
+
+		if (!applied.isEmpty()) {
+			SNAPSHOTS.putAll(object, applied);
+		}
+
+		return Collections.unmodifiableSet(applied.keySet());
+	}
+
+	/**
+	 * Discards the values remembered by {@link #applyChanges(Object, Map)} for the
+	 * given object, so the next call applies all the given values again.
+	 * 
+	 * @param object
+	 *            the configured object
+	 */
+	public static void forgetChanges(Object object) {
+		SNAPSHOTS.remove(object);
+	}
+
+	/**
+	 * <p>
+	 * Copies the values provided by the public getter methods of the source object
+	 * into the target object through its public setter methods. A value is copied
+	 * when the key of the getter method matches the key of the setter method, as
+	 * if the result of {@link #getProperties(Object)} were passed to
+	 * {@link #setProperties(Object, Map)}, but without building an intermediate
+	 * map.
+	 * </p>
+	 * <p>
+	 * Example:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * Person alice = new Person("Alice");
+	 * Person bob = new Person("Bob");
+	 * Configuration.copyProperties(alice, bob);
+	 * bob.getName(); // Returns: Alice
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * The pairing between the getter and setter methods is resolved once for each
+	 * pair of classes and reused by every later call.
+	 * </p>
+	 * 
+	 * @param source
+	 *            the object to extract the configuration values
+	 * @param target
+	 *            the object to configure
+	 */
+	public static void copyProperties(Object source, Object target) {
+		copyProperties(source, target, DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Copies the values provided by the public getter methods of the source object
+	 * into the target object. The keys are defined according to the value
+	 * returned by the given name strategy.
+	 * 
+	 * @param source
+	 *            the object to extract the configuration values
+	 * @param target
+	 *            the object to configure
+	 * @param strategy
+	 *            the strategy to define the keys
+	 * @see Configuration#copyProperties(Object, Object)
+	 */
+	public static void copyProperties(Object source, Object target, PropertyNameStrategy strategy) {
+		PropertyMetadata targetMetadata = PropertyCache.get(target.getClass(), strategy);
+		PropertyCache.get(source.getClass(), strategy).copyPlan(targetMetadata, target.getClass()).copy(source,
+				target);
+	}
+
+	/**
+	 * <p>
+	 * Returns a read-only live view of the values provided by the public getter
+	 * methods of the given object as <i>key-value pairs</i>. The keys are the same
+	 * as the ones returned by {@link #getProperties(Object)}, but a getter method
+	 * is only invoked when its value is requested, either through
+	 * {@link Map#get(Object)} or while iterating the view.
+	 * </p>
+	 * <p>
+	 * Example:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * Person person = new Person("Alice");
+	 * {@code Map<String, Object> view = Configuration.view(person);}
+	 * view.get("name"); // Returns: Alice
+	 * person.setName("Bob");
+	 * view.get("name"); // Returns: Bob
+	 * </code>
+	 * </pre>
+	 * 
+	 * @param object
+	 *            the object to view
+	 * @return a live map view of the configuration values
+	 * @see Configuration#view(Object, boolean)
+	 */
+	public static Map<String, Object> view(Object object) {
+		return view(object, false);
+	}
+
+	/**
+	 * Returns a read-only view of the values provided by the public getter methods
+	 * of the given object as <i>key-value pairs</i>. If <code>memoize</code> is
+	 * <code>true</code>, each getter method is invoked at most once and its value
+	 * is reused by later requests; otherwise, the view is live and each request
+	 * invokes the getter method again.
+	 * 
+	 * @param object
+	 *            the object to view
+	 * @param memoize
+	 *            whether the values are kept once they are read
+	 * @return a map view of the configuration values
+	 * @see Configuration#view(Object)
+	 */
+	public static Map<String, Object> view(Object object, boolean memoize) {
+		return view(object, DEFAULT_STRATEGY, memoize);
+	}
+
+	/**
+	 * Returns a read-only view of the values provided by the public getter methods
+	 * of the given object as <i>key-value pairs</i>. The key is defined according
+	 * to the value returned by the given name strategy.
+	 * 
+	 * @param object
+	 *            the object to view
+	 * @param strategy
+	 *            the strategy to define the key
+	 * @param memoize
+	 *            whether the values are kept once they are read
+	 * @return a map view of the configuration values
+	 * @see Configuration#view(Object, boolean)
+	 */
+	public static Map<String, Object> view(Object object, PropertyNameStrategy strategy, boolean memoize) {
+		return new PropertyView(object, PropertyCache.get(object.getClass(), strategy), memoize);
+	}
+
+	/**
+	 * <p>
+	 * Extracts the values provided by the public getter methods of all the given
+	 * objects, arranged in one column per key.
+	 * </p>
+	 * <p>
+	 * Example:
+	 * </p>
+	 * 
+	 * <pre>
+	 * <code>
+	 * {@code List<Person> people = Arrays.asList(new Person("Alice"), new Person("Bob"));}
+	 * PropertyColumns columns = Configuration.extractColumns(people, Person.class);
+	 * String[] names = (String[]) columns.getColumn("name"); // Returns: [Alice, Bob]
+	 * </code>
+	 * </pre>
+	 * <p>
+	 * The getter methods of primitive types fill primitive arrays without boxing
+	 * their values. Large collections are split across the common fork/join pool,
+	 * so the getter methods may be invoked from several threads.
+	 * </p>
+	 * 
+	 * @param objects
+	 *            the objects to extract the configuration values
+	 * @param type
+	 *            the class whose getter methods define the columns
+	 * @return the columns containing the configuration values
+	 * @see PropertyColumns
+	 */
+	public static <T> PropertyColumns extractColumns(Collection<? extends T> objects, Class<T> type) {
+		return extractColumns(objects, type, DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Extracts the values provided by the public getter methods of all the given
+	 * objects, arranged in one column per key. The key is defined according to the
+	 * value returned by the given name strategy.
+	 * 
+	 * @param objects
+	 *            the objects to extract the configuration values
+	 * @param type
+	 *            the class whose getter methods define the columns
+	 * @param strategy
+	 *            the strategy to define the key
+	 * @return the columns containing the configuration values
+	 * @see Configuration#extractColumns(Collection, Class)
+	 */
+	public static <T> PropertyColumns extractColumns(Collection<? extends T> objects, Class<T> type,
+			PropertyNameStrategy strategy) {
+		return PropertyColumns.extract(objects, PropertyCache.get(type, strategy));
+	}
+
+	/**
+	 * <p>
+	 * Resolves and caches the getter and setter methods of the given class, so the
+	 * first call to {@link #getProperties(Object)} or
+	 * {@link #setProperties(Object, Map)} on one of its instances does not pay for
+	 * scanning its methods.
+	 * </p>
+	 * <p>
+	 * The methods of each class are resolved only once per name strategy and are
+	 * reused by every later call, so preloading is never required.
+	 * </p>
+	 * 
+	 * @param type
+	 *            the class to preload
+	 * @see Configuration#invalidate(Class)
+	 */
+	public static void preload(Class<?> type) {
+		preload(type, DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Resolves and caches the getter and setter methods of the given class
+	 * according to the given name strategy.
+	 * 
+	 * @param type
+	 *            the class to preload
+	 * @param strategy
+	 *            the strategy to define the keys
+	 * @see Configuration#preload(Class)
+	 */
+	public static void preload(Class<?> type, PropertyNameStrategy strategy) {
+		if (DEFAULT_STRATEGY.equals(strategy)) {
+			PropertyBinders.get(type);
+		}
+
+		PropertyCache.get(type, strategy);
+	}
+
+	/**
+	 * Discards the cached getter and setter methods of the given class for every
+	 * name strategy. They are resolved again the next time the class is used.
+	 * 
+	 * @param type
+	 *            the class to invalidate
+	 * @see Configuration#preload(Class)
+	 */
+	public static void invalidate(Class<?> type) {
+		PropertyCache.invalidate(type);
+		PropertyBinders.invalidate(type);
+	}
+
+	/**
+	 * Returns the generated binder of the class of the given object, which only
+	 * applies to the default name strategy.
+	 */
+	private static PropertyBinder<Object> getBinder(Object object, PropertyNameStrategy strategy) {
+		return DEFAULT_STRATEGY.equals(strategy) ? PropertyBinders.get(object.getClass()) : null;
+	}
+
+}
@@ -0,0 +1,191 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Holds the current configured instance of a class and replaces it atomically
+ * when the configuration changes.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@code ConfigurationHolder<Person> holder = new ConfigurationHolder<Person>(Person::new);}
+ * holder.update(config);
+ * holder.get().getName(); // Returns: the name of the last applied configuration
+ * </code>
+ * </pre>
+ * <p>
+ * Each update creates a new instance, applies to it the <i>key-value pairs</i>
+ * of all the previous updates merged with the new ones, and only then
+ * publishes it with a single atomic reference swap. Replaying the pairs,
+ * instead of copying the properties of the current instance, also keeps the
+ * values of the properties that have a setter but no matching getter. Readers never lock and always see a fully
+ * configured instance, so the published instances must not be modified
+ * afterwards. Concurrent updates are serialized by retrying the loser against
+ * the newly published instance.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the configured instances
+ */
+public class ConfigurationHolder<T> {
+
+	private final Supplier<? extends T> factory;
+	private final PropertyNameStrategy strategy;
+	private final AtomicReference<Snapshot<T>> current;
+
+	/**
+	 * Creates a holder whose initial instance is created by the given factory.
+	 *
+	 * @param factory
+	 *            the factory of new instances
+	 */
+	public ConfigurationHolder(Supplier<? extends T> factory) {
+		this(factory, new AnnotatedPropertyNameStrategy());
+	}
+
+	/**
+	 * Creates a holder whose initial instance is created by the given factory and
+	 * whose keys are defined by the given name strategy.
+	 *
+	 * @param factory
+	 *            the factory of new instances
+	 * @param strategy
+	 *            the strategy to define the keys
+	 */
+	public ConfigurationHolder(Supplier<? extends T> factory, PropertyNameStrategy strategy) {
+		this.factory = factory;
+		this.strategy = strategy;
+		this.current = new AtomicReference<Snapshot<T>>(
+				snapshot(factory.get(), 0, Collections.<String, Object>emptyMap()));
+	}
+
+	/**
+	 * Returns the current instance
+	 *
+	 * @return the last published instance
+	 */
+	public T get() {
+		return current.get().getInstance();
+	}
+
+	/**
+	 * Returns the version of the current instance, which starts at 0 and
+	 * increases by one with every update.
+	 *
+	 * @return the current version
+	 */
+	public long getVersion() {
+		return current.get().getVersion();
+	}
+
+	/**
+	 * Returns the current instance together with its version and configuration
+	 * values, all of them consistent with each other.
+	 *
+	 * @return the current snapshot
+	 */
+	public Snapshot<T> getSnapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Publishes a new instance with the configuration of the current instance
+	 * updated with the given <i>key-value pairs</i>.
+	 *
+	 * @param properties
+	 *            the <i>key-value pairs</i> to apply
+	 * @return the published snapshot
+	 * @see Configuration#setProperties(Object, Map, PropertyNameStrategy)
+	 */
+	public Snapshot<T> update(Map<String, Object> properties) {
+		while (true) {
+			Snapshot<T> previous = current.get();
+
+			Map<String, Object> applied = new HashMap<String, Object>(previous.getAppliedProperties());
+			applied.putAll(properties);
+
+			T instance = factory.get();
+			Configuration.setProperties(instance, applied, strategy);
+
+			Snapshot<T> next = snapshot(instance, previous.getVersion() + 1, Collections.unmodifiableMap(applied));
+			if (current.compareAndSet(previous, next)) {
+				return next;
+			}
+		}
+	}
+
+	private Snapshot<T> snapshot(T instance, long version, Map<String, Object> applied) {
+		return new Snapshot<T>(instance, version, Configuration.getProperties(instance, strategy), applied);
+	}
+
+	/**
+	 * An immutable published state of a {@link ConfigurationHolder}
+	 *
+	 * @param <T>
+	 *            the type of the configured instance
+	 */
+	public static class Snapshot<T> {
+
+		private final T instance;
+		private final long version;
+		private final Map<String, Object> properties;
+		private final Map<String, Object> applied;
+
+		Snapshot(T instance, long version, Map<String, Object> properties, Map<String, Object> applied) {
+			this.instance = instance;
+			this.version = version;
+			this.properties = properties;
+			this.applied = applied;
+		}
+
+		/**
+		 * Returns the configured instance
+		 *
+		 * @return the instance
+		 */
+		public T getInstance() {
+			return instance;
+		}
+
+		/**
+		 * Returns the version of this snapshot
+		 *
+		 * @return the version
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Returns the configuration values of the instance, extracted when it was
+		 * published
+		 *
+		 * @return an immutable map containing the configuration values
+		 */
+		public Map<String, Object> getProperties() {
+			return properties;
+		}
+
+		/**
+		 * Returns the <i>key-value pairs</i> of all the updates up to this
+		 * snapshot, where the later updates replace the values of the earlier
+		 * ones
+		 *
+		 * @return an immutable map containing the applied pairs
+		 */
+		public Map<String, Object> getAppliedProperties() {
+			return applied;
+		}
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.Set;
+
+/**
+ * Receives a notification every time a {@link ConfigurationWatcher} applies
+ * new configuration values to an object.
+ */
+public interface ConfigurationListener {
+
+	/**
+	 * Called after the changed values have been applied to the given object.
+	 * 
+	 * @param object
+	 *            the configured object
+	 * @param keys
+	 *            the keys whose values changed
+	 */
+	public void configurationChanged(Object object, Set<String> keys);
+
+}
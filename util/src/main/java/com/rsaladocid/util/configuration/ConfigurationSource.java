@@ -0,0 +1,24 @@
+package com.rsaladocid.util.configuration;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A source of configuration values as <i>key-value pairs</i>, which can be
+ * applied to objects using {@link Configuration}.
+ * 
+ * @see FileConfigurationSource
+ * @see ConfigurationWatcher
+ */
+public interface ConfigurationSource {
+
+	/**
+	 * Reads the current configuration values.
+	 * 
+	 * @return the <i>key-value pairs</i>
+	 * @throws IOException
+	 *             if the values cannot be read
+	 */
+	public Map<String, Object> load() throws IOException;
+
+}
@@ -0,0 +1,261 @@
+package com.rsaladocid.util.configuration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * Keeps objects configured with the values of {@link FileConfigurationSource
+ * files}, reapplying them every time a file changes.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * ConfigurationWatcher watcher = new ConfigurationWatcher();
+ * watcher.bind(new FileConfigurationSource(Paths.get("person.properties")), person);
+ * // Every change in person.properties is applied to person
+ * watcher.close();
+ * </code>
+ * </pre>
+ * <p>
+ * The directories of the bound files are registered in a {@link WatchService}
+ * and a single daemon thread blocks until the file system reports a change, so
+ * no thread polls the files. When a file changes, only that file is read again
+ * and only the values that changed are applied to its objects, through
+ * {@link Configuration#applyChanges(Object, Map)}.
+ * </p>
+ * <p>
+ * An exception thrown while reloading a file, or while applying its values to
+ * one of its objects, is reported to the
+ * {@link Thread#getUncaughtExceptionHandler() handler} of the daemon thread,
+ * which keeps watching and still applies the values to the rest of the objects.
+ * </p>
+ */
+public class ConfigurationWatcher implements Closeable {
+
+	private final WatchService watchService;
+	private final Thread thread;
+
+	private final Map<Path, List<Binding>> bindings = new HashMap<Path, List<Binding>>();
+	private final Set<Path> directories = new HashSet<Path>();
+
+	/**
+	 * Creates a watcher and starts its daemon thread.
+	 *
+	 * @throws IOException
+	 *             if the watch service cannot be created
+	 */
+	public ConfigurationWatcher() throws IOException {
+		watchService = FileSystems.getDefault().newWatchService();
+
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				watch();
+			}
+
+		}, "configuration-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Applies the values of the given file to the given object, and applies them
+	 * again every time the file changes.
+	 *
+	 * @param source
+	 *            the file that provides the configuration values
+	 * @param object
+	 *            the object to configure
+	 * @throws IOException
+	 *             if the file cannot be read or watched
+	 */
+	public void bind(FileConfigurationSource source, Object object) throws IOException {
+		bind(source, object, null);
+	}
+
+	/**
+	 * Applies the values of the given file to the given object, and applies them
+	 * again every time the file changes. The given listener is notified every
+	 * time any value changes.
+	 *
+	 * @param source
+	 *            the file that provides the configuration values
+	 * @param object
+	 *            the object to configure
+	 * @param listener
+	 *            the listener to notify, or <code>null</code>
+	 * @throws IOException
+	 *             if the file cannot be read or watched
+	 */
+	public void bind(FileConfigurationSource source, Object object, ConfigurationListener listener)
+			throws IOException {
+		Binding binding = new Binding(source, object, listener);
+		Path directory = source.getPath().getParent();
+
+		synchronized (this) {
+			if (directories.add(directory)) {
+				try {
+					directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_MODIFY);
+				} catch (IOException e) {
+					directories.remove(directory);
+					throw e;
+				}
+			}
+
+			List<Binding> bound = bindings.get(source.getPath());
+			if (bound == null) {
+				bound = new ArrayList<Binding>();
+				bindings.put(source.getPath(), bound);
+			}
+			bound.add(binding);
+		}
+
+		binding.apply(source.load());
+	}
+
+	/**
+	 * Stops applying any file to the given object.
+	 *
+	 * @param object
+	 *            the configured object
+	 */
+	public synchronized void unbind(Object object) {
+		for (List<Binding> bound : bindings.values()) {
+			for (int i = bound.size() - 1; i >= 0; i--) {
+				if (bound.get(i).object == object) {
+					bound.remove(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops watching the files and terminates the daemon thread.
+	 */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+		thread.interrupt();
+	}
+
+	private void watch() {
+		while (true) {
+			WatchKey key;
+
+			try {
+				key = watchService.take();
+			} catch (InterruptedException e) {
+				return;
+			} catch (ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path directory = (Path) key.watchable();
+			Set<Path> changed = new LinkedHashSet<Path>();
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.context() instanceof Path) {
+					changed.add(directory.resolve((Path) event.context()));
+				}
+			}
+
+			key.reset();
+
+			for (Path path : changed) {
+				reload(path);
+			}
+		}
+	}
+
+	private void reload(Path path) {
+		List<Binding> bound;
+
+		synchronized (this) {
+			bound = bindings.get(path);
+			if (bound == null || bound.isEmpty()) {
+				return;
+			}
+
+			bound = new ArrayList<Binding>(bound);
+		}
+
+		Map<String, Object> values;
+		try {
+			values = bound.get(0).source.load();
+		} catch (IOException e) {
+			// The file may be missing or partially written; the next event retries
+			return;
+		} catch (RuntimeException e) {
+			report(e);
+			return;
+		}
+
+		for (Binding binding : bound) {
+			try {
+				binding.apply(values);
+			} catch (RuntimeException e) {
+				report(e);
+			}
+		}
+	}
+
+	/**
+	 * Reports an exception to the handler of the daemon thread without
+	 * terminating it
+	 */
+	private void report(RuntimeException e) {
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+	}
+
+	private static class Binding {
+
+		private final FileConfigurationSource source;
+		private final Object object;
+		private final ConfigurationListener listener;
+
+		/**
+		 * Serializes the first application of the values with the reloads
+		 */
+		private final Object lock = new Object();
+
+		Binding(FileConfigurationSource source, Object object, ConfigurationListener listener) {
+			this.source = source;
+			this.object = object;
+			this.listener = listener;
+		}
+
+		void apply(Map<String, Object> values) {
+			Set<String> changes;
+
+			synchronized (lock) {
+				changes = Configuration.applyChanges(object, values);
+			}
+
+			if (listener != null && !changes.isEmpty()) {
+				listener.configurationChanged(object, changes);
+			}
+		}
+
+	}
+
+}
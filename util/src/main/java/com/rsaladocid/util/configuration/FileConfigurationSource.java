@@ -0,0 +1,133 @@
+package com.rsaladocid.util.configuration;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * <p>
+ * A {@link ConfigurationSource} that reads a <i>.properties</i> or <i>JSON</i>
+ * file. The file is mapped into memory and parsed straight from the mapping,
+ * without copying it into an intermediate stream buffer.
+ * </p>
+ * <p>
+ * The format is detected from the file extension: <i>.json</i> files are
+ * parsed as a JSON object, whose members become the keys, and any other file
+ * is parsed as a UTF-8 properties file, whose values are strings.
+ * </p>
+ */
+public class FileConfigurationSource implements ConfigurationSource {
+
+	/**
+	 * The supported file formats
+	 */
+	public enum Format {
+		PROPERTIES, JSON
+	}
+
+	private final static String JSON_EXTENSION = ".json";
+
+	/**
+	 * Shared by all the sources, as it is thread-safe once configured
+	 */
+	private final static ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Path path;
+	private final Format format;
+
+	/**
+	 * Creates a source that reads the given file, whose format is detected from
+	 * its extension.
+	 *
+	 * @param path
+	 *            the file to read
+	 */
+	public FileConfigurationSource(Path path) {
+		this(path, path.getFileName().toString().toLowerCase().endsWith(JSON_EXTENSION) ? Format.JSON
+				: Format.PROPERTIES);
+	}
+
+	/**
+	 * Creates a source that reads the given file with the given format.
+	 *
+	 * @param path
+	 *            the file to read
+	 * @param format
+	 *            the format of the file
+	 */
+	public FileConfigurationSource(Path path, Format format) {
+		this.path = path.toAbsolutePath().normalize();
+		this.format = format;
+	}
+
+	/**
+	 * Returns the file read by this source
+	 *
+	 * @return the absolute path of the file
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns the format of the file read by this source
+	 *
+	 * @return the file format
+	 */
+	public Format getFormat() {
+		return format;
+	}
+
+	@Override
+	public Map<String, Object> load() throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (format == Format.JSON) {
+				return parseJson(buffer);
+			} else {
+				return parseProperties(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> parseJson(MappedByteBuffer buffer) throws IOException {
+		if (!buffer.hasRemaining()) {
+			return new HashMap<String, Object>();
+		}
+
+		return MAPPER.readValue(new ByteBufferBackedInputStream(buffer), HashMap.class);
+	}
+
+	private Map<String, Object> parseProperties(MappedByteBuffer buffer) throws IOException {
+		CharBuffer content = StandardCharsets.UTF_8.newDecoder().decode(buffer);
+
+		Properties properties = new Properties();
+		properties.load(new CharArrayReader(content.array(), content.arrayOffset() + content.position(),
+				content.remaining()));
+
+		Map<String, Object> values = new HashMap<String, Object>();
+		for (String key : properties.stringPropertyNames()) {
+			values.put(key, properties.getProperty(key));
+		}
+
+		return values;
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.rsaladocid.util.configuration;
+
+/**
+ * Defines how {@link Configuration} reaches the properties of an object.
+ * 
+ * @see PropertyNameStrategy#getAccess()
+ */
+public enum PropertyAccess {
+
+	/**
+	 * The properties are the public getter and setter methods
+	 */
+	METHODS,
+
+	/**
+	 * The properties are the instance fields declared by the class and its
+	 * superclasses, whatever their visibility. Final fields can only be read.
+	 */
+	FIELDS
+
+}
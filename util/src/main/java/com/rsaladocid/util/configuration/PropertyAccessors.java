@@ -0,0 +1,309 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Generates the {@link PropertyGetter} and {@link PropertySetter} of the
+ * getter and setter methods discovered by {@link PropertyMetadata}.
+ * </p>
+ * <p>
+ * Whenever possible, the accessor is a {@link Function} or {@link BiConsumer}
+ * spun by {@link LambdaMetafactory}, which the JIT compiler can inline like a
+ * direct call. If the involved classes are not visible from this class loader,
+ * a {@link MethodHandle} adapted to generic arguments is used instead. Plain
+ * reflection is the last resort when no method handle can be created.
+ * </p>
+ * <p>
+ * Fields are always accessed through method handles, which the JIT compiler
+ * reduces to plain field loads and stores.
+ * </p>
+ */
+final class PropertyAccessors {
+
+	private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private final static MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private final static MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private PropertyAccessors() {
+
+	}
+
+	/**
+	 * Creates the accessor of the given getter method.
+	 *
+	 * @param name
+	 *            the property name
+	 * @param method
+	 *            the getter method
+	 * @return the accessor
+	 */
+	static PropertyGetter getter(String name, Method method) {
+		return new PropertyGetter(name, method.getReturnType(), getterFunction(method), unreflect(method));
+	}
+
+	/**
+	 * Creates the accessor of the given setter method.
+	 *
+	 * @param name
+	 *            the property name
+	 * @param method
+	 *            the setter method
+	 * @return the accessor
+	 */
+	static PropertySetter setter(String name, Method method) {
+		return new PropertySetter(name, method.getParameterTypes()[0], setterConsumer(method));
+	}
+
+	/**
+	 * Creates the accessor that reads the given field. The field is made
+	 * accessible first.
+	 *
+	 * @param name
+	 *            the property name
+	 * @param field
+	 *            the field
+	 * @return the accessor, or <code>null</code> if the field cannot be made
+	 *         accessible
+	 */
+	static PropertyGetter getter(String name, Field field) {
+		try {
+			field.setAccessible(true);
+
+			MethodHandle handle = LOOKUP.unreflectGetter(field);
+			return new PropertyGetter(name, field.getType(), handleGetter(handle.asType(GETTER_TYPE)), handle);
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the accessor that writes the given field. The field is made
+	 * accessible first.
+	 *
+	 * @param name
+	 *            the property name
+	 * @param field
+	 *            the field, which must not be final
+	 * @return the accessor, or <code>null</code> if the field cannot be made
+	 *         accessible
+	 */
+	static PropertySetter setter(String name, Field field) {
+		try {
+			field.setAccessible(true);
+
+			MethodHandle handle = LOOKUP.unreflectSetter(field);
+			return new PropertySetter(name, field.getType(), handleSetter(handle.asType(SETTER_TYPE)));
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the method handle of the given method, or <code>null</code> if it
+	 * is not accessible.
+	 *
+	 * @param method
+	 *            the method
+	 * @return the method handle
+	 */
+	static MethodHandle unreflect(Method method) {
+		try {
+			return LOOKUP.unreflect(method);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> getterFunction(Method method) {
+		MethodHandle handle = unreflect(method);
+
+		if (handle == null) {
+			return reflectiveGetter(method);
+		}
+
+		Class<?> owner = method.getDeclaringClass();
+		Class<?> returned = wrap(method.getReturnType());
+
+		if (isVisible(owner) && isVisible(returned) && returned != Void.class) {
+			try {
+				return (Function<Object, Object>) LambdaMetafactory
+						.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class), GETTER_TYPE, handle,
+								MethodType.methodType(returned, owner))
+						.getTarget().invoke();
+			} catch (Throwable e) {
+
+			}
+		}
+
+		return handleGetter(handle.asType(GETTER_TYPE));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> setterConsumer(Method method) {
+		MethodHandle handle = unreflect(method);
+
+		if (handle == null) {
+			return reflectiveSetter(method);
+		}
+
+		Class<?> owner = method.getDeclaringClass();
+		Class<?> parameter = wrap(method.getParameterTypes()[0]);
+
+		if (isVisible(owner) && isVisible(parameter)) {
+			try {
+				return (BiConsumer<Object, Object>) LambdaMetafactory
+						.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class), SETTER_TYPE, handle,
+								MethodType.methodType(void.class, owner, parameter))
+						.getTarget().invoke();
+			} catch (Throwable e) {
+
+			}
+		}
+
+		return handleSetter(handle.asType(SETTER_TYPE));
+	}
+
+	private static Function<Object, Object> handleGetter(final MethodHandle handle) {
+		return new Function<Object, Object>() {
+
+			@Override
+			public Object apply(Object object) {
+				try {
+					return (Object) handle.invokeExact(object);
+				} catch (Throwable e) {
+					throw PropertyAccessors.<RuntimeException>propagate(e);
+				}
+			}
+
+		};
+	}
+
+	private static BiConsumer<Object, Object> handleSetter(final MethodHandle handle) {
+		return new BiConsumer<Object, Object>() {
+
+			@Override
+			public void accept(Object object, Object value) {
+				try {
+					handle.invokeExact(object, value);
+				} catch (Throwable e) {
+					throw PropertyAccessors.<RuntimeException>propagate(e);
+				}
+			}
+
+		};
+	}
+
+	private static Function<Object, Object> reflectiveGetter(final Method method) {
+		return new Function<Object, Object>() {
+
+			@Override
+			public Object apply(Object object) {
+				try {
+					return method.invoke(object);
+				} catch (InvocationTargetException e) {
+					throw PropertyAccessors.<RuntimeException>propagate(e.getCause());
+				} catch (IllegalAccessException e) {
+					throw new IllegalArgumentException(e);
+				}
+			}
+
+		};
+	}
+
+	private static BiConsumer<Object, Object> reflectiveSetter(final Method method) {
+		return new BiConsumer<Object, Object>() {
+
+			@Override
+			public void accept(Object object, Object value) {
+				try {
+					method.invoke(object, value);
+				} catch (InvocationTargetException e) {
+					throw PropertyAccessors.<RuntimeException>propagate(e.getCause());
+				} catch (IllegalAccessException e) {
+					throw new IllegalArgumentException(e);
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Rethrows the given throwable without declaring it, so checked exceptions
+	 * thrown by a getter or setter reach the caller unchanged.
+	 */
+	@SuppressWarnings("unchecked")
+	static <E extends Throwable> E propagate(Throwable e) throws E {
+		throw (E) e;
+	}
+
+	/**
+	 * Returns whether the given class is resolved to the same class from the class
+	 * loader of this class, which is required to spin a lambda class that refers
+	 * to it.
+	 */
+	private static boolean isVisible(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		if (type.isPrimitive()) {
+			return true;
+		}
+
+		try {
+			return Class.forName(type.getName(), false, PropertyAccessors.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the wrapper class of the given type, or the type itself if it is not
+	 * primitive.
+	 *
+	 * @param type
+	 *            the type
+	 * @return the wrapper class
+	 */
+	static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		} else if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == boolean.class) {
+			return Boolean.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		} else if (type == char.class) {
+			return Character.class;
+		} else {
+			return Void.class;
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * Reads and writes the properties of a specific class without reflection.
+ * </p>
+ * <p>
+ * Binders are generated at compile time by the <i>util-processor</i>
+ * annotation processor for each public top-level class that uses
+ * {@link Property} or {@link IgnoreProperty}. The generated binder of the class
+ * <i>Person</i> is named <i>PersonPropertyBinder</i> and is placed in the same
+ * package. {@link Configuration} uses it automatically, instead of reflection,
+ * when the default name strategy is used.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the objects to bind
+ */
+public interface PropertyBinder<T> {
+
+	/**
+	 * Returns the distinct keys that {@link #getProperties(Object, Map)} may
+	 * store, in a stable order.
+	 * 
+	 * @return the property names
+	 */
+	public String[] getPropertyNames();
+
+	/**
+	 * Extracts all values provided by the getter methods of the given object into
+	 * the given map.
+	 * 
+	 * @param object
+	 *            the object to extract the configuration values
+	 * @param properties
+	 *            the map where the configuration values are stored
+	 * @see Configuration#getProperties(Object)
+	 */
+	public void getProperties(T object, Map<String, Object> properties);
+
+	/**
+	 * Establishes the content of the given object using values from given
+	 * <i>key-value pairs</i>.
+	 * 
+	 * @param object
+	 *            the object to configure
+	 * @param properties
+	 *            the <i>key-value pairs</i> to configure the given object
+	 * @see Configuration#setProperties(Object, Map)
+	 */
+	public void setProperties(T object, Map<String, Object> properties);
+
+}
@@ -0,0 +1,103 @@
+package com.rsaladocid.util.configuration;
+
+/**
+ * Locates the generated {@link PropertyBinder} of each class. The outcome of
+ * the lookup, including the absence of a binder, is cached through a
+ * {@link ClassValue} together with the schema of the keys of the binder.
+ */
+final class PropertyBinders {
+
+	private final static String SUFFIX = "PropertyBinder";
+
+	private final static ClassValue<Binding> BINDINGS = new ClassValue<Binding>() {
+
+		@Override
+		protected Binding computeValue(Class<?> type) {
+			return load(type);
+		}
+
+	};
+
+	private final static Binding UNBOUND = new Binding(null, null);
+
+	private PropertyBinders() {
+
+	}
+
+	/**
+	 * Returns the generated binder of the given class.
+	 *
+	 * @param type
+	 *            the class
+	 * @return the binder, or <code>null</code> if no binder was generated for the
+	 *         class
+	 */
+	static PropertyBinder<Object> get(Class<?> type) {
+		return BINDINGS.get(type).binder;
+	}
+
+	/**
+	 * Returns the schema of the keys provided by the generated binder of the given
+	 * class.
+	 *
+	 * @param type
+	 *            the class
+	 * @return the schema, or <code>null</code> if no binder was generated for the
+	 *         class
+	 */
+	static PropertySchema schema(Class<?> type) {
+		return BINDINGS.get(type).schema;
+	}
+
+	/**
+	 * Discards the cached lookup of the given class.
+	 *
+	 * @param type
+	 *            the class
+	 */
+	static void invalidate(Class<?> type) {
+		BINDINGS.remove(type);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Binding load(Class<?> type) {
+		if (type.isArray() || type.isPrimitive() || type.getEnclosingClass() != null) {
+			return UNBOUND;
+		}
+
+		try {
+			Class<?> binder = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+
+			if (PropertyBinder.class.isAssignableFrom(binder)) {
+				return new Binding((PropertyBinder<Object>) binder.newInstance());
+			}
+		} catch (ClassNotFoundException e) {
+
+		} catch (InstantiationException e) {
+
+		} catch (IllegalAccessException e) {
+
+		} catch (LinkageError e) {
+
+		}
+
+		return UNBOUND;
+	}
+
+	private static class Binding {
+
+		private final PropertyBinder<Object> binder;
+		private final PropertySchema schema;
+
+		Binding(PropertyBinder<Object> binder) {
+			this(binder, new PropertySchema(binder.getPropertyNames().clone()));
+		}
+
+		Binding(PropertyBinder<Object> binder, PropertySchema schema) {
+			this.binder = binder;
+			this.schema = schema;
+		}
+
+	}
+
+}
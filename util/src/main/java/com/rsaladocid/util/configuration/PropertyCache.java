@@ -0,0 +1,69 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A cache of {@link PropertyMetadata} per class and {@link PropertyNameStrategy}.
+ * </p>
+ * <p>
+ * The entries are attached to each class through a {@link ClassValue}, so they
+ * do not prevent the class loader of a cached class from being unloaded.
+ * Strategies are compared using {@link Object#equals(Object)}, so a strategy
+ * that does not implement equality adds an entry for every instance, as
+ * documented in {@link PropertyNameStrategy}.
+ * </p>
+ */
+final class PropertyCache {
+
+	private final static ClassValue<ConcurrentMap<PropertyNameStrategy, PropertyMetadata>> CACHE = new ClassValue<ConcurrentMap<PropertyNameStrategy, PropertyMetadata>>() {
+
+		@Override
+		protected ConcurrentMap<PropertyNameStrategy, PropertyMetadata> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<PropertyNameStrategy, PropertyMetadata>();
+		}
+
+	};
+
+	private PropertyCache() {
+
+	}
+
+	/**
+	 * Returns the metadata of the given class, resolving it if it is not cached
+	 * yet.
+	 *
+	 * @param type
+	 *            the class
+	 * @param strategy
+	 *            the strategy to define the property names
+	 * @return the metadata of the class
+	 */
+	static PropertyMetadata get(Class<?> type, PropertyNameStrategy strategy) {
+		ConcurrentMap<PropertyNameStrategy, PropertyMetadata> entries = CACHE.get(type);
+		PropertyMetadata metadata = entries.get(strategy);
+
+		if (metadata == null) {
+			metadata = PropertyMetadata.resolve(type, strategy);
+
+			PropertyMetadata previous = entries.putIfAbsent(strategy, metadata);
+			if (previous != null) {
+				metadata = previous;
+			}
+		}
+
+		return metadata;
+	}
+
+	/**
+	 * Discards all cached metadata of the given class.
+	 *
+	 * @param type
+	 *            the class
+	 */
+	static void invalidate(Class<?> type) {
+		CACHE.remove(type);
+	}
+
+}
@@ -0,0 +1,275 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * The configuration values of a collection of objects of the same class
+ * arranged in columns, where each column is an array holding the value of a
+ * property for every object.
+ * </p>
+ * <p>
+ * The column of a property whose getter method returns a primitive type is a
+ * primitive array (for example, <code>int[]</code>), and the column of any
+ * other property is an array of its return type. The position of each object
+ * in the columns matches its position in the source collection. A value that
+ * cannot be read, or that belongs to a <code>null</code> object, is left as
+ * <code>null</code> or as the default value of its primitive type.
+ * </p>
+ *
+ * @see Configuration#extractColumns(Collection, Class)
+ */
+public final class PropertyColumns {
+
+	/**
+	 * Number of objects below which the extraction is not split further
+	 */
+	private final static int THRESHOLD = 4096;
+
+	private final PropertySchema schema;
+	private final Object[] columns;
+	private final int size;
+
+	private PropertyColumns(PropertySchema schema, Object[] columns, int size) {
+		this.schema = schema;
+		this.columns = columns;
+		this.size = size;
+	}
+
+	/**
+	 * Extracts the columns of the given objects using the given metadata. Large
+	 * collections are split across the common fork/join pool.
+	 */
+	static PropertyColumns extract(Collection<?> objects, PropertyMetadata metadata) {
+		Object[] rows = objects.toArray();
+		PropertySchema schema = metadata.schema();
+
+		Object[] columns = new Object[schema.size()];
+		ColumnReader[] readers = new ColumnReader[schema.size()];
+
+		for (int i = 0; i < columns.length; i++) {
+			PropertyGetter getter = metadata.reader(i);
+
+			columns[i] = Array.newInstance(getter.getType() == void.class ? Object.class : getter.getType(),
+					rows.length);
+			readers[i] = ColumnReader.of(getter);
+		}
+
+		ExtractionTask task = new ExtractionTask(rows, readers, columns, 0, rows.length);
+
+		if (rows.length > THRESHOLD) {
+			ForkJoinPool.commonPool().invoke(task);
+		} else {
+			task.compute();
+		}
+
+		return new PropertyColumns(schema, columns, rows.length);
+	}
+
+	/**
+	 * Returns the number of objects
+	 *
+	 * @return the length of every column
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the keys of the extracted properties
+	 *
+	 * @return the property names
+	 */
+	public Set<String> getNames() {
+		Set<String> names = new LinkedHashSet<String>();
+
+		for (int i = 0; i < schema.size(); i++) {
+			names.add(schema.name(i));
+		}
+
+		return Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * Returns the column of the given property. The returned array is not copied.
+	 *
+	 * @param name
+	 *            the property name
+	 * @return the array holding the values of the property, or <code>null</code>
+	 *         if the property does not exist
+	 */
+	public Object getColumn(String name) {
+		int slot = schema.slotOf(name);
+		return slot >= 0 ? columns[slot] : null;
+	}
+
+	/**
+	 * Returns the type of the values of the given property
+	 *
+	 * @param name
+	 *            the property name
+	 * @return the component type of the column, or <code>null</code> if the
+	 *         property does not exist
+	 */
+	public Class<?> getType(String name) {
+		Object column = getColumn(name);
+		return column != null ? column.getClass().getComponentType() : null;
+	}
+
+	/**
+	 * Fills a range of rows of all columns, splitting the range in halves while
+	 * it is larger than the threshold.
+	 */
+	private static class ExtractionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] rows;
+		private final ColumnReader[] readers;
+		private final Object[] columns;
+		private final int from;
+		private final int to;
+
+		ExtractionTask(Object[] rows, ColumnReader[] readers, Object[] columns, int from, int to) {
+			this.rows = rows;
+			this.readers = readers;
+			this.columns = columns;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ExtractionTask(rows, readers, columns, from, middle),
+						new ExtractionTask(rows, readers, columns, middle, to));
+			} else {
+				for (int i = 0; i < readers.length; i++) {
+					readers[i].read(rows, columns[i], from, to);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Reads the value of a property from a range of objects into its column. A
+	 * value whose getter throws an exception is left as the default.
+	 */
+	private static abstract class ColumnReader {
+
+		static ColumnReader of(PropertyGetter getter) {
+			Class<?> type = getter.getType();
+			MethodHandle handle = getter.getHandle();
+
+			if (!type.isPrimitive() || type == void.class || handle == null) {
+				return new ObjectReader(getter);
+			}
+
+			return new PrimitiveReader(handle.asType(MethodType.methodType(type, Object.class)), type);
+		}
+
+		void read(Object[] rows, Object column, int from, int to) {
+			for (int i = from; i < to; i++) {
+				if (rows[i] != null) {
+					try {
+						read(rows[i], column, i);
+					} catch (Exception e) {
+
+					}
+				}
+			}
+		}
+
+		abstract void read(Object row, Object column, int index) throws Exception;
+
+	}
+
+	private static class ObjectReader extends ColumnReader {
+
+		private final PropertyGetter getter;
+
+		ObjectReader(PropertyGetter getter) {
+			this.getter = getter;
+		}
+
+		@Override
+		void read(Object row, Object column, int index) throws Exception {
+			Array.set(column, index, getter.get(row));
+		}
+
+	}
+
+	/**
+	 * Reads a primitive value through a method handle of the exact primitive
+	 * type, so it is never boxed
+	 */
+	private static class PrimitiveReader extends ColumnReader {
+
+		private final static int INT = 0;
+		private final static int LONG = 1;
+		private final static int DOUBLE = 2;
+		private final static int BOOLEAN = 3;
+		private final static int FLOAT = 4;
+		private final static int SHORT = 5;
+		private final static int BYTE = 6;
+		private final static int CHAR = 7;
+
+		private final static Class<?>[] TYPES = { int.class, long.class, double.class, boolean.class, float.class,
+				short.class, byte.class, char.class };
+
+		private final MethodHandle handle;
+		private final int kind;
+
+		PrimitiveReader(MethodHandle handle, Class<?> type) {
+			this.handle = handle;
+			this.kind = Arrays.asList(TYPES).indexOf(type);
+		}
+
+		@Override
+		void read(Object row, Object column, int index) throws Exception {
+			try {
+				switch (kind) {
+				case INT:
+					((int[]) column)[index] = (int) handle.invokeExact(row);
+					break;
+				case LONG:
+					((long[]) column)[index] = (long) handle.invokeExact(row);
+					break;
+				case DOUBLE:
+					((double[]) column)[index] = (double) handle.invokeExact(row);
+					break;
+				case BOOLEAN:
+					((boolean[]) column)[index] = (boolean) handle.invokeExact(row);
+					break;
+				case FLOAT:
+					((float[]) column)[index] = (float) handle.invokeExact(row);
+					break;
+				case SHORT:
+					((short[]) column)[index] = (short) handle.invokeExact(row);
+					break;
+				case BYTE:
+					((byte[]) column)[index] = (byte) handle.invokeExact(row);
+					break;
+				case CHAR:
+					((char[]) column)[index] = (char) handle.invokeExact(row);
+					break;
+				}
+			} catch (Throwable e) {
+				throw PropertyAccessors.<Exception>propagate(e);
+			}
+		}
+
+	}
+
+}
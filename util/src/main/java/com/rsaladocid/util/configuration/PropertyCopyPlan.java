@@ -0,0 +1,103 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The pairing between the getters of a source class and the setters of a
+ * target class that share the same property name. It is resolved once per
+ * pair of classes and cached by the {@link PropertyMetadata} of the source
+ * class until the metadata of the target class is invalidated, unless the
+ * classes come from unrelated class loaders.
+ */
+final class PropertyCopyPlan {
+
+	private final PropertyGetter[] getters;
+	private final PropertySetter[][] setters;
+	private final PropertyMetadata target;
+
+	private PropertyCopyPlan(List<PropertyGetter> getters, List<PropertySetter[]> setters, PropertyMetadata target) {
+		this.getters = getters.toArray(new PropertyGetter[getters.size()]);
+		this.setters = setters.toArray(new PropertySetter[setters.size()][]);
+		this.target = target;
+	}
+
+	/**
+	 * Pairs the getters of the given source metadata with the setters of the
+	 * given target metadata. When several getters define the same name, the last
+	 * one is used, as {@link Configuration#getProperties(Object)} does.
+	 *
+	 * @param source
+	 *            the metadata of the source class
+	 * @param target
+	 *            the metadata of the target class
+	 * @return the copy plan
+	 */
+	static PropertyCopyPlan resolve(PropertyMetadata source, PropertyMetadata target) {
+		List<PropertyGetter> getters = new ArrayList<PropertyGetter>();
+		List<PropertySetter[]> setters = new ArrayList<PropertySetter[]>();
+
+		for (int i = 0; i < target.setterCount(); i++) {
+			String name = target.setter(i).getName();
+			PropertyGetter getter = source.getter(name);
+
+			if (getter == null || getters.contains(getter)) {
+				continue;
+			}
+
+			List<PropertySetter> paired = new ArrayList<PropertySetter>();
+			for (int j = i; j < target.setterCount(); j++) {
+				if (target.setter(j).getName().equals(name)) {
+					paired.add(target.setter(j));
+				}
+			}
+
+			getters.add(getter);
+			setters.add(paired.toArray(new PropertySetter[paired.size()]));
+		}
+
+		return new PropertyCopyPlan(getters, setters, target);
+	}
+
+	/**
+	 * Returns whether this plan pairs the setters of the given target metadata
+	 *
+	 * @param target
+	 *            the metadata of the target class
+	 * @return <code>true</code> if the plan was resolved for the given metadata
+	 */
+	boolean isFor(PropertyMetadata target) {
+		return this.target == target;
+	}
+
+	/**
+	 * Copies the values of the paired properties from the source object into the
+	 * target object. A property whose getter fails is not copied, and a failing
+	 * setter does not prevent the remaining properties from being copied.
+	 *
+	 * @param source
+	 *            the object to read
+	 * @param target
+	 *            the object to configure
+	 */
+	void copy(Object source, Object target) {
+		for (int i = 0; i < getters.length; i++) {
+			Object value;
+
+			try {
+				value = getters[i].get(source);
+			} catch (Exception e) {
+				continue;
+			}
+
+			for (PropertySetter setter : setters[i]) {
+				try {
+					setter.set(target, value);
+				} catch (Exception e) {
+
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.invoke.MethodHandle;
+import java.util.function.Function;
+
+/**
+ * A named accessor that reads a property value from an object.
+ *
+ * @see PropertyAccessors
+ */
+final class PropertyGetter {
+
+	private final String name;
+	private final Class<?> type;
+	private final Function<Object, Object> function;
+	private final MethodHandle handle;
+
+	PropertyGetter(String name, Class<?> type, Function<Object, Object> function, MethodHandle handle) {
+		this.name = name;
+		this.type = type;
+		this.function = function;
+		this.handle = handle;
+	}
+
+	/**
+	 * Returns the name of the property
+	 * 
+	 * @return the property name
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the type of the property value
+	 * 
+	 * @return the property type
+	 */
+	Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the method handle of the accessor with its original signature, which
+	 * allows reading primitive values without boxing them.
+	 * 
+	 * @return the method handle, or <code>null</code> if the accessor is not
+	 *         backed by a method handle
+	 */
+	MethodHandle getHandle() {
+		return handle;
+	}
+
+	/**
+	 * Reads the property value from the given object. Any exception thrown by the
+	 * underlying accessor is propagated as is.
+	 * 
+	 * @param object
+	 *            the object to read
+	 * @return the property value
+	 */
+	Object get(Object object) {
+		return function.apply(object);
+	}
+
+}
@@ -0,0 +1,159 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>
+ * An immutable {@link Map} of configuration values extracted from an object.
+ * </p>
+ * <p>
+ * The keys of all the maps extracted from objects of the same class are
+ * defined by a single shared schema that assigns a slot to each key, so each
+ * map only holds an array with one value per slot.
+ * </p>
+ * 
+ * @see Configuration#getProperties(Object)
+ */
+public final class PropertyMap extends AbstractMap<String, Object> {
+
+	/**
+	 * Marks a slot whose value could not be extracted
+	 */
+	final static Object ABSENT = new Object();
+
+	private final PropertySchema schema;
+	private final Object[] values;
+	private final int size;
+
+	/**
+	 * Creates a map with the given values, where absent slots hold
+	 * {@link #ABSENT}. The array is not copied.
+	 */
+	PropertyMap(PropertySchema schema, Object[] values) {
+		this.schema = schema;
+		this.values = values;
+
+		int size = 0;
+		for (Object value : values) {
+			if (value != ABSENT) {
+				size++;
+			}
+		}
+		this.size = size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int slot = schema.slotOf(key);
+		return slot >= 0 && values[slot] != ABSENT;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int slot = schema.slotOf(key);
+		return slot >= 0 && values[slot] != ABSENT ? values[slot] : null;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new Iterator<Entry<String, Object>>() {
+
+					private int slot = advance(0);
+
+					@Override
+					public boolean hasNext() {
+						return slot < values.length;
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+
+						Entry<String, Object> entry = new SimpleImmutableEntry<String, Object>(schema.name(slot),
+								values[slot]);
+						slot = advance(slot + 1);
+
+						return entry;
+					}
+
+					private int advance(int slot) {
+						while (slot < values.length && values[slot] == ABSENT) {
+							slot++;
+						}
+
+						return slot;
+					}
+
+				};
+			}
+
+		};
+	}
+
+	/**
+	 * A write-only map that stores each value into the slot of its key, used to
+	 * collect the values provided by a {@link PropertyBinder}. Keys that are not
+	 * part of the schema are discarded.
+	 */
+	static class Collector extends AbstractMap<String, Object> {
+
+		private final PropertySchema schema;
+		private final Object[] values;
+
+		Collector(PropertySchema schema) {
+			this.schema = schema;
+			this.values = new Object[schema.size()];
+
+			Arrays.fill(values, ABSENT);
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			int slot = schema.slotOf(key);
+
+			if (slot >= 0) {
+				values[slot] = value;
+			}
+
+			return null;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return toPropertyMap().entrySet();
+		}
+
+		/**
+		 * Returns the immutable map of the collected values
+		 * 
+		 * @return the property map
+		 */
+		PropertyMap toPropertyMap() {
+			return new PropertyMap(schema, values);
+		}
+
+	}
+
+}
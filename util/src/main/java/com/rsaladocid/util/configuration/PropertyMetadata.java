@@ -0,0 +1,297 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import javax.xml.bind.annotation.XmlTransient;
+
+/**
+ * The getter and setter tables of a class resolved according to a
+ * {@link PropertyNameStrategy}. Each table holds the accessors generated by
+ * {@link PropertyAccessors}. Instances are immutable and shared through
+ * {@link PropertyCache}.
+ */
+final class PropertyMetadata {
+
+	private final static String SETTER = "set";
+	private final static String GETTER = "get";
+
+	private final static Function<Class<?>, AtomicReference<PropertyCopyPlan>> NEW_PLAN = new Function<Class<?>, AtomicReference<PropertyCopyPlan>>() {
+
+		@Override
+		public AtomicReference<PropertyCopyPlan> apply(Class<?> type) {
+			return new AtomicReference<PropertyCopyPlan>();
+		}
+
+	};
+
+	private final PropertyGetter[] getters;
+	private final PropertySetter[] setters;
+	private final PropertySchema schema;
+	private final PropertyGetter[] readers;
+	private final int[] getterSlots;
+
+	/**
+	 * The loader of the described class
+	 */
+	private final ClassLoader loader;
+
+	/**
+	 * The plans to copy into the target classes whose loader is the loader of
+	 * this class or one of its descendants. They are attached to the target
+	 * class, so the target class retains this class, which its loader can reach
+	 * anyway, and this metadata does not retain the target class.
+	 */
+	private final ClassValue<AtomicReference<PropertyCopyPlan>> descendantPlans = new ClassValue<AtomicReference<PropertyCopyPlan>>() {
+
+		@Override
+		protected AtomicReference<PropertyCopyPlan> computeValue(Class<?> type) {
+			return new AtomicReference<PropertyCopyPlan>();
+		}
+
+	};
+
+	/**
+	 * The plans to copy into the target classes whose loader is an ancestor of
+	 * the loader of this class. This metadata retains the target class, which
+	 * the loader of this class can reach anyway, and the target class does not
+	 * retain this class.
+	 */
+	private final ConcurrentMap<Class<?>, AtomicReference<PropertyCopyPlan>> ancestorPlans = new ConcurrentHashMap<Class<?>, AtomicReference<PropertyCopyPlan>>();
+
+	private PropertyMetadata(List<PropertyGetter> getters, List<PropertySetter> setters, ClassLoader loader) {
+		this.loader = loader;
+		this.getters = getters.toArray(new PropertyGetter[getters.size()]);
+		this.setters = setters.toArray(new PropertySetter[setters.size()]);
+
+		Map<String, PropertyGetter> readers = new LinkedHashMap<String, PropertyGetter>();
+		for (PropertyGetter getter : getters) {
+			readers.put(getter.getName(), getter);
+		}
+
+		this.schema = new PropertySchema(readers.keySet().toArray(new String[readers.size()]));
+		this.readers = readers.values().toArray(new PropertyGetter[readers.size()]);
+
+		this.getterSlots = new int[this.getters.length];
+		for (int i = 0; i < this.getters.length; i++) {
+			getterSlots[i] = schema.slotOf(this.getters[i].getName());
+		}
+	}
+
+	/**
+	 * Scans the public methods, or the fields if the strategy requires so, of the
+	 * given class and resolves its getter and setter tables.
+	 *
+	 * @param type
+	 *            the class to scan
+	 * @param strategy
+	 *            the strategy to define the property names
+	 * @return the resolved metadata
+	 */
+	static PropertyMetadata resolve(Class<?> type, PropertyNameStrategy strategy) {
+		List<PropertyGetter> getters = new ArrayList<PropertyGetter>();
+		List<PropertySetter> setters = new ArrayList<PropertySetter>();
+
+		if (strategy.getAccess() == PropertyAccess.FIELDS) {
+			resolveFields(type, strategy, getters, setters);
+		} else {
+			resolveMethods(type, strategy, getters, setters);
+		}
+
+		return new PropertyMetadata(getters, setters, type.getClassLoader());
+	}
+
+	private static void resolveMethods(Class<?> type, PropertyNameStrategy strategy, List<PropertyGetter> getters,
+			List<PropertySetter> setters) {
+		for (Method method : type.getMethods()) {
+			if (method.isAnnotationPresent(IgnoreProperty.class) || method.isAnnotationPresent(XmlTransient.class)) {
+				continue;
+			}
+
+			String methodName = method.getName();
+
+			if (methodName.startsWith(GETTER) && methodName.length() > GETTER.length()
+					&& method.getParameterCount() == 0) {
+				getters.add(PropertyAccessors.getter(nameOf(method, strategy), method));
+			} else if (methodName.startsWith(SETTER) && methodName.length() > SETTER.length()
+					&& method.getParameterCount() == 1) {
+				setters.add(PropertyAccessors.setter(nameOf(method, strategy), method));
+			}
+		}
+	}
+
+	/**
+	 * Binds a property to each instance field declared by the given class and its
+	 * superclasses, starting from the topmost superclass. Static, transient and
+	 * synthetic fields are skipped, and final fields are only readable.
+	 */
+	private static void resolveFields(Class<?> type, PropertyNameStrategy strategy, List<PropertyGetter> getters,
+			List<PropertySetter> setters) {
+		List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			hierarchy.add(0, current);
+		}
+
+		for (Class<?> current : hierarchy) {
+			for (Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+						|| field.isAnnotationPresent(IgnoreProperty.class)
+						|| field.isAnnotationPresent(XmlTransient.class)) {
+					continue;
+				}
+
+				String name = strategy.getName(field);
+				if (name == null) {
+					name = field.getName();
+				}
+
+				PropertyGetter getter = PropertyAccessors.getter(name, field);
+				if (getter != null) {
+					getters.add(getter);
+				}
+
+				if (!Modifier.isFinal(modifiers)) {
+					PropertySetter setter = PropertyAccessors.setter(name, field);
+					if (setter != null) {
+						setters.add(setter);
+					}
+				}
+			}
+		}
+	}
+
+	private static String nameOf(Method method, PropertyNameStrategy strategy) {
+		String name = strategy.getName(method);
+		return name != null ? name : method.getName();
+	}
+
+	int getterCount() {
+		return getters.length;
+	}
+
+	PropertyGetter getter(int index) {
+		return getters[index];
+	}
+
+	/**
+	 * Returns the slot of the {@link #schema()} where the given getter stores its
+	 * value.
+	 * 
+	 * @param index
+	 *            the getter index
+	 * @return the slot index
+	 */
+	int getterSlot(int index) {
+		return getterSlots[index];
+	}
+
+	/**
+	 * Returns the getter of the given property. When several getters define the
+	 * same name, the last one is returned.
+	 *
+	 * @param name
+	 *            the property name
+	 * @return the getter, or <code>null</code> if there is no getter for the given
+	 *         name
+	 */
+	PropertyGetter getter(String name) {
+		int slot = schema.slotOf(name);
+		return slot >= 0 ? readers[slot] : null;
+	}
+
+	/**
+	 * Returns the schema of the distinct property names defined by the getters.
+	 * 
+	 * @return the schema of the readable properties
+	 */
+	PropertySchema schema() {
+		return schema;
+	}
+
+	/**
+	 * Returns the getter of the given slot of the {@link #schema()}.
+	 * 
+	 * @param slot
+	 *            the slot index
+	 * @return the getter
+	 */
+	PropertyGetter reader(int slot) {
+		return readers[slot];
+	}
+
+	int setterCount() {
+		return setters.length;
+	}
+
+	PropertySetter setter(int index) {
+		return setters[index];
+	}
+
+	/**
+	 * Returns the plan to copy properties from instances of this class into
+	 * instances of the class described by the given metadata. A plan references
+	 * both classes, so it is only cached when one of the loaders is an ancestor
+	 * of the other, by the class that can reach the other one; the classes of
+	 * unrelated loaders are paired again on every copy.
+	 *
+	 * @param target
+	 *            the metadata of the target class
+	 * @param targetType
+	 *            the target class
+	 * @return the copy plan
+	 */
+	PropertyCopyPlan copyPlan(PropertyMetadata target, Class<?> targetType) {
+		AtomicReference<PropertyCopyPlan> cached;
+
+		if (isAncestor(loader, targetType.getClassLoader())) {
+			cached = descendantPlans.get(targetType);
+		} else if (isAncestor(targetType.getClassLoader(), loader)) {
+			cached = ancestorPlans.get(targetType);
+			if (cached == null) {
+				cached = ancestorPlans.computeIfAbsent(targetType, NEW_PLAN);
+			}
+		} else {
+			return PropertyCopyPlan.resolve(this, target);
+		}
+
+		PropertyCopyPlan plan = cached.get();
+
+		// The metadata of the target class is replaced when the class is invalidated
+		if (plan == null || !plan.isFor(target)) {
+			plan = PropertyCopyPlan.resolve(this, target);
+			cached.set(plan);
+		}
+
+		return plan;
+	}
+
+	/**
+	 * Returns whether the first loader is the second one or one of its
+	 * ancestors, where <code>null</code> is the bootstrap loader
+	 */
+	private static boolean isAncestor(ClassLoader ancestor, ClassLoader loader) {
+		if (ancestor == null) {
+			return true;
+		}
+
+		for (ClassLoader current = loader; current != null; current = current.getParent()) {
+			if (current == ancestor) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
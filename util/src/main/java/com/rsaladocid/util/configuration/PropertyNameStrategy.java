@@ -0,0 +1,48 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * <p>
+ * Defines the names of the properties of an object and how they are reached.
+ * </p>
+ * <p>
+ * The properties resolved for each class are cached per strategy, and the
+ * strategies are compared using {@link Object#equals(Object)}. A strategy must
+ * therefore implement {@link Object#equals(Object)} and
+ * {@link Object#hashCode()} so that strategies defining the same names are
+ * equal, or be reused, since every strategy that is not equal to a previous
+ * one adds a new entry to the cache of each class it is used with.
+ * </p>
+ *
+ * @see AnnotatedPropertyNameStrategy
+ */
+public abstract class PropertyNameStrategy {
+
+	public abstract String getName(Method method);
+
+	/**
+	 * Returns the name of the property bound to the given field, which is only
+	 * used when the access is {@link PropertyAccess#FIELDS}. By default, the name
+	 * of the field.
+	 * 
+	 * @param field
+	 *            the field
+	 * @return the property name
+	 */
+	public String getName(Field field) {
+		return field.getName();
+	}
+
+	/**
+	 * Returns how the properties of an object are reached. By default, through its
+	 * public getter and setter methods.
+	 * 
+	 * @return the property access
+	 */
+	public PropertyAccess getAccess() {
+		return PropertyAccess.METHODS;
+	}
+
+}
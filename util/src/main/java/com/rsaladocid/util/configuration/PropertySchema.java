@@ -0,0 +1,58 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An ordered set of distinct property names where each name is assigned to a
+ * slot index. The schema of a class is resolved once and shared by every
+ * structure that stores one value per property.
+ */
+final class PropertySchema {
+
+	private final String[] names;
+	private final Map<String, Integer> slots;
+
+	PropertySchema(String[] names) {
+		this.names = names;
+		this.slots = new HashMap<String, Integer>(names.length * 2);
+
+		for (int i = 0; i < names.length; i++) {
+			slots.put(names[i], i);
+		}
+	}
+
+	/**
+	 * Returns the number of slots
+	 * 
+	 * @return the number of properties
+	 */
+	int size() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the property name of the given slot
+	 * 
+	 * @param slot
+	 *            the slot index
+	 * @return the property name
+	 */
+	String name(int slot) {
+		return names[slot];
+	}
+
+	/**
+	 * Returns the slot of the given property name
+	 * 
+	 * @param name
+	 *            the property name
+	 * @return the slot index, or <code>-1</code> if the name is not part of the
+	 *         schema
+	 */
+	int slotOf(Object name) {
+		Integer slot = slots.get(name);
+		return slot != null ? slot : -1;
+	}
+
+}
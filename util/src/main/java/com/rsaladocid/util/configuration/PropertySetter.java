@@ -0,0 +1,83 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A named accessor that writes a property value into an object.
+ *
+ * @see PropertyAccessors
+ */
+final class PropertySetter {
+
+	private final String name;
+	private final Class<?> type;
+	private final Class<?> boxedType;
+	private final BiConsumer<Object, Object> consumer;
+
+	/**
+	 * Converts the values that do not match the property type
+	 */
+	private final CachedConverter<?> converter;
+
+	PropertySetter(String name, Class<?> type, BiConsumer<Object, Object> consumer) {
+		this.name = name;
+		this.type = type;
+		this.boxedType = PropertyAccessors.wrap(type);
+		this.consumer = consumer;
+		this.converter = CachedConverter.of(type);
+	}
+
+	/**
+	 * Returns the name of the property
+	 * 
+	 * @return the property name
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the type of the property value
+	 * 
+	 * @return the property type
+	 */
+	Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * <p>
+	 * Writes the given value into the given object. Any exception thrown by the
+	 * underlying accessor is propagated as is.
+	 * </p>
+	 * <p>
+	 * A value that is not an instance of the property type is first converted
+	 * through {@link TypeConverters}. The converter is resolved once per type of
+	 * value and kept by this setter. If the value cannot be converted, the setter
+	 * is not invoked.
+	 * </p>
+	 * 
+	 * @param object
+	 *            the object to modify
+	 * @param value
+	 *            the property value
+	 * @return <code>true</code> if the value has been written, or
+	 *         <code>false</code> if it cannot be converted to the property type
+	 */
+	boolean set(Object object, Object value) {
+		if (value == null ? !type.isPrimitive() : boxedType.isInstance(value)) {
+			consumer.accept(object, value);
+			return true;
+		} else if (value != null) {
+			TypeConverter<Object, Object> conversion = converter.find(value.getClass());
+
+			if (conversion != null) {
+				consumer.accept(object, conversion.convert(value));
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
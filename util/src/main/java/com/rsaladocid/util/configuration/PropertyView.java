@@ -0,0 +1,179 @@
+package com.rsaladocid.util.configuration;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>
+ * A read-only {@link Map} view over the getter methods of an object.
+ * </p>
+ * <p>
+ * The keys are known in advance from the cached {@link PropertyMetadata}, so
+ * the getter of a property is invoked only when its value is requested. In
+ * memoizing mode, the first value read from each getter is kept and returned by
+ * later requests; otherwise, each request invokes the getter again.
+ * </p>
+ * <p>
+ * A getter that fails provides a <code>null</code> value. The memoizing mode is
+ * not synchronized: concurrent readers may invoke the same getter more than
+ * once.
+ * </p>
+ */
+final class PropertyView extends AbstractMap<String, Object> {
+
+	private final static Object UNREAD = new Object();
+
+	private final Object object;
+	private final PropertyMetadata metadata;
+	private final Object[] values;
+
+	PropertyView(Object object, PropertyMetadata metadata, boolean memoize) {
+		this.object = object;
+		this.metadata = metadata;
+
+		if (memoize) {
+			values = new Object[metadata.schema().size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = UNREAD;
+			}
+		} else {
+			values = null;
+		}
+	}
+
+	@Override
+	public int size() {
+		return metadata.schema().size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return metadata.schema().slotOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int slot = metadata.schema().slotOf(key);
+		return slot >= 0 ? value(slot) : null;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+
+			@Override
+			public int size() {
+				return PropertyView.this.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new Iterator<Entry<String, Object>>() {
+
+					private int slot = 0;
+
+					@Override
+					public boolean hasNext() {
+						return slot < PropertyView.this.size();
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+
+						return new PropertyEntry(slot++);
+					}
+
+				};
+			}
+
+		};
+	}
+
+	private Object value(int slot) {
+		if (values == null) {
+			return read(slot);
+		}
+
+		Object value = values[slot];
+		if (value == UNREAD) {
+			value = read(slot);
+			values[slot] = value;
+		}
+
+		return value;
+	}
+
+	private Object read(int slot) {
+		try {
+			return metadata.reader(slot).get(object);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * An entry whose value is read when it is requested for the first time.
+	 */
+	private class PropertyEntry implements Entry<String, Object> {
+
+		private final int slot;
+		private Object value = UNREAD;
+
+		PropertyEntry(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public String getKey() {
+			return metadata.schema().name(slot);
+		}
+
+		@Override
+		public Object getValue() {
+			if (value == UNREAD) {
+				value = value(slot);
+			}
+
+			return value;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Entry)) {
+				return false;
+			}
+
+			Entry<?, ?> entry = (Entry<?, ?>) obj;
+			return eq(getKey(), entry.getKey()) && eq(getValue(), entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+
+		private boolean eq(Object a, Object b) {
+			return a == null ? b == null : a.equals(b);
+		}
+
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.rsaladocid.util.configuration;
+
+/**
+ * Converts values of a source type into values of a target type.
+ *
+ * @param <S>
+ *            the source type
+ * @param <T>
+ *            the target type
+ * @see TypeConverters
+ */
+public interface TypeConverter<S, T> {
+
+	/**
+	 * Converts the given value.
+	 * 
+	 * @param value
+	 *            the value to convert, never <code>null</code>
+	 * @return the converted value
+	 * @throws IllegalArgumentException
+	 *             if the value cannot be converted
+	 */
+	public T convert(S value);
+
+}
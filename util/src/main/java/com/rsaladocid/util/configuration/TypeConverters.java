@@ -0,0 +1,468 @@
+package com.rsaladocid.util.configuration;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A registry of {@link TypeConverter} keyed by source and target type, used by
+ * {@link Configuration#setProperties(Object, java.util.Map)} when a value does
+ * not match the parameter type of a setter method.
+ * </p>
+ * <p>
+ * The following conversions are supported out of the box:
+ * </p>
+ * <ul>
+ * <li>{@link String} to primitives and their wrappers, {@link BigInteger},
+ * {@link BigDecimal}, enums and {@link Duration} (ISO-8601 format, such as
+ * <i>PT10S</i>).</li>
+ * <li>{@link String} to arrays, splitting the value by commas and converting
+ * each element.</li>
+ * <li>{@link Number} to any other numeric primitive or wrapper. Conversions
+ * to integral types that would lose the fraction or overflow are
+ * rejected.</li>
+ * <li>{@link Collection} to arrays, converting each element.</li>
+ * </ul>
+ * <p>
+ * Additional converters can be registered with
+ * {@link #register(Class, Class, TypeConverter)}. A registered converter takes
+ * precedence over the built-in ones for the same pair of types, and is kept
+ * until it is {@link #unregister(Class, Class) unregistered}.
+ * </p>
+ * <p>
+ * The registered and resolved converters are attached to the target type
+ * through a {@link ClassValue}, so they do not prevent the class loader of a
+ * target type from being unloaded.
+ * </p>
+ */
+public final class TypeConverters {
+
+	private final static ClassValue<Converters> CONVERTERS = new ClassValue<Converters>() {
+
+		@Override
+		protected Converters computeValue(Class<?> type) {
+			return new Converters();
+		}
+
+	};
+
+	/**
+	 * Incremented every time the registered converters change, so the converters
+	 * resolved before are resolved again
+	 */
+	private final static AtomicInteger GENERATION = new AtomicInteger();
+
+	private TypeConverters() {
+
+	}
+
+	/**
+	 * Registers a converter from the given source type to the given target type.
+	 *
+	 * @param source
+	 *            the exact source type
+	 * @param target
+	 *            the target type, where primitive types and their wrappers are
+	 *            equivalent
+	 * @param converter
+	 *            the converter
+	 */
+	@SuppressWarnings("unchecked")
+	public static <S, T> void register(Class<S> source, Class<T> target, TypeConverter<? super S, ? extends T> converter) {
+		CONVERTERS.get(PropertyAccessors.wrap(target)).registered.put(source, (TypeConverter<Object, Object>) converter);
+		GENERATION.incrementAndGet();
+	}
+
+	/**
+	 * Removes the converter registered from the given source type to the given
+	 * target type, so the built-in conversion applies again.
+	 *
+	 * @param source
+	 *            the exact source type
+	 * @param target
+	 *            the target type, where primitive types and their wrappers are
+	 *            equivalent
+	 */
+	public static void unregister(Class<?> source, Class<?> target) {
+		CONVERTERS.get(PropertyAccessors.wrap(target)).registered.remove(source);
+		GENERATION.incrementAndGet();
+	}
+
+	/**
+	 * Returns the converter from the given source type to the given target type.
+	 *
+	 * @param source
+	 *            the source type
+	 * @param target
+	 *            the target type
+	 * @return the converter, or <code>null</code> if the conversion is not
+	 *         supported
+	 */
+	public static TypeConverter<Object, Object> find(Class<?> source, Class<?> target) {
+		// Read before resolving, so a converter registered meanwhile is resolved again
+		int generation = GENERATION.get();
+
+		Converters converters = CONVERTERS.get(PropertyAccessors.wrap(target));
+		Resolved resolved = converters.resolved.get(source);
+
+		if (resolved == null || resolved.generation != generation) {
+			resolved = new Resolved(resolve(source, target), generation);
+			converters.resolved.put(source, resolved);
+		}
+
+		return resolved.converter;
+	}
+
+	/**
+	 * Returns a converter of any value into the given type, which keeps the
+	 * converter resolved for the last type of value. It is intended to be kept
+	 * in a field by code that converts many values into the same type, such as
+	 * the generated {@link PropertyBinder} classes.
+	 *
+	 * @param target
+	 *            the target type
+	 * @return the converter, which behaves as {@link #convert(Object, Class)}
+	 */
+	public static <T> TypeConverter<Object, T> converterTo(Class<T> target) {
+		return CachedConverter.of(target);
+	}
+
+	/**
+	 * Converts the given value to the given type. A value that is already an
+	 * instance of the type is returned as is.
+	 *
+	 * @param value
+	 *            the value to convert
+	 * @param target
+	 *            the target type
+	 * @return the converted value
+	 * @throws IllegalArgumentException
+	 *             if the value cannot be converted
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T convert(Object value, Class<T> target) {
+		Class<?> type = PropertyAccessors.wrap(target);
+
+		if (value == null) {
+			if (target.isPrimitive()) {
+				throw new IllegalArgumentException("Cannot convert null to " + target.getName());
+			}
+
+			return null;
+		} else if (type.isInstance(value)) {
+			return (T) value;
+		}
+
+		TypeConverter<Object, Object> converter = find(value.getClass(), target);
+		if (converter == null) {
+			throw new IllegalArgumentException(
+					"Cannot convert " + value.getClass().getName() + " to " + target.getName());
+		}
+
+		return (T) converter.convert(value);
+	}
+
+	/**
+	 * Returns a counter that changes every time a converter is registered, so
+	 * cached lookups can be revalidated.
+	 */
+	static int generation() {
+		return GENERATION.get();
+	}
+
+	private static TypeConverter<Object, Object> resolve(Class<?> source, Class<?> target) {
+		Class<?> type = PropertyAccessors.wrap(target);
+
+		TypeConverter<Object, Object> registered = CONVERTERS.get(type).registered.get(source);
+		if (registered != null) {
+			return registered;
+		}
+
+		if (String.class == source) {
+			if (type.isArray()) {
+				return splitString(type.getComponentType());
+			}
+
+			return fromString(type);
+		} else if (Number.class.isAssignableFrom(source)) {
+			return fromNumber(type);
+		} else if (Collection.class.isAssignableFrom(source) && type.isArray()) {
+			return toArray(type.getComponentType());
+		}
+
+		return null;
+	}
+
+	private static TypeConverter<Object, Object> splitString(final Class<?> type) {
+		if (type.isArray()) {
+			return null;
+		}
+
+		final TypeConverter<Object, Object> element = type == String.class ? null : resolve(String.class, type);
+
+		if (type != String.class && element == null) {
+			return null;
+		}
+
+		return new TypeConverter<Object, Object>() {
+
+			@Override
+			public Object convert(Object value) {
+				String[] elements = ((String) value).isEmpty() ? new String[0] : ((String) value).split(",");
+				Object array = Array.newInstance(type, elements.length);
+
+				for (int i = 0; i < elements.length; i++) {
+					String item = elements[i].trim();
+					Array.set(array, i, element != null ? element.convert(item) : item);
+				}
+
+				return array;
+			}
+
+		};
+	}
+
+	private static TypeConverter<Object, Object> fromString(Class<?> type) {
+		if (type == Integer.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Integer.valueOf(((String) value).trim());
+				}
+			};
+		} else if (type == Long.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Long.valueOf(((String) value).trim());
+				}
+			};
+		} else if (type == Double.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Double.valueOf(((String) value).trim());
+				}
+			};
+		} else if (type == Float.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Float.valueOf(((String) value).trim());
+				}
+			};
+		} else if (type == Short.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Short.valueOf(((String) value).trim());
+				}
+			};
+		} else if (type == Byte.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Byte.valueOf(((String) value).trim());
+				}
+			};
+		} else if (type == Boolean.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					String text = ((String) value).trim();
+
+					if (text.equalsIgnoreCase(Boolean.TRUE.toString())) {
+						return Boolean.TRUE;
+					} else if (text.equalsIgnoreCase(Boolean.FALSE.toString())) {
+						return Boolean.FALSE;
+					}
+
+					throw new IllegalArgumentException("Not a boolean: " + text);
+				}
+			};
+		} else if (type == Character.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					if (((String) value).length() != 1) {
+						throw new IllegalArgumentException("Not a character: " + value);
+					}
+
+					return ((String) value).charAt(0);
+				}
+			};
+		} else if (type == BigInteger.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return new BigInteger(((String) value).trim());
+				}
+			};
+		} else if (type == BigDecimal.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return new BigDecimal(((String) value).trim());
+				}
+			};
+		} else if (type == Duration.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return Duration.parse(((String) value).trim());
+				}
+			};
+		} else if (type.isEnum()) {
+			return enumFromString(type);
+		}
+
+		return null;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static TypeConverter<Object, Object> enumFromString(final Class<?> type) {
+		return new TypeConverter<Object, Object>() {
+			@Override
+			public Object convert(Object value) {
+				return Enum.valueOf((Class<? extends Enum>) type, ((String) value).trim());
+			}
+		};
+	}
+
+	private static TypeConverter<Object, Object> fromNumber(final Class<?> type) {
+		if (type == Integer.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return (int) exactLong((Number) value, Integer.MIN_VALUE, Integer.MAX_VALUE, type);
+				}
+			};
+		} else if (type == Long.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return exactLong((Number) value, Long.MIN_VALUE, Long.MAX_VALUE, type);
+				}
+			};
+		} else if (type == Double.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return ((Number) value).doubleValue();
+				}
+			};
+		} else if (type == Float.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return ((Number) value).floatValue();
+				}
+			};
+		} else if (type == Short.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return (short) exactLong((Number) value, Short.MIN_VALUE, Short.MAX_VALUE, type);
+				}
+			};
+		} else if (type == Byte.class) {
+			return new TypeConverter<Object, Object>() {
+				@Override
+				public Object convert(Object value) {
+					return (byte) exactLong((Number) value, Byte.MIN_VALUE, Byte.MAX_VALUE, type);
+				}
+			};
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the value of the given number as a long between the given bounds
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the number has a fraction or is out of the bounds
+	 */
+	private static long exactLong(Number value, long min, long max, Class<?> type) {
+		long exact;
+
+		try {
+			if (value instanceof BigDecimal) {
+				exact = ((BigDecimal) value).longValueExact();
+			} else if (value instanceof BigInteger) {
+				exact = ((BigInteger) value).longValueExact();
+			} else if (value instanceof Double || value instanceof Float) {
+				double number = value.doubleValue();
+				exact = (long) number;
+
+				// 2^63 is rounded down to the maximum long
+				if (exact != number || number >= 0x1p63) {
+					throw new ArithmeticException();
+				}
+			} else {
+				exact = value.longValue();
+			}
+
+			if (exact < min || exact > max) {
+				throw new ArithmeticException();
+			}
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("Cannot convert " + value + " to " + type.getName() + " exactly");
+		}
+
+		return exact;
+	}
+
+	private static TypeConverter<Object, Object> toArray(final Class<?> type) {
+		return new TypeConverter<Object, Object>() {
+
+			@Override
+			public Object convert(Object value) {
+				Collection<?> elements = (Collection<?>) value;
+				Object array = Array.newInstance(type, elements.size());
+
+				Iterator<?> iterator = elements.iterator();
+				for (int i = 0; iterator.hasNext(); i++) {
+					Array.set(array, i, TypeConverters.convert(iterator.next(), type));
+				}
+
+				return array;
+			}
+
+		};
+	}
+
+	/**
+	 * The converters into a target type, keyed by source type
+	 */
+	private static class Converters {
+
+		private final ConcurrentMap<Class<?>, TypeConverter<Object, Object>> registered = new ConcurrentHashMap<Class<?>, TypeConverter<Object, Object>>();
+		private final ConcurrentMap<Class<?>, Resolved> resolved = new ConcurrentHashMap<Class<?>, Resolved>();
+
+	}
+
+	/**
+	 * A converter resolved while the given generation was current, or
+	 * <code>null</code> if the conversion is not supported
+	 */
+	private static class Resolved {
+
+		private final TypeConverter<Object, Object> converter;
+		private final int generation;
+
+		Resolved(TypeConverter<Object, Object> converter, int generation) {
+			this.converter = converter;
+			this.generation = generation;
+		}
+
+	}
+
+}
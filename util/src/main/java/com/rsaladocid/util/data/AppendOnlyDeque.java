@@ -0,0 +1,193 @@
+package com.rsaladocid.util.data;
+
+import java.util.AbstractCollection;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A {@link Deque} of the records of a key that keeps them in timestamp order:
+ * records can only be appended at the tail and removed from the head.
+ * </p>
+ * <p>
+ * Subclasses implement the appends, the removals from the head, the peeks and
+ * the iterators; the rest of the operations are derived from them, and the
+ * ones that would break the order throw {@link UnsupportedOperationException}.
+ * </p>
+ */
+abstract class AppendOnlyDeque<V> extends AbstractCollection<DataRecord<V>>
+		implements Deque<DataRecord<V>>, TimeIndexed<V> {
+
+	/**
+	 * Removes the head only if it is the given record, so concurrent evictions of
+	 * the same record do not remove more than one
+	 * 
+	 * @return <code>true</code> if the record has been removed
+	 */
+	abstract boolean pollFirstIf(DataRecord<V> expected);
+
+	/**
+	 * Appends a record of the given value, timestamped by the given clock while
+	 * it is appended. The timestamp is raised to the one of the last record if
+	 * the clock is behind it, so concurrent appends keep the timestamp order.
+	 * 
+	 * @return the appended record
+	 */
+	synchronized DataRecord<V> append(V value, RecordClock clock) {
+		DataRecord<V> record = next(peekLast(), value, clock);
+		offerLast(record);
+		return record;
+	}
+
+	/**
+	 * Appends a record of the given value to the given deque, as
+	 * {@link #append(Object, RecordClock)} does. The deques of a
+	 * {@link RecordStore} that are not append-only are locked while appending.
+	 * 
+	 * @return the appended record
+	 */
+	@SuppressWarnings("unchecked")
+	static <V> DataRecord<V> appendTo(Deque<DataRecord<V>> entries, V value, RecordClock clock) {
+		if (entries instanceof AppendOnlyDeque) {
+			return ((AppendOnlyDeque<V>) entries).append(value, clock);
+		}
+
+		synchronized (entries) {
+			DataRecord<V> record = next(entries.peekLast(), value, clock);
+			entries.addLast(record);
+			return record;
+		}
+	}
+
+	/**
+	 * Creates the record that follows the given one
+	 */
+	static <V> DataRecord<V> next(DataRecord<V> last, V value, RecordClock clock) {
+		long timestamp = clock.currentTimestamp();
+
+		if (last != null && last.getTimestamp() > timestamp) {
+			timestamp = last.getTimestamp();
+		}
+
+		return new ImmutableDataRecord<V>(value, timestamp);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public void addLast(DataRecord<V> record) {
+		offerLast(record);
+	}
+
+	@Override
+	public boolean add(DataRecord<V> record) {
+		return offerLast(record);
+	}
+
+	@Override
+	public boolean offer(DataRecord<V> record) {
+		return offerLast(record);
+	}
+
+	@Override
+	public DataRecord<V> removeFirst() {
+		DataRecord<V> record = pollFirst();
+
+		if (record == null) {
+			throw new NoSuchElementException();
+		}
+
+		return record;
+	}
+
+	@Override
+	public DataRecord<V> remove() {
+		return removeFirst();
+	}
+
+	@Override
+	public DataRecord<V> pop() {
+		return removeFirst();
+	}
+
+	@Override
+	public DataRecord<V> poll() {
+		return pollFirst();
+	}
+
+	@Override
+	public DataRecord<V> getFirst() {
+		DataRecord<V> record = peekFirst();
+
+		if (record == null) {
+			throw new NoSuchElementException();
+		}
+
+		return record;
+	}
+
+	@Override
+	public DataRecord<V> getLast() {
+		DataRecord<V> record = peekLast();
+
+		if (record == null) {
+			throw new NoSuchElementException();
+		}
+
+		return record;
+	}
+
+	@Override
+	public DataRecord<V> element() {
+		return getFirst();
+	}
+
+	@Override
+	public DataRecord<V> peek() {
+		return peekFirst();
+	}
+
+	@Override
+	public void addFirst(DataRecord<V> record) {
+		throw new UnsupportedOperationException("Records can only be appended");
+	}
+
+	@Override
+	public boolean offerFirst(DataRecord<V> record) {
+		throw new UnsupportedOperationException("Records can only be appended");
+	}
+
+	@Override
+	public void push(DataRecord<V> record) {
+		throw new UnsupportedOperationException("Records can only be appended");
+	}
+
+	@Override
+	public DataRecord<V> removeLast() {
+		throw new UnsupportedOperationException("Records can only be removed from the head");
+	}
+
+	@Override
+	public DataRecord<V> pollLast() {
+		throw new UnsupportedOperationException("Records can only be removed from the head");
+	}
+
+	@Override
+	public boolean removeFirstOccurrence(Object o) {
+		throw new UnsupportedOperationException("Records can only be removed from the head");
+	}
+
+	@Override
+	public boolean removeLastOccurrence(Object o) {
+		throw new UnsupportedOperationException("Records can only be removed from the head");
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException("Records can only be removed from the head");
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.rsaladocid.util.data;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A {@link RecordClock} in milliseconds that caches the time of the system and
+ * updates it periodically in a daemon thread.
+ * </p>
+ * <p>
+ * Reading the time is a single volatile read instead of a call to
+ * {@link System#currentTimeMillis()}, which is cheaper when many records are
+ * written, at the cost of a precision limited to the update period.
+ * </p>
+ */
+public class CoarseClock implements RecordClock, Closeable {
+
+	private final long period;
+	private final Thread thread;
+
+	private volatile long now = System.currentTimeMillis();
+
+	/**
+	 * Creates a clock updated every millisecond and starts its daemon thread.
+	 */
+	public CoarseClock() {
+		this(1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Creates a clock updated with the given period and starts its daemon thread.
+	 * 
+	 * @param period
+	 *            the time between updates
+	 * @param unit
+	 *            the time unit of the period
+	 */
+	public CoarseClock(long period, TimeUnit unit) {
+		this.period = unit.toMillis(period);
+
+		if (this.period <= 0) {
+			throw new IllegalArgumentException("Periods shorter than a millisecond");
+		}
+
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				tick();
+			}
+
+		}, "coarse-clock");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public long currentTimestamp() {
+		return now;
+	}
+
+	@Override
+	public TimeUnit getUnit() {
+		return TimeUnit.MILLISECONDS;
+	}
+
+	/**
+	 * Stops updating the time and terminates the daemon thread.
+	 */
+	@Override
+	public void close() {
+		thread.interrupt();
+	}
+
+	private void tick() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				Thread.sleep(period);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			now = System.currentTimeMillis();
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+package com.rsaladocid.util.data;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A {@link RecordStore} of numeric records that compresses the older records
+ * of each key, for long histories kept in the heap.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@code CompressedDataStore<String, Double> store = CompressedDataStore.ofDoubles();}
+ * {@code DataHistory<String, Double> history = new DataHistory<String, Double>(store);}
+ * history.putSingle("cpu", 0.42);
+ * </code>
+ * </pre>
+ * <p>
+ * The most recent records of each key are kept as they are written, so
+ * appending a record does not compress anything. Every time a key has a block
+ * of uncompressed records, they are sealed into a block compressed as in the
+ * <i>Gorilla</i> time-series database, where regular timestamps and slowly
+ * changing values take a few bits per record. Iterators and time queries
+ * decode the blocks as they go.
+ * </p>
+ * <p>
+ * The records of a key are kept in timestamp order, so they can only be
+ * appended and evicted from the oldest one, and their values cannot be
+ * <code>null</code>. The records read from a compressed block are copies.
+ * </p>
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the value type of the records
+ */
+public class CompressedDataStore<K, V> extends AbstractMap<K, Deque<DataRecord<V>>> implements RecordStore<K, V> {
+
+	/**
+	 * Number of records of a compressed block
+	 */
+	private final static int DEFAULT_BLOCK_SIZE = 1024;
+
+	private final ValueBits<V> values;
+	private final int blockSize;
+
+	private final ConcurrentMap<K, Deque<DataRecord<V>>> deques = new ConcurrentHashMap<K, Deque<DataRecord<V>>>();
+
+	private final Function<K, Deque<DataRecord<V>>> factory = new Function<K, Deque<DataRecord<V>>>() {
+
+		@Override
+		public Deque<DataRecord<V>> apply(K key) {
+			return new CompressedRecordDeque<V>(values, blockSize);
+		}
+
+	};
+
+	private CompressedDataStore(ValueBits<V> values, int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Non-positive block size: " + blockSize);
+		}
+
+		this.values = values;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Creates a store of <code>double</code> values that compresses them in
+	 * blocks of 1024 records
+	 *
+	 * @return the store
+	 */
+	public static <K> CompressedDataStore<K, Double> ofDoubles() {
+		return ofDoubles(DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a store of <code>double</code> values that compresses them in
+	 * blocks of the given number of records
+	 *
+	 * @param blockSize
+	 *            the number of records of a block
+	 * @return the store
+	 */
+	public static <K> CompressedDataStore<K, Double> ofDoubles(int blockSize) {
+		return new CompressedDataStore<K, Double>(ValueBits.DOUBLE, blockSize);
+	}
+
+	/**
+	 * Creates a store of <code>long</code> values that compresses them in blocks
+	 * of 1024 records
+	 *
+	 * @return the store
+	 */
+	public static <K> CompressedDataStore<K, Long> ofLongs() {
+		return ofLongs(DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a store of <code>long</code> values that compresses them in blocks
+	 * of the given number of records
+	 *
+	 * @param blockSize
+	 *            the number of records of a block
+	 * @return the store
+	 */
+	public static <K> CompressedDataStore<K, Long> ofLongs(int blockSize) {
+		return new CompressedDataStore<K, Long>(ValueBits.LONG, blockSize);
+	}
+
+	/**
+	 * Returns the memory taken by the compressed records of all keys
+	 *
+	 * @return the size of the compressed blocks in bytes
+	 */
+	public long getCompressedSize() {
+		long bytes = 0;
+
+		for (Deque<DataRecord<V>> deque : deques.values()) {
+			bytes += ((CompressedRecordDeque<V>) deque).compressedBytes();
+		}
+
+		return bytes;
+	}
+
+	@Override
+	public Deque<DataRecord<V>> getOrCreate(K key) {
+		Deque<DataRecord<V>> deque = deques.get(key);
+		return deque != null ? deque : deques.computeIfAbsent(key, factory);
+	}
+
+	@Override
+	public Deque<DataRecord<V>> get(Object key) {
+		return deques.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return deques.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return deques.size();
+	}
+
+	/**
+	 * Replaces the records of the given key with a compressed copy of the given
+	 * ones
+	 */
+	@Override
+	public Deque<DataRecord<V>> put(K key, Deque<DataRecord<V>> value) {
+		if (value == deques.get(key)) {
+			return value;
+		}
+
+		Deque<DataRecord<V>> deque = factory.apply(key);
+
+		for (DataRecord<V> record : value) {
+			deque.add(record);
+		}
+
+		return deques.put(key, deque);
+	}
+
+	@Override
+	public Deque<DataRecord<V>> remove(Object key) {
+		return deques.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		deques.clear();
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return Collections.unmodifiableSet(deques.keySet());
+	}
+
+	@Override
+	public Set<Entry<K, Deque<DataRecord<V>>>> entrySet() {
+		return Collections.unmodifiableMap(deques).entrySet();
+	}
+
+}
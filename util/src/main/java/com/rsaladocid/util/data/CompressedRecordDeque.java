@@ -0,0 +1,495 @@
+package com.rsaladocid.util.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * The records of a key of a {@link CompressedDataStore}, where the most recent
+ * records are kept as they are appended and the older ones are sealed into
+ * {@link GorillaBlock compressed blocks}.
+ * </p>
+ * <p>
+ * Records are appended to a head of a fixed capacity, and once the head is
+ * full its records are compressed into a new block. Records are numbered from
+ * the creation of the key, so a block only needs the position of its first
+ * record, and the records evicted from the oldest block are skipped while it
+ * is decoded, until all of them are evicted and the block is dropped.
+ * </p>
+ * <p>
+ * Appends, evictions and peeks are serialized on the deque. Iterators and time
+ * queries take a snapshot of the blocks and the head while locked, and decode
+ * the blocks afterwards without locking. The records of the head and the most
+ * recent one are returned as they were appended; the records of the blocks are
+ * decoded on every read, so they are copies.
+ * </p>
+ */
+final class CompressedRecordDeque<V> extends AppendOnlyDeque<V> {
+
+	private final ValueBits<V> values;
+	private final int blockSize;
+
+	/**
+	 * The sealed blocks in order, from the one at <code>firstBlock</code>
+	 */
+	private final List<GorillaBlock> blocks = new ArrayList<GorillaBlock>();
+	private int firstBlock;
+
+	/**
+	 * The reader positioned at the first record, while it is in a block
+	 */
+	private GorillaBlock.Reader cursor;
+
+	private final DataRecord<V>[] head;
+	private int headFrom;
+	private int headTo;
+
+	private long first;
+	private long end;
+	private DataRecord<V> last;
+
+	@SuppressWarnings("unchecked")
+	CompressedRecordDeque(ValueBits<V> values, int blockSize) {
+		this.values = values;
+		this.blockSize = blockSize;
+		this.head = new DataRecord[blockSize];
+	}
+
+	@Override
+	public synchronized boolean offerLast(DataRecord<V> record) {
+		if (record == null || record.getValue() == null) {
+			throw new NullPointerException();
+		}
+
+		head[headTo++] = record;
+		last = record;
+		end++;
+
+		if (headTo == blockSize) {
+			seal();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Compresses the records of the head into a new block
+	 */
+	private void seal() {
+		int count = headTo - headFrom;
+		long[] timestamps = new long[count];
+		long[] bits = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			timestamps[i] = head[headFrom + i].getTimestamp();
+			bits[i] = values.toBits(head[headFrom + i].getValue());
+		}
+
+		blocks.add(GorillaBlock.encode(end - count, timestamps, bits, count));
+
+		Arrays.fill(head, null);
+		headFrom = 0;
+		headTo = 0;
+	}
+
+	@Override
+	public synchronized DataRecord<V> pollFirst() {
+		if (first == end) {
+			return null;
+		}
+
+		DataRecord<V> record = peekFirst();
+		advance();
+
+		return record;
+	}
+
+	@Override
+	synchronized boolean pollFirstIf(DataRecord<V> expected) {
+		if (first == end) {
+			return false;
+		}
+
+		if (firstBlock < blocks.size()) {
+			if (!(expected instanceof PositionRecord && ((PositionRecord<V>) expected).position == first)
+					&& !(expected == last && first == end - 1)) {
+				return false;
+			}
+		} else if (expected != head[headFrom]) {
+			return false;
+		}
+
+		advance();
+		return true;
+	}
+
+	/**
+	 * Evicts the first record, dropping its block if it was the last record of it
+	 */
+	private void advance() {
+		if (firstBlock < blocks.size()) {
+			GorillaBlock.Reader cursor = cursor();
+
+			if (cursor.index() == blocks.get(firstBlock).count() - 1) {
+				blocks.set(firstBlock, null);
+				firstBlock++;
+				this.cursor = null;
+
+				if (firstBlock * 2 > blocks.size()) {
+					blocks.subList(0, firstBlock).clear();
+					firstBlock = 0;
+				}
+			} else {
+				cursor.next();
+			}
+		} else {
+			head[headFrom++] = null;
+
+			if (headFrom == headTo) {
+				headFrom = 0;
+				headTo = 0;
+			}
+		}
+
+		first++;
+	}
+
+	private GorillaBlock.Reader cursor() {
+		if (cursor == null) {
+			cursor = blocks.get(firstBlock).reader();
+			cursor.next();
+		}
+
+		return cursor;
+	}
+
+	@Override
+	public synchronized DataRecord<V> peekFirst() {
+		if (first == end) {
+			return null;
+		} else if (firstBlock < blocks.size()) {
+			GorillaBlock.Reader cursor = cursor();
+			return new PositionRecord<V>(values.fromBits(cursor.bits()), cursor.timestamp(), first);
+		} else {
+			return head[headFrom];
+		}
+	}
+
+	@Override
+	public synchronized DataRecord<V> peekLast() {
+		return first < end ? last : null;
+	}
+
+	@Override
+	public synchronized int size() {
+		return (int) Math.min(end - first, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public synchronized void clear() {
+		blocks.clear();
+		firstBlock = 0;
+		cursor = null;
+
+		Arrays.fill(head, null);
+		headFrom = 0;
+		headTo = 0;
+
+		first = end;
+	}
+
+	/**
+	 * Returns the size of the compressed records in bytes
+	 */
+	synchronized long compressedBytes() {
+		long bytes = 0;
+
+		for (int i = firstBlock; i < blocks.size(); i++) {
+			bytes += blocks.get(i).bytes();
+		}
+
+		return bytes;
+	}
+
+	private synchronized Snapshot snapshot() {
+		return new Snapshot(new ArrayList<GorillaBlock>(blocks.subList(firstBlock, blocks.size())), first,
+				Arrays.copyOfRange(head, headFrom, headTo));
+	}
+
+	@Override
+	public DataRecord<V> floor(long timestamp) {
+		Snapshot snapshot = snapshot();
+		DataRecord<V>[] head = snapshot.head;
+
+		// Finds the last record of the head not after the given time
+		int low = 0;
+		int high = head.length - 1;
+		int found = -1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+
+			if (head[middle].getTimestamp() <= timestamp) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		if (found >= 0) {
+			return head[found];
+		}
+
+		// Finds the last block that starts before the given time
+		List<GorillaBlock> blocks = snapshot.blocks;
+		int block = -1;
+		low = 0;
+		high = blocks.size() - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+
+			if (blocks.get(middle).firstTimestamp() <= timestamp) {
+				block = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		if (block < 0) {
+			return null;
+		}
+
+		GorillaBlock.Reader reader = blocks.get(block).reader();
+		DataRecord<V> record = null;
+
+		while (reader.next() && reader.timestamp() <= timestamp) {
+			long position = blocks.get(block).start() + reader.index();
+
+			if (position >= snapshot.first) {
+				record = new PositionRecord<V>(values.fromBits(reader.bits()), reader.timestamp(), position);
+			}
+		}
+
+		return record;
+	}
+
+	@Override
+	public List<DataRecord<V>> range(long from, long to) {
+		Snapshot snapshot = snapshot();
+		List<GorillaBlock> blocks = snapshot.blocks;
+		List<DataRecord<V>> records = new ArrayList<DataRecord<V>>();
+
+		// Finds the first block that ends after the start time
+		int low = 0;
+		int high = blocks.size();
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (blocks.get(middle).lastTimestamp() < from) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		for (int i = low; i < blocks.size(); i++) {
+			GorillaBlock block = blocks.get(i);
+
+			if (block.firstTimestamp() > to) {
+				return Collections.unmodifiableList(records);
+			}
+
+			GorillaBlock.Reader reader = block.reader();
+
+			while (reader.next() && reader.timestamp() <= to) {
+				long position = block.start() + reader.index();
+
+				if (position >= snapshot.first && reader.timestamp() >= from) {
+					records.add(new PositionRecord<V>(values.fromBits(reader.bits()), reader.timestamp(), position));
+				}
+			}
+		}
+
+		for (DataRecord<V> record : snapshot.head) {
+			if (record.getTimestamp() > to) {
+				break;
+			} else if (record.getTimestamp() >= from) {
+				records.add(record);
+			}
+		}
+
+		return Collections.unmodifiableList(records);
+	}
+
+	@Override
+	public Iterator<DataRecord<V>> iterator() {
+		return new RecordIterator(snapshot());
+	}
+
+	@Override
+	public Iterator<DataRecord<V>> descendingIterator() {
+		return new DescendingRecordIterator(snapshot());
+	}
+
+	/**
+	 * A record decoded from a block, which remembers its position so it can be
+	 * evicted conditionally
+	 */
+	private static class PositionRecord<V> extends ImmutableDataRecord<V> {
+
+		private final long position;
+
+		PositionRecord(V value, long timestamp, long position) {
+			super(value, timestamp);
+			this.position = position;
+		}
+
+	}
+
+	/**
+	 * The blocks and the head records that were live at a point in time
+	 */
+	private class Snapshot {
+
+		private final List<GorillaBlock> blocks;
+		private final long first;
+		private final DataRecord<V>[] head;
+
+		Snapshot(List<GorillaBlock> blocks, long first, DataRecord<V>[] head) {
+			this.blocks = blocks;
+			this.first = first;
+			this.head = head;
+		}
+
+	}
+
+	/**
+	 * Decodes the blocks of a snapshot one record at a time, and then iterates its
+	 * head
+	 */
+	private class RecordIterator implements Iterator<DataRecord<V>> {
+
+		private final Snapshot snapshot;
+
+		private int block;
+		private GorillaBlock.Reader reader;
+		private int headIndex;
+		private DataRecord<V> next;
+
+		RecordIterator(Snapshot snapshot) {
+			this.snapshot = snapshot;
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+
+			while (block < snapshot.blocks.size()) {
+				GorillaBlock current = snapshot.blocks.get(block);
+
+				if (reader == null) {
+					reader = current.reader();
+				}
+
+				while (reader.next()) {
+					long position = current.start() + reader.index();
+
+					if (position >= snapshot.first) {
+						next = new PositionRecord<V>(values.fromBits(reader.bits()), reader.timestamp(), position);
+						return;
+					}
+				}
+
+				reader = null;
+				block++;
+			}
+
+			if (headIndex < snapshot.head.length) {
+				next = snapshot.head[headIndex++];
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public DataRecord<V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			DataRecord<V> record = next;
+			advance();
+			return record;
+		}
+
+	}
+
+	/**
+	 * Iterates the head of a snapshot backwards, and then decodes each of its
+	 * blocks at once to iterate it backwards
+	 */
+	private class DescendingRecordIterator implements Iterator<DataRecord<V>> {
+
+		private final Snapshot snapshot;
+
+		private int headIndex;
+		private int block;
+
+		private List<DataRecord<V>> decoded = Collections.emptyList();
+		private int decodedIndex = -1;
+
+		DescendingRecordIterator(Snapshot snapshot) {
+			this.snapshot = snapshot;
+			this.headIndex = snapshot.head.length - 1;
+			this.block = snapshot.blocks.size() - 1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (headIndex < 0 && decodedIndex < 0 && block >= 0) {
+				decode(snapshot.blocks.get(block--));
+			}
+
+			return headIndex >= 0 || decodedIndex >= 0;
+		}
+
+		private void decode(GorillaBlock current) {
+			decoded = new ArrayList<DataRecord<V>>(current.count());
+			GorillaBlock.Reader reader = current.reader();
+
+			while (reader.next()) {
+				long position = current.start() + reader.index();
+
+				if (position >= snapshot.first) {
+					decoded.add(new PositionRecord<V>(values.fromBits(reader.bits()), reader.timestamp(), position));
+				}
+			}
+
+			decodedIndex = decoded.size() - 1;
+		}
+
+		@Override
+		public DataRecord<V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			} else if (headIndex >= 0) {
+				return snapshot.head[headIndex--];
+			} else {
+				return decoded.get(decodedIndex--);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,1017 @@
+package com.rsaladocid.util.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A {@link Map} where each key has a {@link Deque} of values.
+ * </p>
+ * <p>
+ * This class is used to store the different values that each key has along the
+ * time. Each value is stored in a {@link DataRecord}.
+ * </p>
+ * <p>
+ * By default, the records of a key are kept forever. The number or the age of
+ * the records of each key can be bounded with
+ * {@link #setRetentionPolicies(RetentionPolicy...) retention policies}, and the
+ * memory used by all the records can be bounded with a
+ * {@link #setMemoryBudget(long) memory budget}. Records are evicted by the
+ * thread that writes a new record, oldest first, so readers never wait for an
+ * eviction; the records of keys that are no longer written can be expired with
+ * {@link #evictExpired()} or a {@link RetentionSweeper}.
+ * </p>
+ * <p>
+ * With the default {@link ConcurrentHashMap}, this class is thread-safe and
+ * {@link #putSingle(Object, Object)} never locks: the deque of a key is created
+ * atomically and records are appended to it with compare-and-set operations,
+ * so writers of the same key do not block each other. Readers never lock
+ * either, and always see fully appended records. The deques created by
+ * {@link #putSingle(Object, Object)} keep the records in timestamp order, so
+ * they do not support inserting records at the head or removing them from the
+ * tail or the middle. Each record is timestamped as it is appended, and never
+ * before the previous record of its key, so concurrent writers of the same key
+ * keep the timestamp order.
+ * </p>
+ * <p>
+ * Records are expected to be appended in timestamp order, so the value of a
+ * key at a given time, and its values during a period, are found with a binary
+ * search instead of iterating all the records of the key.
+ * </p>
+ * <p>
+ * The most recent record of each key is also kept in an index that is updated
+ * on every write, so {@link #getAllMostRecent()} takes constant time and does
+ * not allocate.
+ * </p>
+ * <p>
+ * The records are kept in the heap by default. A {@link RecordStore} given to
+ * {@link #DataHistory(Map)}, such as a {@link MappedDataStore}, creates and
+ * keeps the records of each key instead.
+ * </p>
+ * <p>
+ * The changes can be made durable with a {@link WriteAheadLog}: once it is set,
+ * {@link #putSingle(Object, Object)}, {@link #put(Object, Deque)},
+ * {@link #remove(Object)} and {@link #clear()} return after logging the change,
+ * and a new history with the same log is rebuilt with the logged changes. The
+ * records written by {@link #putSingle(Object, Object)} are appended and logged
+ * as a single step, so readers may see a record shortly before it is durable.
+ * </p>
+ * <p>
+ * For numeric values, the history can keep
+ * {@link #setRollupResolutions(RollupResolution...) rollups}: the count, the
+ * minimum, the maximum and the sum of the values of each key during fixed time
+ * buckets, updated as the values are written, so downsampled queries do not
+ * iterate the records.
+ * </p>
+ * <p>
+ * The records are timestamped in milliseconds by the system clock, unless the
+ * history is created with another {@link RecordClock}, such as a
+ * {@link CoarseClock} that avoids reading the system time on every write or a
+ * {@link MonotonicClock} that orders the records written within the same
+ * millisecond. The times given to the time queries are then in the unit of the
+ * clock.
+ * </p>
+ * <p>
+ * Instead of polling {@link #getMostRecent(Object)}, consumers can
+ * {@link #getPublisher(Object) subscribe} to the records appended by
+ * {@link #putSingle(Object, Object)} to a key, or to
+ * {@link #getPublisher() all keys}. The records are delivered asynchronously
+ * with backpressure, so a slow subscriber never blocks the writers.
+ * </p>
+ *
+ * @param <K>
+ *            the type of keys maintained by this map
+ * @param <V>
+ *            the type of mapped values
+ */
+public class DataHistory<K, V> implements Map<K, Deque<DataRecord<V>>> {
+
+	/**
+	 * Estimated size of a record, its boxed value and its slot in a deque
+	 */
+	private final static long DEFAULT_RECORD_WEIGHT = 64;
+
+	private final static RetentionPolicy[] NO_POLICIES = new RetentionPolicy[0];
+
+	private final static RollupResolution[] NO_RESOLUTIONS = new RollupResolution[0];
+
+	/**
+	 * Number of records buffered for each subscriber before dropping the oldest
+	 */
+	private final static int PUBLISHER_CAPACITY = 256;
+
+	private Map<K, Deque<DataRecord<V>>> map;
+
+	private final ConcurrentMap<K, DataRecord<V>> latest = new ConcurrentHashMap<K, DataRecord<V>>();
+	private final Map<K, DataRecord<V>> latestView = Collections.unmodifiableMap(latest);
+
+	private volatile RetentionPolicy[] policies = NO_POLICIES;
+	private volatile RecordWeigher<? super V> weigher;
+	private volatile long memoryBudget;
+
+	private volatile WriteAheadLog<K, V> log;
+
+	private final RecordClock clock;
+
+	private volatile RollupResolution[] resolutions = NO_RESOLUTIONS;
+	private final ConcurrentMap<K, RollupBuckets[]> rollups = new ConcurrentHashMap<K, RollupBuckets[]>();
+
+	private final Function<K, RollupBuckets[]> rollupFactory = new Function<K, RollupBuckets[]>() {
+
+		@Override
+		public RollupBuckets[] apply(K key) {
+			RollupResolution[] resolutions = DataHistory.this.resolutions;
+			RollupBuckets[] buckets = new RollupBuckets[resolutions.length];
+
+			for (int i = 0; i < resolutions.length; i++) {
+				buckets[i] = new RollupBuckets(toTimestamp(resolutions[i].getDuration()), resolutions[i].getBuckets());
+			}
+
+			return buckets;
+		}
+
+	};
+
+	private final ConcurrentMap<K, RecordPublisher<DataRecord<V>>> publishers = new ConcurrentHashMap<K, RecordPublisher<DataRecord<V>>>();
+	private final RecordPublisher<Entry<K, DataRecord<V>>> publisher = new RecordPublisher<Entry<K, DataRecord<V>>>(
+			ForkJoinPool.commonPool(), PUBLISHER_CAPACITY);
+
+	private final Function<K, RecordPublisher<DataRecord<V>>> publisherFactory = new Function<K, RecordPublisher<DataRecord<V>>>() {
+
+		@Override
+		public RecordPublisher<DataRecord<V>> apply(K key) {
+			return new RecordPublisher<DataRecord<V>>(ForkJoinPool.commonPool(), PUBLISHER_CAPACITY);
+		}
+
+	};
+
+	private final AtomicLong weight = new AtomicLong();
+	private final AtomicBoolean shrinking = new AtomicBoolean();
+
+	private final Function<K, Deque<DataRecord<V>>> factory = new Function<K, Deque<DataRecord<V>>>() {
+
+		@Override
+		public Deque<DataRecord<V>> apply(K key) {
+			return new RecordDeque<V>();
+		}
+
+	};
+
+	public DataHistory() {
+		this(new ConcurrentHashMap<K, Deque<DataRecord<V>>>());
+	}
+
+	public DataHistory(Map<K, Deque<DataRecord<V>>> map) {
+		this(map, RecordClocks.SYSTEM);
+	}
+
+	/**
+	 * Creates a history whose records are timestamped by the given clock
+	 * 
+	 * @param clock
+	 *            the clock of the records
+	 */
+	public DataHistory(RecordClock clock) {
+		this(new ConcurrentHashMap<K, Deque<DataRecord<V>>>(), clock);
+	}
+
+	/**
+	 * Creates a history that keeps the records of each key in the given map,
+	 * timestamped by the given clock
+	 * 
+	 * @param map
+	 *            the map of the records of each key
+	 * @param clock
+	 *            the clock of the records
+	 */
+	public DataHistory(Map<K, Deque<DataRecord<V>>> map, RecordClock clock) {
+		this.map = map;
+		this.clock = clock;
+
+		for (Entry<K, Deque<DataRecord<V>>> entry : map.entrySet()) {
+			index(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public void clear() {
+		WriteAheadLog<K, V> log = this.log;
+		if (log != null) {
+			try {
+				log.clear();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		map.clear();
+		latest.clear();
+		rollups.clear();
+		weight.set(0);
+
+		for (K key : publishers.keySet()) {
+			closePublisher(key);
+		}
+	}
+
+	public boolean containsKey(Object key) {
+		return map.containsKey(key);
+	}
+
+	public boolean containsValue(Object value) {
+		Iterator<K> iterator = map.keySet().iterator();
+
+		while (iterator.hasNext()) {
+			K key = iterator.next();
+			Deque<DataRecord<V>> values = map.get(key);
+
+			if (values.contains(value)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public Set<Entry<K, Deque<DataRecord<V>>>> entrySet() {
+		return map.entrySet();
+	}
+
+	public Deque<DataRecord<V>> get(Object key) {
+		return map.get(key);
+	}
+
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	public Set<K> keySet() {
+		return map.keySet();
+	}
+
+	public Deque<DataRecord<V>> put(K key, Deque<DataRecord<V>> value) {
+		WriteAheadLog<K, V> log = this.log;
+		Deque<DataRecord<V>> previous;
+
+		if (log != null) {
+			try {
+				previous = log.put(key, value, map);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			previous = map.put(key, value);
+		}
+
+		index(key, map.get(key));
+
+		rollups.remove(key);
+		for (DataRecord<V> record : value) {
+			rollup(key, record);
+		}
+
+		if (weigher != null) {
+			weight.addAndGet(weigh(value) - weigh(previous));
+		}
+
+		return previous;
+	}
+
+	public void putAll(Map<? extends K, ? extends Deque<DataRecord<V>>> m) {
+		for (Entry<? extends K, ? extends Deque<DataRecord<V>>> entry : m.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public Deque<DataRecord<V>> remove(Object key) {
+		WriteAheadLog<K, V> log = this.log;
+		if (log != null && map.containsKey(key)) {
+			try {
+				log.remove((K) key);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		Deque<DataRecord<V>> previous = map.remove(key);
+		latest.remove(key);
+		rollups.remove(key);
+		closePublisher(key);
+
+		if (weigher != null) {
+			weight.addAndGet(-weigh(previous));
+		}
+
+		return previous;
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public Collection<Deque<DataRecord<V>>> values() {
+		return map.values();
+	}
+
+	/**
+	 * Sets a single key's value.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the single value of the key
+	 * @throws UncheckedIOException
+	 *             if the value cannot be written to the write-ahead log
+	 */
+	public void putSingle(K key, V value) {
+		Deque<DataRecord<V>> entries = entriesOf(key);
+		DataRecord<V> record;
+
+		WriteAheadLog<K, V> log = this.log;
+		if (log != null) {
+			try {
+				record = log.record(key, entries, value, clock);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			record = AppendOnlyDeque.appendTo(entries, value, clock);
+		}
+
+		rollup(key, record);
+
+		if (weigher != null) {
+			weight.addAndGet(weigher.weigh(record));
+		}
+
+		evict(entries, policies, record.getTimestamp());
+		index(key, entries);
+
+		if (weigher != null && weight.get() > memoryBudget) {
+			shrink();
+		}
+
+		publish(key, record);
+	}
+
+	/**
+	 * <p>
+	 * Sets the resolutions of the rollups kept for each key. The rollups are
+	 * rebuilt from the existing records, and then updated every time a numeric
+	 * value is written; values that are not {@link Number numbers} are not rolled
+	 * up.
+	 * </p>
+	 * <p>
+	 * The rollups keep the given number of most recent buckets of each
+	 * resolution, independently of the records, so the raw records can be evicted
+	 * earlier, for instance with {@link RetentionPolicies#rolledUp(long, TimeUnit)}.
+	 * </p>
+	 * 
+	 * @param resolutions
+	 *            the resolutions of the rollups, or none to stop keeping rollups
+	 */
+	public void setRollupResolutions(RollupResolution... resolutions) {
+		this.resolutions = resolutions.clone();
+		rollups.clear();
+
+		for (Entry<K, Deque<DataRecord<V>>> entry : map.entrySet()) {
+			for (DataRecord<V> record : entry.getValue()) {
+				rollup(entry.getKey(), record);
+			}
+		}
+	}
+
+	/**
+	 * Returns the rollups of the given key at the given resolution that overlap
+	 * the given period.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param resolution
+	 *            the duration of the buckets in milliseconds, which must be one of
+	 *            the {@link #setRollupResolutions(RollupResolution...)
+	 *            resolutions} of this history
+	 * @param from
+	 *            the start timestamp
+	 * @param to
+	 *            the end timestamp
+	 * @return the non-empty buckets in time order
+	 * @throws IllegalArgumentException
+	 *             if the history has no rollups of the given resolution
+	 */
+	public List<Rollup> getRollups(K key, long resolution, long from, long to) {
+		RollupResolution[] resolutions = this.resolutions;
+
+		for (int i = 0; i < resolutions.length; i++) {
+			if (resolutions[i].getDuration() == resolution) {
+				RollupBuckets[] buckets = rollups.get(key);
+
+				if (buckets == null || i >= buckets.length
+						|| buckets[i].getDuration() != toTimestamp(resolution)) {
+					return Collections.emptyList();
+				}
+
+				return Collections.unmodifiableList(buckets[i].get(from, to));
+			}
+		}
+
+		throw new IllegalArgumentException("No rollups of " + resolution + " ms");
+	}
+
+	/**
+	 * <p>
+	 * Returns a publisher of the records appended to the given key by
+	 * {@link #putSingle(Object, Object)}.
+	 * </p>
+	 * <p>
+	 * The records are delivered in the common {@link ForkJoinPool} as the
+	 * subscribers request them. Up to 256 records not yet requested are buffered
+	 * for each subscriber; when a slow subscriber fills its buffer, its oldest
+	 * buffered record is dropped, so writers never wait and the subscriber always
+	 * receives the most recent records.
+	 * </p>
+	 * <p>
+	 * When the key is {@link #remove(Object) removed} or the history is
+	 * {@link #clear() cleared}, the subscribers are completed once they have
+	 * received their buffered records.
+	 * </p>
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the publisher of the records of the key
+	 */
+	public RecordFlow.Publisher<DataRecord<V>> getPublisher(K key) {
+		RecordPublisher<DataRecord<V>> publisher = publishers.get(key);
+		if (publisher == null) {
+			publisher = publishers.computeIfAbsent(key, publisherFactory);
+		}
+
+		return publisher;
+	}
+
+	/**
+	 * Returns a publisher of the records appended to any key by
+	 * {@link #putSingle(Object, Object)}, together with their keys, with the same
+	 * delivery as {@link #getPublisher(Object)}.
+	 * 
+	 * @return the publisher of the records of all keys
+	 */
+	public RecordFlow.Publisher<Entry<K, DataRecord<V>>> getPublisher() {
+		return publisher;
+	}
+
+	/**
+	 * Completes the subscribers of the given key and drops its publisher, so a
+	 * later subscription to the key gets a new one
+	 */
+	private void closePublisher(Object key) {
+		RecordPublisher<DataRecord<V>> publisher = publishers.remove(key);
+		if (publisher != null) {
+			publisher.close();
+		}
+	}
+
+	private void publish(K key, DataRecord<V> record) {
+		RecordPublisher<DataRecord<V>> publisher = publishers.get(key);
+		if (publisher != null) {
+			publisher.publish(record);
+		}
+
+		if (this.publisher.hasSubscribers()) {
+			this.publisher.publish(new AbstractMap.SimpleImmutableEntry<K, DataRecord<V>>(key, record));
+		}
+	}
+
+	/**
+	 * Returns the clock that timestamps the records of this history
+	 * 
+	 * @return the clock
+	 */
+	public RecordClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Converts the given duration in milliseconds to the unit of the timestamps
+	 */
+	private long toTimestamp(long millis) {
+		return clock.getUnit().convert(millis, TimeUnit.MILLISECONDS);
+	}
+
+	private void rollup(K key, DataRecord<V> record) {
+		if (resolutions.length == 0 || !(record.getValue() instanceof Number)) {
+			return;
+		}
+
+		RollupBuckets[] buckets = rollups.get(key);
+		if (buckets == null) {
+			buckets = rollups.computeIfAbsent(key, rollupFactory);
+		}
+
+		double value = ((Number) record.getValue()).doubleValue();
+		for (RollupBuckets bucket : buckets) {
+			bucket.add(record.getTimestamp(), value);
+		}
+	}
+
+	/**
+	 * Returns the deque of the given key, creating it if it does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	private Deque<DataRecord<V>> entriesOf(K key) {
+		Deque<DataRecord<V>> entries = map.get(key);
+
+		if (entries == null) {
+			if (map instanceof RecordStore) {
+				entries = ((RecordStore<K, V>) map).getOrCreate(key);
+			} else {
+				entries = map.computeIfAbsent(key, factory);
+			}
+		}
+
+		return entries;
+	}
+
+	/**
+	 * <p>
+	 * Returns a {@link Map} view containing the most recent {@link DataRecord} for
+	 * each existing key.
+	 * </p>
+	 * <p>
+	 * The view is read-only and live: it is the index of the most recent records,
+	 * which is updated by {@link #putSingle(Object, Object)},
+	 * {@link #put(Object, Deque)}, {@link #remove(Object)}, {@link #clear()} and
+	 * the evictions, so the same view is returned on every call. Keys without
+	 * records are not included. Records added or removed directly through a deque
+	 * or through the views of the keys and values are not indexed until the key
+	 * is written again.
+	 * </p>
+	 * 
+	 * @return the map containing the most recent data for each key
+	 */
+	public Map<K, DataRecord<V>> getAllMostRecent() {
+		return latestView;
+	}
+
+	/**
+	 * A shortcut to return the most recent data stored for the given key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the most recent data record, or <code>null</code> if there is no data
+	 *         record for the given key
+	 */
+	public DataRecord<V> getMostRecent(K key) {
+		Deque<DataRecord<V>> entries = get(key);
+		return entries != null ? entries.peekLast() : null;
+	}
+
+	/**
+	 * Returns the record that was the value of the given key at the given time,
+	 * that is, the most recent record not set after that time.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param timestamp
+	 *            the time, in the unit of the clock of this history
+	 * @return the data record, or <code>null</code> if the key had no value at
+	 *         the given time
+	 */
+	public DataRecord<V> getAt(K key, long timestamp) {
+		return floor(get(key), timestamp);
+	}
+
+	/**
+	 * Returns the records of the given key set between the given times, both
+	 * inclusive.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param from
+	 *            the start time, in the unit of the clock of this history
+	 * @param to
+	 *            the end time, in the unit of the clock of this history
+	 * @return an immutable list containing the data records in timestamp order,
+	 *         which is empty if there are no records in the period
+	 */
+	@SuppressWarnings("unchecked")
+	public List<DataRecord<V>> getRange(K key, long from, long to) {
+		Deque<DataRecord<V>> entries = get(key);
+
+		if (entries == null || from > to) {
+			return Collections.emptyList();
+		} else if (entries instanceof TimeIndexed) {
+			return ((TimeIndexed<V>) entries).range(from, to);
+		}
+
+		List<DataRecord<V>> records = new ArrayList<DataRecord<V>>();
+		for (DataRecord<V> record : entries) {
+			if (record.getTimestamp() >= from && record.getTimestamp() <= to) {
+				records.add(record);
+			}
+		}
+
+		return Collections.unmodifiableList(records);
+	}
+
+	/**
+	 * Returns a {@link Map} containing the value that each key had at the given
+	 * time.
+	 * 
+	 * @param timestamp
+	 *            the time, in the unit of the clock of this history
+	 * @return the map containing the data record of each key that had a value at
+	 *         the given time
+	 * @see #getAt(Object, long)
+	 */
+	public Map<K, DataRecord<V>> getAllAt(long timestamp) {
+		Map<K, DataRecord<V>> allAt = new HashMap<K, DataRecord<V>>();
+
+		for (Entry<K, Deque<DataRecord<V>>> entry : map.entrySet()) {
+			DataRecord<V> record = floor(entry.getValue(), timestamp);
+
+			if (record != null) {
+				allAt.put(entry.getKey(), record);
+			}
+		}
+
+		return allAt;
+	}
+
+	@SuppressWarnings("unchecked")
+	private DataRecord<V> floor(Deque<DataRecord<V>> entries, long timestamp) {
+		if (entries == null) {
+			return null;
+		} else if (entries instanceof TimeIndexed) {
+			return ((TimeIndexed<V>) entries).floor(timestamp);
+		}
+
+		Iterator<DataRecord<V>> iterator = entries.descendingIterator();
+		while (iterator.hasNext()) {
+			DataRecord<V> record = iterator.next();
+
+			if (record.getTimestamp() <= timestamp) {
+				return record;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Sets the rules that decide which records are evicted. The records of a key
+	 * are evicted every time a new record is written to that key, while any of the
+	 * given policies says that its oldest record is expired. The durations of the
+	 * built-in policies are converted to the unit of the clock of this history.
+	 * 
+	 * @param policies
+	 *            the retention policies, or none to keep every record
+	 */
+	public void setRetentionPolicies(RetentionPolicy... policies) {
+		this.policies = RetentionPolicies.forClock(policies, clock);
+	}
+
+	/**
+	 * Returns the rules that decide which records are evicted
+	 * 
+	 * @return the retention policies
+	 */
+	public RetentionPolicy[] getRetentionPolicies() {
+		return policies.clone();
+	}
+
+	/**
+	 * Bounds the memory used by the records of all keys, estimating the same size
+	 * for every record.
+	 * 
+	 * @param maxBytes
+	 *            the maximum memory in bytes, or a negative value to remove the
+	 *            budget
+	 * @see #setMemoryBudget(long, RecordWeigher)
+	 */
+	public void setMemoryBudget(long maxBytes) {
+		setMemoryBudget(maxBytes, new RecordWeigher<Object>() {
+
+			@Override
+			public long weigh(DataRecord<? extends Object> record) {
+				return DEFAULT_RECORD_WEIGHT;
+			}
+
+		});
+	}
+
+	/**
+	 * <p>
+	 * Bounds the memory used by the records of all keys, estimating the size of
+	 * each record with the given weigher.
+	 * </p>
+	 * <p>
+	 * When a write exceeds the budget, the oldest records of any key are evicted
+	 * until the estimated memory falls to seven eighths of the budget, so the cost
+	 * of finding them is shared by many writes. Only one writer evicts at a time;
+	 * the others keep writing.
+	 * </p>
+	 * <p>
+	 * The estimate accounts for the records added with
+	 * {@link #putSingle(Object, Object)}, {@link #put(Object, Deque)} and
+	 * {@link #putAll(Map)}, and removed by evictions, {@link #remove(Object)},
+	 * {@link #put(Object, Deque)} and {@link #clear()}. Records removed directly
+	 * from a deque are not discounted.
+	 * </p>
+	 * 
+	 * @param maxBytes
+	 *            the maximum memory in bytes, or a negative value to remove the
+	 *            budget
+	 * @param weigher
+	 *            the estimator of the size of a record
+	 */
+	public void setMemoryBudget(long maxBytes, RecordWeigher<? super V> weigher) {
+		if (maxBytes < 0) {
+			this.weigher = null;
+			weight.set(0);
+			return;
+		}
+
+		this.memoryBudget = maxBytes;
+		this.weigher = weigher;
+
+		long total = 0;
+		for (Deque<DataRecord<V>> entries : map.values()) {
+			total += weigh(entries);
+		}
+		weight.set(total);
+
+		if (total > maxBytes) {
+			shrink();
+		}
+	}
+
+	/**
+	 * Returns the estimated memory used by the records of all keys
+	 * 
+	 * @return the size in bytes, or 0 if there is no memory budget
+	 */
+	public long getMemoryUsage() {
+		return weight.get();
+	}
+
+	/**
+	 * <p>
+	 * Makes the changes of this history durable with the given log. The changes
+	 * stored in the log are replayed into this history first, and the retention
+	 * rules are applied to them.
+	 * </p>
+	 * <p>
+	 * The log should be set once, before the history is used, and it is compacted
+	 * by {@link #evictExpired()} when it has grown enough.
+	 * </p>
+	 * 
+	 * @param log
+	 *            the write-ahead log
+	 * @throws IOException
+	 *             if the log cannot be read
+	 */
+	public void setWriteAheadLog(WriteAheadLog<K, V> log) throws IOException {
+		log.replay(new WriteAheadLog.Visitor<K, V>() {
+
+			@Override
+			public void record(K key, DataRecord<V> record) {
+				entriesOf(key).add(record);
+				rollup(key, record);
+			}
+
+			@Override
+			public void remove(K key) {
+				map.remove(key);
+				rollups.remove(key);
+			}
+
+			@Override
+			public void clear() {
+				map.clear();
+				rollups.clear();
+			}
+
+		});
+
+		latest.clear();
+		for (Entry<K, Deque<DataRecord<V>>> entry : map.entrySet()) {
+			index(entry.getKey(), entry.getValue());
+		}
+
+		if (weigher != null) {
+			setMemoryBudget(memoryBudget, weigher);
+		}
+
+		this.log = log;
+		evictExpired();
+	}
+
+	/**
+	 * Returns the log that makes the changes of this history durable
+	 * 
+	 * @return the write-ahead log, or <code>null</code> if there is none
+	 */
+	public WriteAheadLog<K, V> getWriteAheadLog() {
+		return log;
+	}
+
+	/**
+	 * Evicts the expired records of every key, and the oldest records of any key
+	 * if the memory budget is exceeded. Then, compacts the write-ahead log if it
+	 * has grown to more than twice its size after the last compaction.
+	 * 
+	 * @throws UncheckedIOException
+	 *             if the write-ahead log cannot be compacted
+	 */
+	public void evictExpired() {
+		RetentionPolicy[] policies = this.policies;
+		long now = clock.currentTimestamp();
+
+		if (policies.length > 0) {
+			for (Entry<K, Deque<DataRecord<V>>> entry : map.entrySet()) {
+				evict(entry.getValue(), policies, now);
+
+				if (entry.getValue().isEmpty()) {
+					index(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		if (weigher != null && weight.get() > memoryBudget) {
+			shrink();
+		}
+
+		WriteAheadLog<K, V> log = this.log;
+		if (log != null) {
+			try {
+				log.compactIfGrown(this);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void evict(Deque<DataRecord<V>> entries, RetentionPolicy[] policies, long now) {
+		if (policies.length == 0) {
+			return;
+		}
+
+		DataRecord<V> oldest;
+		while ((oldest = entries.peekFirst()) != null && isExpired(oldest, entries.size(), now, policies)) {
+			pollOldest(entries, oldest);
+		}
+	}
+
+	private boolean isExpired(DataRecord<V> oldest, int size, long now, RetentionPolicy[] policies) {
+		for (RetentionPolicy policy : policies) {
+			if (policy.isExpired(oldest, size, now)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Evicts the oldest records of any key until the estimated memory falls to
+	 * seven eighths of the budget
+	 */
+	private void shrink() {
+		if (!shrinking.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			if (weigher == null) {
+				return;
+			}
+
+			long target = memoryBudget - memoryBudget / 8;
+			PriorityQueue<Candidate<K, V>> candidates = new PriorityQueue<Candidate<K, V>>();
+
+			for (Entry<K, Deque<DataRecord<V>>> entry : map.entrySet()) {
+				DataRecord<V> oldest = entry.getValue().peekFirst();
+				if (oldest != null) {
+					candidates.add(new Candidate<K, V>(entry.getKey(), entry.getValue(), oldest.getTimestamp()));
+				}
+			}
+
+			while (weight.get() > target && !candidates.isEmpty()) {
+				Candidate<K, V> candidate = candidates.poll();
+
+				DataRecord<V> oldest = candidate.entries.peekFirst();
+				if (oldest != null) {
+					pollOldest(candidate.entries, oldest);
+				}
+
+				oldest = candidate.entries.peekFirst();
+				if (oldest != null) {
+					candidate.timestamp = oldest.getTimestamp();
+					candidates.add(candidate);
+				} else {
+					index(candidate.key, candidate.entries);
+				}
+			}
+		} finally {
+			shrinking.set(false);
+		}
+	}
+
+	/**
+	 * Removes the given oldest record of a key, unless another thread has already
+	 * removed it, and discounts its weight
+	 */
+	private void pollOldest(Deque<DataRecord<V>> entries, DataRecord<V> oldest) {
+		DataRecord<V> evicted;
+
+		if (entries instanceof AppendOnlyDeque) {
+			evicted = ((AppendOnlyDeque<V>) entries).pollFirstIf(oldest) ? oldest : null;
+		} else {
+			evicted = entries.pollFirst();
+		}
+
+		RecordWeigher<? super V> weigher = this.weigher;
+		if (evicted != null && weigher != null) {
+			weight.addAndGet(-weigher.weigh(evicted));
+		}
+	}
+
+	/**
+	 * Stores the most recent record of the given key in the index, checking
+	 * afterwards that it is still the most recent one, so a writer that indexes a
+	 * stale record always corrects it
+	 */
+	private void index(K key, Deque<DataRecord<V>> entries) {
+		DataRecord<V> last;
+
+		do {
+			last = entries != null ? entries.peekLast() : null;
+
+			if (last != null) {
+				latest.put(key, last);
+			} else {
+				latest.remove(key);
+			}
+		} while (entries != null && entries.peekLast() != last);
+
+		// The key may have been removed or replaced meanwhile
+		if (last != null && map.get(key) != entries) {
+			latest.remove(key, last);
+		}
+	}
+
+	private long weigh(Deque<DataRecord<V>> entries) {
+		RecordWeigher<? super V> weigher = this.weigher;
+		long total = 0;
+
+		if (entries != null && weigher != null) {
+			for (DataRecord<V> record : entries) {
+				total += weigher.weigh(record);
+			}
+		}
+
+		return total;
+	}
+
+	/**
+	 * The records of a key ordered by the timestamp of its oldest record
+	 */
+	private static class Candidate<K, V> implements Comparable<Candidate<K, V>> {
+
+		private final K key;
+		private final Deque<DataRecord<V>> entries;
+		private long timestamp;
+
+		Candidate(K key, Deque<DataRecord<V>> entries, long timestamp) {
+			this.key = key;
+			this.entries = entries;
+			this.timestamp = timestamp;
+		}
+
+		@Override
+		public int compareTo(Candidate<K, V> other) {
+			return Long.compare(timestamp, other.timestamp);
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.rsaladocid.util.data;
+
+/**
+ * <p>
+ * A wrapper of a simple value that provides information about the time in which
+ * the value was set.
+ * </p>
+ * <p>
+ * The records created by a {@link DataHistory} cannot be modified: their value
+ * and timestamp never change once they are written, so they can be read by any
+ * thread without locks, and {@link #setValue(Object)} throws an
+ * {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @param <T>
+ *            the value type of the data record
+ */
+public class DataRecord<T> {
+
+	/**
+	 * The value of the data record
+	 */
+	private T value;
+
+	/**
+	 * Time in which the current value was set, in the unit of the clock
+	 */
+	private long timestamp;
+
+	/**
+	 * The clock that provides the time in which the value is set, or
+	 * <code>null</code> for the records that are never set again
+	 */
+	private final RecordClock clock;
+
+	/**
+	 * Creates a data record with the given value
+	 * 
+	 * @param value
+	 *            the value of the data
+	 */
+	public DataRecord(T value) {
+		this(value, RecordClocks.SYSTEM);
+	}
+
+	/**
+	 * Creates a data record with the given value, set at the current time of the
+	 * given clock. The values set later are timestamped by the same clock.
+	 * 
+	 * @param value
+	 *            the value of the data
+	 * @param clock
+	 *            the clock that provides the time in which the value is set
+	 */
+	public DataRecord(T value, RecordClock clock) {
+		this.clock = clock;
+		setValue(value);
+	}
+
+	/**
+	 * Creates a data record with the given value, set at the given time
+	 * 
+	 * @param value
+	 *            the value of the data
+	 * @param timestamp
+	 *            the time in milliseconds in which the value was set
+	 */
+	public DataRecord(T value, long timestamp) {
+		this.clock = RecordClocks.SYSTEM;
+		this.value = value;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Creates a data record with the given value, set at the given time, whose
+	 * timestamps come from the given clock. The records of the histories pass no
+	 * clock, so they do not keep a reference to it.
+	 */
+	DataRecord(T value, long timestamp, RecordClock clock) {
+		this.clock = clock;
+		this.value = value;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Returns the timestamp in which the value was set
+	 * 
+	 * @return the time in milliseconds, or in the unit of the clock given to
+	 *         {@link #DataRecord(Object, RecordClock)}
+	 * @see System#currentTimeMillis()
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns the value of the data
+	 * 
+	 * @return the value of the data
+	 */
+	public T getValue() {
+		return value;
+	}
+
+	/**
+	 * Sets the value of the data and sets the current time
+	 * 
+	 * @param value
+	 *            the value of the data
+	 * @throws UnsupportedOperationException
+	 *             if the record was created by a {@link DataHistory}
+	 */
+	public synchronized void setValue(T value) {
+		this.value = value;
+		setTimestamp(currentTimestamp());
+	}
+
+	/**
+	 * Returns the current timestamp of the clock of the record, which is in
+	 * milliseconds by default
+	 * 
+	 * @return the current time
+	 * @see RecordClock#currentTimestamp()
+	 */
+	protected long currentTimestamp() {
+		return clock.currentTimestamp();
+	}
+
+	/**
+	 * Sets the timestamp, in the unit of the clock of the record
+	 * 
+	 * @param timestamp
+	 *            the timestamp to set
+	 */
+	protected final void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+}
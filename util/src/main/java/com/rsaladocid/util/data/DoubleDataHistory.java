@@ -0,0 +1,137 @@
+package com.rsaladocid.util.data;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A history of <code>double</code> values that stores the timestamps and the
+ * values of each key in primitive arrays, used as a ring of a fixed capacity.
+ * Once a key is full, every new value overwrites its oldest one.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@code DoubleDataHistory<String> history = new DoubleDataHistory<String>(3600);}
+ * history.putSingle("cpu", 42.5);
+ * history.getMostRecent("cpu"); // Returns: 42.5
+ * </code>
+ * </pre>
+ * <p>
+ * Writing a value and reading the most recent one do not allocate any object,
+ * once the ring of the key exists, and a record only takes the 16 bytes of its
+ * timestamp and value, instead of a {@link DataRecord}, a boxed value and a
+ * deque slot. The records can still be read as {@link DataRecord} through
+ * {@link #get(Object)}, {@link #getMostRecentRecord(Object)} and
+ * {@link #getAllMostRecent()}, which copy them.
+ * </p>
+ * <p>
+ * This class is thread-safe: the ring of each key is locked while it is written
+ * or read, so writers of different keys do not contend.
+ * </p>
+ *
+ * @param <K>
+ *            the type of keys
+ * @see DataHistory
+ */
+public class DoubleDataHistory<K> extends PrimitiveDataHistory<K, Double, PrimitiveRing.OfDouble> {
+
+	/**
+	 * Creates a history that keeps the last 1024 values of each key
+	 */
+	public DoubleDataHistory() {
+		super();
+	}
+
+	/**
+	 * Creates a history that keeps the given number of values of each key
+	 * 
+	 * @param capacity
+	 *            the maximum number of values of each key
+	 */
+	public DoubleDataHistory(int capacity) {
+		super(capacity);
+	}
+
+	/**
+	 * Creates a history that keeps the given number of values of each key,
+	 * timestamped by the given clock
+	 * 
+	 * @param capacity
+	 *            the maximum number of values of each key
+	 * @param clock
+	 *            the clock of the values
+	 */
+	public DoubleDataHistory(int capacity, RecordClock clock) {
+		super(capacity, clock);
+	}
+
+	/**
+	 * Sets a single key's value at the current time
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 */
+	public void putSingle(K key, double value) {
+		PrimitiveRing.OfDouble ring = ringOf(key);
+
+		// Timestamped while holding the lock, so concurrent writers of the key
+		// append their values in timestamp order
+		synchronized (ring) {
+			ring.values[ring.append(currentTimestamp())] = value;
+		}
+	}
+
+	/**
+	 * Sets a single key's value at the given time. Values are expected to be set
+	 * in timestamp order.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @param timestamp
+	 *            the time in which the value was set, in the unit of the clock of
+	 *            this history
+	 */
+	public void putSingle(K key, double value, long timestamp) {
+		PrimitiveRing.OfDouble ring = ringOf(key);
+
+		synchronized (ring) {
+			ring.values[ring.append(timestamp)] = value;
+		}
+	}
+
+	/**
+	 * Returns the most recent value of the given key
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the most recent value
+	 * @throws NoSuchElementException
+	 *             if the key has no records
+	 */
+	public double getMostRecent(K key) {
+		PrimitiveRing.OfDouble ring = nonEmptyRingOf(key);
+
+		synchronized (ring) {
+			checkNotEmpty(key, ring);
+			return ring.values[ring.last()];
+		}
+	}
+
+	@Override
+	PrimitiveRing.OfDouble newRing(int capacity) {
+		return new PrimitiveRing.OfDouble(capacity);
+	}
+
+	@Override
+	DataRecord<Double> toRecord(PrimitiveRing.OfDouble ring, int slot) {
+		return new ImmutableDataRecord<Double>(ring.values[slot], ring.timestamps[slot]);
+	}
+
+}
@@ -0,0 +1,286 @@
+package com.rsaladocid.util.data;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * An immutable block of records compressed as in the <i>Gorilla</i> time-series
+ * database: the timestamps are encoded as the difference between consecutive
+ * deltas, and the 64 bits of each value as the XOR with the previous ones.
+ * </p>
+ * <p>
+ * The first record is stored in full. After it, a timestamp whose delta is the
+ * same as the previous one takes a single bit, and other deltas take from 9 to
+ * 68 bits depending on how much they change. A value equal to the previous one
+ * takes a single bit, and other values only store the bits that differ, within
+ * the window of leading and trailing zeros of the previous difference when it
+ * fits. Slowly changing values sampled at a regular interval take a few bits
+ * per record instead of the 16 bytes of their timestamp and value.
+ * </p>
+ * <p>
+ * The records are decoded sequentially with a {@link Reader}.
+ * </p>
+ */
+final class GorillaBlock {
+
+	private final long[] words;
+	private final int count;
+	private final long start;
+	private final long firstTimestamp;
+	private final long lastTimestamp;
+
+	private GorillaBlock(long[] words, int count, long start, long firstTimestamp, long lastTimestamp) {
+		this.words = words;
+		this.count = count;
+		this.start = start;
+		this.firstTimestamp = firstTimestamp;
+		this.lastTimestamp = lastTimestamp;
+	}
+
+	/**
+	 * Compresses the given records, whose timestamps and value bits are given in
+	 * parallel arrays
+	 *
+	 * @param start
+	 *            the position of the first record in its deque
+	 */
+	static GorillaBlock encode(long start, long[] timestamps, long[] bits, int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Non-positive number of records: " + count);
+		}
+
+		Writer writer = new Writer(count);
+		writer.write(timestamps[0], 64);
+		writer.write(bits[0], 64);
+
+		long previousDelta = 0;
+		int previousLeading = -1;
+		int previousTrailing = 0;
+
+		for (int i = 1; i < count; i++) {
+			long delta = timestamps[i] - timestamps[i - 1];
+			long deltaOfDelta = delta - previousDelta;
+			previousDelta = delta;
+
+			if (deltaOfDelta == 0) {
+				writer.write(0, 1);
+			} else if (deltaOfDelta >= -64 && deltaOfDelta < 64) {
+				writer.write(0x2, 2);
+				writer.write(deltaOfDelta, 7);
+			} else if (deltaOfDelta >= -256 && deltaOfDelta < 256) {
+				writer.write(0x6, 3);
+				writer.write(deltaOfDelta, 9);
+			} else if (deltaOfDelta >= -2048 && deltaOfDelta < 2048) {
+				writer.write(0xE, 4);
+				writer.write(deltaOfDelta, 12);
+			} else {
+				writer.write(0xF, 4);
+				writer.write(deltaOfDelta, 64);
+			}
+
+			long xor = bits[i] ^ bits[i - 1];
+
+			if (xor == 0) {
+				writer.write(0, 1);
+				continue;
+			}
+
+			int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+			int trailing = Long.numberOfTrailingZeros(xor);
+
+			if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+				// The difference fits in the window of the previous one
+				writer.write(0x2, 2);
+				writer.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+			} else {
+				int length = 64 - leading - trailing;
+
+				writer.write(0x3, 2);
+				writer.write(leading, 5);
+				writer.write(length - 1, 6);
+				writer.write(xor >>> trailing, length);
+
+				previousLeading = leading;
+				previousTrailing = trailing;
+			}
+		}
+
+		return new GorillaBlock(writer.toArray(), count, start, timestamps[0], timestamps[count - 1]);
+	}
+
+	/**
+	 * Returns the number of records
+	 */
+	int count() {
+		return count;
+	}
+
+	/**
+	 * Returns the position of the first record in its deque
+	 */
+	long start() {
+		return start;
+	}
+
+	long firstTimestamp() {
+		return firstTimestamp;
+	}
+
+	long lastTimestamp() {
+		return lastTimestamp;
+	}
+
+	/**
+	 * Returns the size of the compressed records in bytes
+	 */
+	int bytes() {
+		return words.length * 8;
+	}
+
+	/**
+	 * Returns a reader positioned before the first record
+	 */
+	Reader reader() {
+		return new Reader();
+	}
+
+	/**
+	 * Decodes the records of the block in order
+	 */
+	final class Reader {
+
+		private int position;
+		private int index = -1;
+
+		private long timestamp;
+		private long delta;
+		private long bits;
+		private int leading;
+		private int trailing;
+
+		/**
+		 * Moves to the next record
+		 *
+		 * @return <code>false</code> if there are no more records
+		 */
+		boolean next() {
+			if (index + 1 >= count) {
+				return false;
+			}
+
+			index++;
+
+			if (index == 0) {
+				timestamp = read(64);
+				bits = read(64);
+				return true;
+			}
+
+			long deltaOfDelta;
+
+			if (read(1) == 0) {
+				deltaOfDelta = 0;
+			} else if (read(1) == 0) {
+				deltaOfDelta = signed(read(7), 7);
+			} else if (read(1) == 0) {
+				deltaOfDelta = signed(read(9), 9);
+			} else if (read(1) == 0) {
+				deltaOfDelta = signed(read(12), 12);
+			} else {
+				deltaOfDelta = read(64);
+			}
+
+			delta += deltaOfDelta;
+			timestamp += delta;
+
+			if (read(1) == 1) {
+				if (read(1) == 1) {
+					leading = (int) read(5);
+					trailing = 64 - leading - ((int) read(6) + 1);
+				}
+
+				bits ^= read(64 - leading - trailing) << trailing;
+			}
+
+			return true;
+		}
+
+		/**
+		 * Returns the index of the current record in the block
+		 */
+		int index() {
+			return index;
+		}
+
+		long timestamp() {
+			return timestamp;
+		}
+
+		long bits() {
+			return bits;
+		}
+
+		private long read(int length) {
+			int word = position >>> 6;
+			int free = 64 - (position & 63);
+			long value;
+
+			if (length <= free) {
+				value = words[word] >>> (free - length);
+			} else {
+				value = (words[word] << (length - free)) | (words[word + 1] >>> (64 - (length - free)));
+			}
+
+			position += length;
+			return length == 64 ? value : value & ((1L << length) - 1);
+		}
+
+	}
+
+	private static long signed(long value, int length) {
+		return (value << (64 - length)) >> (64 - length);
+	}
+
+	/**
+	 * Appends bits to a growing array of words, from the most significant bit of
+	 * each word
+	 */
+	private static final class Writer {
+
+		private long[] words;
+		private int position;
+
+		Writer(int count) {
+			// Two words for the first record and about one more for every 32
+			words = new long[2 + count / 32 + 1];
+		}
+
+		void write(long value, int length) {
+			if (position + length > words.length * 64) {
+				words = Arrays.copyOf(words, words.length * 2);
+			}
+
+			if (length < 64) {
+				value &= (1L << length) - 1;
+			}
+
+			int word = position >>> 6;
+			int free = 64 - (position & 63);
+
+			if (length <= free) {
+				words[word] |= value << (free - length);
+			} else {
+				words[word] |= value >>> (length - free);
+				words[word + 1] |= value << (64 - (length - free));
+			}
+
+			position += length;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(words, (position + 63) >>> 6);
+		}
+
+	}
+
+}
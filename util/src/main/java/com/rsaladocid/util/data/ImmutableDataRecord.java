@@ -0,0 +1,31 @@
+package com.rsaladocid.util.data;
+
+/**
+ * <p>
+ * A {@link DataRecord} whose value and timestamp are only set by its
+ * constructor, used for the records created by the histories.
+ * </p>
+ * <p>
+ * The value and the timestamp are the fields of {@link DataRecord}, and no
+ * clock is kept, so a record takes no more memory than a value and a
+ * timestamp. The histories publish their records through volatile or CAS
+ * writes, and the records decoded by the stores or created by the primitive
+ * histories are built by the thread that reads them, so readers need no locks
+ * and never see a value with the timestamp of another one.
+ * </p>
+ *
+ * @param <T>
+ *            the value type of the data record
+ */
+class ImmutableDataRecord<T> extends DataRecord<T> {
+
+	ImmutableDataRecord(T value, long timestamp) {
+		super(value, timestamp, null);
+	}
+
+	@Override
+	public void setValue(T value) {
+		throw new UnsupportedOperationException("Records of a history cannot be modified");
+	}
+
+}
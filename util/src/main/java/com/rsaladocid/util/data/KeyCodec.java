@@ -0,0 +1,34 @@
+package com.rsaladocid.util.data;
+
+/**
+ * Converts the keys of a history to the file names under which a store keeps
+ * their records, and back.
+ *
+ * @param <K>
+ *            the type of keys
+ * @see KeyCodecs
+ * @see MappedDataStore
+ */
+public interface KeyCodec<K> {
+
+	/**
+	 * Returns the file name of the given key. Different keys must have different
+	 * names, even if the file system ignores the case of the names, and the name
+	 * must be valid in any file system. The name may be empty.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the file name
+	 */
+	String encode(K key);
+
+	/**
+	 * Returns the key of the given file name
+	 *
+	 * @param name
+	 *            the file name returned by {@link #encode(Object)}
+	 * @return the key
+	 */
+	K decode(String name);
+
+}
@@ -0,0 +1,94 @@
+package com.rsaladocid.util.data;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+
+/**
+ * The built-in {@link KeyCodec key codecs}
+ */
+public final class KeyCodecs {
+
+	private final static String CHARSET = "UTF-8";
+
+	/**
+	 * Encodes strings with percent-encoding, escaping every character that is not
+	 * a letter, a digit or <i>-</i>. Upper case letters are written in lower case
+	 * after a <i>_</i>, so keys that only differ in case have different names in
+	 * file systems that ignore the case.
+	 */
+	public final static KeyCodec<String> STRING = new KeyCodec<String>() {
+
+		@Override
+		public String encode(String key) {
+			String encoded;
+
+			try {
+				encoded = URLEncoder.encode(key, CHARSET).replace(".", "%2E").replace("*", "%2A").replace("+", "%20")
+						.replace("_", "%5F");
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+
+			StringBuilder name = new StringBuilder(encoded.length());
+			for (int i = 0; i < encoded.length(); i++) {
+				char c = encoded.charAt(i);
+
+				if (c == '%') {
+					// The hexadecimal digits of an escape are read in any case
+					name.append(encoded, i, i + 3);
+					i += 2;
+				} else if (c >= 'A' && c <= 'Z') {
+					name.append('_').append(Character.toLowerCase(c));
+				} else {
+					name.append(c);
+				}
+			}
+
+			return name.toString();
+		}
+
+		@Override
+		public String decode(String name) {
+			StringBuilder encoded = new StringBuilder(name.length());
+			for (int i = 0; i < name.length(); i++) {
+				char c = name.charAt(i);
+
+				if (c == '_' && i + 1 < name.length()) {
+					encoded.append(Character.toUpperCase(name.charAt(++i)));
+				} else {
+					encoded.append(c);
+				}
+			}
+
+			try {
+				return URLDecoder.decode(encoded.toString(), CHARSET);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+	};
+
+	/**
+	 * Encodes integers in decimal
+	 */
+	public final static KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+
+		@Override
+		public String encode(Integer key) {
+			return key.toString();
+		}
+
+		@Override
+		public Integer decode(String name) {
+			return Integer.valueOf(name);
+		}
+
+	};
+
+	private KeyCodecs() {
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.rsaladocid.util.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RecordClock} whose time only changes when it is set or advanced,
+ * intended for tests.
+ */
+public class ManualClock implements RecordClock {
+
+	private final TimeUnit unit;
+
+	private volatile long now;
+
+	/**
+	 * Creates a clock in milliseconds at the given time.
+	 * 
+	 * @param now
+	 *            the initial time in milliseconds
+	 */
+	public ManualClock(long now) {
+		this(now, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Creates a clock in the given unit at the given time.
+	 * 
+	 * @param now
+	 *            the initial time
+	 * @param unit
+	 *            the unit of the timestamps
+	 */
+	public ManualClock(long now, TimeUnit unit) {
+		this.now = now;
+		this.unit = unit;
+	}
+
+	@Override
+	public long currentTimestamp() {
+		return now;
+	}
+
+	@Override
+	public TimeUnit getUnit() {
+		return unit;
+	}
+
+	/**
+	 * Sets the current time
+	 * 
+	 * @param now
+	 *            the time, in the unit of this clock
+	 */
+	public synchronized void set(long now) {
+		this.now = now;
+	}
+
+	/**
+	 * Moves the current time forward
+	 * 
+	 * @param duration
+	 *            the time to move forward
+	 * @param unit
+	 *            the time unit of the duration
+	 */
+	public synchronized void advance(long duration, TimeUnit unit) {
+		now += this.unit.convert(duration, unit);
+	}
+
+}
@@ -0,0 +1,262 @@
+package com.rsaladocid.util.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A {@link RecordStore} that keeps the records of each key outside the heap, in
+ * memory-mapped files, so they survive restarts and do not add work to the
+ * garbage collector.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@code MappedDataStore<String, Double> store = new MappedDataStore<String, Double>(directory, KeyCodecs.STRING, RecordCodecs.DOUBLE);}
+ * {@code DataHistory<String, Double> history = new DataHistory<String, Double>(store);}
+ * history.putSingle("cpu", 0.42);
+ * store.close();
+ * // A new store on the same directory finds the records of "cpu" again
+ * </code>
+ * </pre>
+ * <p>
+ * Each key has a subdirectory, named <i>key-</i> followed by the name given
+ * by a {@link KeyCodec}, so the empty name is also valid, with segment files
+ * of fixed-width slots holding the timestamp and the value of each record,
+ * encoded by a {@link RecordCodec}. The heap only holds the keys and the
+ * mappings of their files. Opening a store remaps the files left by a previous
+ * one instead of reading them.
+ * </p>
+ * <p>
+ * The records of a key are kept in timestamp order, so they can only be
+ * appended and evicted from the oldest one. The records read from the store are
+ * copies: changing their values does not change the stored ones. The mapped
+ * files are written by the operating system; {@link #flush()} forces them to
+ * the storage device.
+ * </p>
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the value type of the records
+ */
+public class MappedDataStore<K, V> extends AbstractMap<K, Deque<DataRecord<V>>>
+		implements RecordStore<K, V>, Closeable {
+
+	/**
+	 * Number of slots of a segment file
+	 */
+	private final static int DEFAULT_SEGMENT_SLOTS = 65536;
+
+	/**
+	 * Prefix of the directory of every key, so no name resolves to the store
+	 * itself and other files in the directory are not taken for keys
+	 */
+	private final static String KEY_PREFIX = "key-";
+
+	private final Path directory;
+	private final KeyCodec<K> keys;
+	private final RecordCodec<V> codec;
+	private final int segmentSlots;
+
+	private final ConcurrentMap<K, Deque<DataRecord<V>>> deques = new ConcurrentHashMap<K, Deque<DataRecord<V>>>();
+
+	private final Function<K, Deque<DataRecord<V>>> factory = new Function<K, Deque<DataRecord<V>>>() {
+
+		@Override
+		public Deque<DataRecord<V>> apply(K key) {
+			try {
+				return MappedRecordDeque.create(directory.resolve(KEY_PREFIX + keys.encode(key)), codec,
+						segmentSlots);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+	};
+
+	/**
+	 * Opens a store in the given directory, remapping the records stored in it
+	 * 
+	 * @param directory
+	 *            the directory of the store, which is created if it does not exist
+	 * @param keys
+	 *            the codec of the keys
+	 * @param codec
+	 *            the codec of the values
+	 * @throws IOException
+	 *             if the directory or its files cannot be read
+	 */
+	public MappedDataStore(Path directory, KeyCodec<K> keys, RecordCodec<V> codec) throws IOException {
+		this(directory, keys, codec, DEFAULT_SEGMENT_SLOTS);
+	}
+
+	/**
+	 * Opens a store in the given directory, remapping the records stored in it
+	 * 
+	 * @param directory
+	 *            the directory of the store, which is created if it does not exist
+	 * @param keys
+	 *            the codec of the keys
+	 * @param codec
+	 *            the codec of the values
+	 * @param segmentSlots
+	 *            the number of records of each segment file of the new keys
+	 * @throws IOException
+	 *             if the directory or its files cannot be read
+	 */
+	public MappedDataStore(Path directory, KeyCodec<K> keys, RecordCodec<V> codec, int segmentSlots)
+			throws IOException {
+		if (segmentSlots <= 0) {
+			throw new IllegalArgumentException("Non-positive number of slots: " + segmentSlots);
+		}
+
+		this.directory = directory;
+		this.keys = keys;
+		this.codec = codec;
+		this.segmentSlots = segmentSlots;
+
+		Files.createDirectories(directory);
+
+		DirectoryStream<Path> stored = Files.newDirectoryStream(directory);
+		try {
+			for (Path path : stored) {
+				String name = path.getFileName().toString();
+
+				if (Files.isDirectory(path) && name.startsWith(KEY_PREFIX)) {
+					deques.put(keys.decode(name.substring(KEY_PREFIX.length())), MappedRecordDeque.open(path, codec));
+				}
+			}
+		} finally {
+			stored.close();
+		}
+	}
+
+	/**
+	 * Returns the directory of the store
+	 * 
+	 * @return the directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	@Override
+	public Deque<DataRecord<V>> getOrCreate(K key) {
+		Deque<DataRecord<V>> deque = deques.get(key);
+		return deque != null ? deque : deques.computeIfAbsent(key, factory);
+	}
+
+	@Override
+	public Deque<DataRecord<V>> get(Object key) {
+		return deques.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return deques.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		return deques.size();
+	}
+
+	/**
+	 * Replaces the records of the given key with a copy of the given ones
+	 * 
+	 * @return an on-heap copy of the previous records of the key, or
+	 *         <code>null</code> if the key did not exist
+	 */
+	@Override
+	public Deque<DataRecord<V>> put(K key, Deque<DataRecord<V>> value) {
+		if (value == deques.get(key)) {
+			return value;
+		}
+
+		Deque<DataRecord<V>> previous = remove(key);
+		Deque<DataRecord<V>> deque = getOrCreate(key);
+
+		for (DataRecord<V> record : value) {
+			deque.add(record);
+		}
+
+		return previous;
+	}
+
+	/**
+	 * Removes the given key and deletes its files
+	 * 
+	 * @return an on-heap copy of the records of the key, or <code>null</code> if
+	 *         the key did not exist
+	 */
+	@Override
+	public Deque<DataRecord<V>> remove(Object key) {
+		MappedRecordDeque<V> deque = (MappedRecordDeque<V>) deques.remove(key);
+
+		if (deque == null) {
+			return null;
+		}
+
+		Deque<DataRecord<V>> records = new ArrayDeque<DataRecord<V>>(deque);
+
+		try {
+			deque.delete();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return records;
+	}
+
+	@Override
+	public void clear() {
+		for (K key : deques.keySet()) {
+			remove(key);
+		}
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return Collections.unmodifiableSet(deques.keySet());
+	}
+
+	@Override
+	public Set<Entry<K, Deque<DataRecord<V>>>> entrySet() {
+		return Collections.unmodifiableMap(deques).entrySet();
+	}
+
+	/**
+	 * Writes the records to the storage device
+	 */
+	public void flush() {
+		for (Deque<DataRecord<V>> deque : deques.values()) {
+			((MappedRecordDeque<V>) deque).force();
+		}
+	}
+
+	/**
+	 * Writes the records to the storage device. The files are unmapped when the
+	 * store is garbage collected.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+}
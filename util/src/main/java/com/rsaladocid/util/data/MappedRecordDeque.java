@@ -0,0 +1,551 @@
+package com.rsaladocid.util.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * The records of a key of a {@link MappedDataStore}, stored in memory-mapped
+ * segment files of fixed-width slots under a directory of their own.
+ * </p>
+ * <p>
+ * Each slot holds the timestamp of a record in 8 bytes followed by its value,
+ * encoded by a {@link RecordCodec}. Slots are numbered from the creation of the
+ * key, and slot <i>n</i> lives in segment <i>n / segmentSlots</i>. A small
+ * mapped header keeps the number of the first live slot and of the next slot to
+ * write, so the records are found again when the directory is reopened.
+ * Segments are created as the records are appended, and deleted once all their
+ * records are evicted.
+ * </p>
+ * <p>
+ * Appends and evictions are serialized on the deque. Reads never lock: they
+ * read the published slot numbers and then the slots, and retry if the
+ * segment they read has been deleted meanwhile. Records are decoded on every
+ * read, so the returned {@link DataRecord} objects are copies, except the most
+ * recent one, which is kept to avoid decoding it on every
+ * {@link #peekLast()}.
+ * </p>
+ */
+final class MappedRecordDeque<V> extends AppendOnlyDeque<V> {
+
+	private final static int MAGIC = 0x44485331;
+
+	private final static String HEADER = "header";
+	private final static String SEGMENT_SUFFIX = ".seg";
+
+	private final static int HEADER_SIZE = 32;
+	private final static int MAGIC_OFFSET = 0;
+	private final static int WIDTH_OFFSET = 4;
+	private final static int FIRST_OFFSET = 8;
+	private final static int END_OFFSET = 16;
+	private final static int SEGMENT_SLOTS_OFFSET = 24;
+
+	private final Path directory;
+	private final RecordCodec<V> codec;
+	private final int width;
+	private final int segmentSlots;
+	private final MappedByteBuffer header;
+
+	/**
+	 * The mapped segments from the one of the first live slot. It is only
+	 * replaced when it is full or most of its segments have been deleted, and it
+	 * is written again after every change so readers see the changed segments.
+	 */
+	private volatile Segments segments = new Segments(new MappedByteBuffer[0], 0);
+
+	private volatile long first;
+	private volatile long end;
+	private volatile DataRecord<V> last;
+
+	private MappedRecordDeque(Path directory, RecordCodec<V> codec, int segmentSlots, MappedByteBuffer header) {
+		this.directory = directory;
+		this.codec = codec;
+		this.width = 8 + codec.size();
+		this.segmentSlots = segmentSlots;
+		this.header = header;
+	}
+
+	/**
+	 * Creates the deque of a new key in the given directory
+	 */
+	static <V> MappedRecordDeque<V> create(Path directory, RecordCodec<V> codec, int segmentSlots)
+			throws IOException {
+		Files.createDirectories(directory);
+
+		MappedRecordDeque<V> deque = new MappedRecordDeque<V>(directory, codec, segmentSlots,
+				map(directory.resolve(HEADER), HEADER_SIZE));
+		deque.header.putInt(MAGIC_OFFSET, MAGIC);
+		deque.header.putInt(WIDTH_OFFSET, deque.width);
+		deque.header.putLong(FIRST_OFFSET, 0);
+		deque.header.putLong(END_OFFSET, 0);
+		deque.header.putInt(SEGMENT_SLOTS_OFFSET, segmentSlots);
+
+		return deque;
+	}
+
+	/**
+	 * Remaps the deque stored in the given directory
+	 */
+	static <V> MappedRecordDeque<V> open(Path directory, RecordCodec<V> codec) throws IOException {
+		MappedByteBuffer header = map(directory.resolve(HEADER), HEADER_SIZE);
+
+		if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+			throw new IOException("Not a record file: " + directory);
+		} else if (header.getInt(WIDTH_OFFSET) != 8 + codec.size()) {
+			throw new IOException("Records of " + directory + " do not match the size of the codec");
+		} else if (header.getInt(SEGMENT_SLOTS_OFFSET) <= 0) {
+			throw new IOException("Non-positive number of slots in " + directory + ": "
+					+ header.getInt(SEGMENT_SLOTS_OFFSET));
+		}
+
+		MappedRecordDeque<V> deque = new MappedRecordDeque<V>(directory, codec,
+				header.getInt(SEGMENT_SLOTS_OFFSET), header);
+		deque.first = header.getLong(FIRST_OFFSET);
+		deque.end = header.getLong(END_OFFSET);
+
+		if (deque.first < deque.end) {
+			for (long segment = deque.first / deque.segmentSlots; segment <= (deque.end - 1)
+					/ deque.segmentSlots; segment++) {
+				deque.segment(segment, false);
+			}
+
+			deque.last = deque.read(deque.end - 1);
+		}
+
+		return deque;
+	}
+
+	private static MappedByteBuffer map(Path file, long size) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+
+		try {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the mapped segment of the given number, mapping it if needed
+	 */
+	private MappedByteBuffer segment(long number, boolean create) throws IOException {
+		Segments segments = this.segments;
+		MappedByteBuffer segment = segments.get(number);
+
+		if (segment != null) {
+			return segment;
+		}
+
+		Path file = directory.resolve(number + SEGMENT_SUFFIX);
+		if (!create && !Files.exists(file)) {
+			throw new IOException("Missing segment " + file);
+		}
+
+		segment = map(file, (long) segmentSlots * width);
+
+		if (number < segments.base || number - segments.base >= segments.buffers.length) {
+			// Starts from the segment of the first live slot, with room to grow
+			long base = Math.min(first / segmentSlots, number);
+			segments = segments.copy(base, (int) Math.max(2 * (number - base + 1), 4));
+		}
+
+		segments.buffers[(int) (number - segments.base)] = segment;
+		this.segments = segments;
+
+		return segment;
+	}
+
+	/**
+	 * Returns the segment of the given slot, or <code>null</code> if it has been
+	 * deleted
+	 */
+	private MappedByteBuffer segmentOf(long slot) {
+		return segments.get(slot / segmentSlots);
+	}
+
+	private int offsetOf(long slot) {
+		return (int) (slot % segmentSlots) * width;
+	}
+
+	/**
+	 * Reads the record of the given slot, or returns <code>null</code> if its
+	 * segment has been deleted
+	 */
+	private DataRecord<V> read(long slot) {
+		MappedByteBuffer segment = segmentOf(slot);
+
+		if (segment == null) {
+			return null;
+		}
+
+		int offset = offsetOf(slot);
+		return new SlotRecord<V>(codec.decode(segment, offset + 8), segment.getLong(offset), slot);
+	}
+
+	/**
+	 * Reads the timestamp of the given slot, or returns <code>null</code> if its
+	 * segment has been deleted
+	 */
+	private Long timestamp(long slot) {
+		MappedByteBuffer segment = segmentOf(slot);
+		return segment != null ? segment.getLong(offsetOf(slot)) : null;
+	}
+
+	@Override
+	public synchronized boolean offerLast(DataRecord<V> record) {
+		if (record == null) {
+			throw new NullPointerException();
+		}
+
+		long slot = end;
+		MappedByteBuffer segment;
+
+		try {
+			segment = segment(slot / segmentSlots, true);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		int offset = offsetOf(slot);
+		codec.encode(record.getValue(), segment, offset + 8);
+		segment.putLong(offset, record.getTimestamp());
+
+		header.putLong(END_OFFSET, slot + 1);
+		last = record;
+		end = slot + 1;
+
+		return true;
+	}
+
+	@Override
+	public synchronized DataRecord<V> pollFirst() {
+		if (first == end) {
+			return null;
+		}
+
+		DataRecord<V> record = read(first);
+		advance();
+
+		return record;
+	}
+
+	@Override
+	synchronized boolean pollFirstIf(DataRecord<V> expected) {
+		if (first == end) {
+			return false;
+		}
+
+		if (expected instanceof SlotRecord) {
+			if (((SlotRecord<V>) expected).slot != first) {
+				return false;
+			}
+		} else if (expected != last || first != end - 1) {
+			return false;
+		}
+
+		advance();
+		return true;
+	}
+
+	/**
+	 * Evicts the first slot, deleting its segment if it was the last slot of it
+	 */
+	private void advance() {
+		long slot = first;
+
+		header.putLong(FIRST_OFFSET, slot + 1);
+		first = slot + 1;
+
+		if (first == end) {
+			last = null;
+		}
+
+		if ((slot + 1) % segmentSlots == 0) {
+			delete(slot / segmentSlots);
+		}
+	}
+
+	private void delete(long number) {
+		Segments segments = this.segments;
+		segments.buffers[(int) (number - segments.base)] = null;
+
+		// Drops the deleted segments once they are most of the array
+		long deleted = number + 1 - segments.base;
+		if (deleted * 2 > segments.buffers.length) {
+			segments = segments.copy(number + 1, segments.buffers.length);
+		}
+
+		this.segments = segments;
+
+		try {
+			Files.deleteIfExists(directory.resolve(number + SEGMENT_SUFFIX));
+		} catch (IOException e) {
+			// The file stays until the directory is deleted; it is not read again
+		}
+	}
+
+	@Override
+	public DataRecord<V> peekFirst() {
+		while (true) {
+			long first = this.first;
+
+			if (first >= end) {
+				return null;
+			}
+
+			DataRecord<V> record = read(first);
+			if (record != null) {
+				return record;
+			}
+		}
+	}
+
+	@Override
+	public DataRecord<V> peekLast() {
+		DataRecord<V> last = this.last;
+		return first < end ? last : null;
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.min(end - first, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public synchronized void clear() {
+		while (first < end) {
+			advance();
+		}
+	}
+
+	/**
+	 * Deletes the files of this deque
+	 */
+	synchronized void delete() throws IOException {
+		clear();
+
+		DirectoryStream<Path> files = Files.newDirectoryStream(directory);
+		try {
+			for (Path file : files) {
+				Files.deleteIfExists(file);
+			}
+		} finally {
+			files.close();
+		}
+
+		Files.deleteIfExists(directory);
+	}
+
+	/**
+	 * Writes the mapped changes to the storage device
+	 */
+	void force() {
+		header.force();
+
+		for (MappedByteBuffer segment : segments.buffers) {
+			if (segment != null) {
+				segment.force();
+			}
+		}
+	}
+
+	@Override
+	public DataRecord<V> floor(long timestamp) {
+		retry: while (true) {
+			long low = first;
+			long high = end - 1;
+			long found = -1;
+
+			while (low <= high) {
+				long middle = (low + high) >>> 1;
+				Long current = timestamp(middle);
+
+				if (current == null) {
+					continue retry;
+				}
+
+				if (current <= timestamp) {
+					found = middle;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+
+			if (found < 0) {
+				return null;
+			}
+
+			DataRecord<V> record = read(found);
+			if (record != null) {
+				return record;
+			}
+		}
+	}
+
+	@Override
+	public List<DataRecord<V>> range(long from, long to) {
+		retry: while (true) {
+			long low = first;
+			long high = end;
+			long limit = high;
+
+			// Finds the first record not before the start time
+			while (low < high) {
+				long middle = (low + high) >>> 1;
+				Long current = timestamp(middle);
+
+				if (current == null) {
+					continue retry;
+				}
+
+				if (current < from) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+
+			List<DataRecord<V>> records = new ArrayList<DataRecord<V>>();
+
+			for (long slot = low; slot < limit; slot++) {
+				DataRecord<V> record = read(slot);
+
+				if (record == null) {
+					continue retry;
+				} else if (record.getTimestamp() > to) {
+					break;
+				}
+
+				records.add(record);
+			}
+
+			return Collections.unmodifiableList(records);
+		}
+	}
+
+	@Override
+	public Iterator<DataRecord<V>> iterator() {
+		return new SlotIterator(first, end, false);
+	}
+
+	@Override
+	public Iterator<DataRecord<V>> descendingIterator() {
+		return new SlotIterator(first, end, true);
+	}
+
+	/**
+	 * A record read from a slot, which remembers the slot so it can be evicted
+	 * conditionally
+	 */
+	private static class SlotRecord<V> extends ImmutableDataRecord<V> {
+
+		private final long slot;
+
+		SlotRecord(V value, long timestamp, long slot) {
+			super(value, timestamp);
+			this.slot = slot;
+		}
+
+	}
+
+	/**
+	 * The mapped segments indexed by segment number minus <code>base</code>, where
+	 * deleted and not yet created segments are <code>null</code>
+	 */
+	private static class Segments {
+
+		private final MappedByteBuffer[] buffers;
+		private final long base;
+
+		Segments(MappedByteBuffer[] buffers, long base) {
+			this.buffers = buffers;
+			this.base = base;
+		}
+
+		MappedByteBuffer get(long number) {
+			long index = number - base;
+			return index >= 0 && index < buffers.length ? buffers[(int) index] : null;
+		}
+
+		/**
+		 * Returns a copy of the segments from the given number, in an array of the
+		 * given length
+		 */
+		Segments copy(long base, int length) {
+			MappedByteBuffer[] buffers = new MappedByteBuffer[length];
+
+			for (int i = 0; i < length; i++) {
+				buffers[i] = get(base + i);
+			}
+
+			return new Segments(buffers, base);
+		}
+
+	}
+
+	/**
+	 * Iterates the slots that were live when the iterator was created, skipping
+	 * the ones evicted meanwhile
+	 */
+	private class SlotIterator implements Iterator<DataRecord<V>> {
+
+		private final long from;
+		private final long to;
+		private final boolean descending;
+
+		private long position;
+		private DataRecord<V> next;
+
+		SlotIterator(long from, long to, boolean descending) {
+			this.from = from;
+			this.to = to;
+			this.descending = descending;
+			this.position = descending ? to - 1 : from;
+
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+
+			while (next == null && position >= from && position < to) {
+				if (position >= first) {
+					next = read(position);
+				}
+
+				position += descending ? -1 : 1;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public DataRecord<V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			DataRecord<V> record = next;
+			advance();
+			return record;
+		}
+
+	}
+
+}
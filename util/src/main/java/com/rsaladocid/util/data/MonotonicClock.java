@@ -0,0 +1,58 @@
+package com.rsaladocid.util.data;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A {@link RecordClock} in nanoseconds since the epoch that never goes back and
+ * never returns the same timestamp twice, so it orders the records written
+ * within the same millisecond.
+ * </p>
+ * <p>
+ * The time is measured with {@link System#nanoTime()} from the time of the
+ * system when the clock is created, so later adjustments of the system time do
+ * not affect it.
+ * </p>
+ * <p>
+ * Every timestamp of a clock is taken with a compare-and-set on a single
+ * shared counter, so a clock shared by many writers becomes a point of
+ * contention under heavy write load, even when they write to different keys.
+ * The histories already keep the records of each key in timestamp order with
+ * any clock, so this clock is only worth its cost when records written within
+ * the same millisecond must also be ordered across keys. It is never used
+ * unless given to a history explicitly.
+ * </p>
+ */
+public class MonotonicClock implements RecordClock {
+
+	private final long origin;
+	private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Creates a clock that starts at the current time of the system.
+	 */
+	public MonotonicClock() {
+		origin = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+	}
+
+	@Override
+	public long currentTimestamp() {
+		long now = origin + System.nanoTime();
+
+		while (true) {
+			long previous = last.get();
+			long next = now > previous ? now : previous + 1;
+
+			if (last.compareAndSet(previous, next)) {
+				return next;
+			}
+		}
+	}
+
+	@Override
+	public TimeUnit getUnit() {
+		return TimeUnit.NANOSECONDS;
+	}
+
+}
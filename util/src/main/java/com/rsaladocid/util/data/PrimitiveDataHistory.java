@@ -0,0 +1,279 @@
+package com.rsaladocid.util.data;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * The common part of the histories of primitive values, where each key has a
+ * {@link PrimitiveRing} of a fixed capacity.
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the wrapper type of the values, used by the {@link DataRecord}
+ *            views
+ * @param <R>
+ *            the type of the rings
+ */
+abstract class PrimitiveDataHistory<K, V, R extends PrimitiveRing> {
+
+	private final static int DEFAULT_CAPACITY = 1024;
+
+	private final int capacity;
+	private final RecordClock clock;
+	private final ConcurrentMap<K, R> rings = new ConcurrentHashMap<K, R>();
+	private final Function<K, R> factory;
+
+	PrimitiveDataHistory(int capacity, RecordClock clock) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Non-positive capacity: " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.clock = clock;
+		this.factory = new Function<K, R>() {
+
+			@Override
+			public R apply(K key) {
+				return newRing(PrimitiveDataHistory.this.capacity);
+			}
+
+		};
+	}
+
+	PrimitiveDataHistory(int capacity) {
+		this(capacity, RecordClocks.SYSTEM);
+	}
+
+	PrimitiveDataHistory() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns the current time of the clock of this history
+	 */
+	final long currentTimestamp() {
+		return clock.currentTimestamp();
+	}
+
+	abstract R newRing(int capacity);
+
+	abstract DataRecord<V> toRecord(R ring, int slot);
+
+	/**
+	 * Returns the ring of the given key, creating it if it does not exist
+	 */
+	final R ringOf(K key) {
+		R ring = rings.get(key);
+		return ring != null ? ring : rings.computeIfAbsent(key, factory);
+	}
+
+	/**
+	 * Returns the ring of the given key, or throws an exception if the key has no
+	 * ring. The ring is created before its first record is appended, so the
+	 * caller must also check that it is not empty with
+	 * {@link #checkNotEmpty(Object, PrimitiveRing)} while holding its lock.
+	 */
+	final R nonEmptyRingOf(K key) {
+		R ring = rings.get(key);
+
+		if (ring == null) {
+			throw new NoSuchElementException("No records for key " + key);
+		}
+
+		return ring;
+	}
+
+	/**
+	 * Throws an exception if the given ring of the given key has no records. Must
+	 * be called while holding the lock of the ring.
+	 */
+	final void checkNotEmpty(K key, R ring) {
+		if (ring.size() == 0) {
+			throw new NoSuchElementException("No records for key " + key);
+		}
+	}
+
+	/**
+	 * Returns the maximum number of records kept for each key
+	 * 
+	 * @return the capacity of each key
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the keys that have records
+	 * 
+	 * @return a live view of the keys, which may include a key whose first record
+	 *         is being written
+	 */
+	public Set<K> keySet() {
+		return Collections.unmodifiableSet(rings.keySet());
+	}
+
+	/**
+	 * Returns whether the given key has records
+	 * 
+	 * @param key
+	 *            the key
+	 * @return <code>true</code> if the key has records, otherwise
+	 *         <code>false</code>
+	 */
+	public boolean containsKey(K key) {
+		return size(key) > 0;
+	}
+
+	/**
+	 * Returns the number of keys
+	 * 
+	 * @return the number of keys
+	 */
+	public int size() {
+		return rings.size();
+	}
+
+	/**
+	 * Returns the number of records of the given key
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the number of records, which is never greater than the capacity
+	 */
+	public int size(K key) {
+		R ring = rings.get(key);
+
+		if (ring == null) {
+			return 0;
+		}
+
+		synchronized (ring) {
+			return ring.size();
+		}
+	}
+
+	/**
+	 * Removes all the records of the given key
+	 * 
+	 * @param key
+	 *            the key
+	 */
+	public void remove(K key) {
+		rings.remove(key);
+	}
+
+	/**
+	 * Removes all the records
+	 */
+	public void clear() {
+		rings.clear();
+	}
+
+	/**
+	 * Returns the time in which the most recent value of the given key was set
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the timestamp, in the unit of the clock of this history
+	 * @throws NoSuchElementException
+	 *             if the key has no records
+	 */
+	public long getMostRecentTimestamp(K key) {
+		R ring = nonEmptyRingOf(key);
+
+		synchronized (ring) {
+			checkNotEmpty(key, ring);
+			return ring.timestamps[ring.last()];
+		}
+	}
+
+	/**
+	 * Returns a copy of the records of the given key as {@link DataRecord}, for
+	 * code written against {@link DataHistory}.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return a deque containing the records from the oldest to the most recent,
+	 *         or <code>null</code> if the key has no records
+	 * @see DataHistory#get(Object)
+	 */
+	public Deque<DataRecord<V>> get(K key) {
+		R ring = rings.get(key);
+
+		if (ring == null) {
+			return null;
+		}
+
+		synchronized (ring) {
+			if (ring.size() == 0) {
+				return null;
+			}
+
+			Deque<DataRecord<V>> records = new ArrayDeque<DataRecord<V>>(ring.size());
+
+			for (int i = 0; i < ring.size(); i++) {
+				records.add(toRecord(ring, ring.slot(i)));
+			}
+
+			return records;
+		}
+	}
+
+	/**
+	 * Returns the most recent value of the given key as a {@link DataRecord}
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the most recent record, or <code>null</code> if the key has no
+	 *         records
+	 * @see DataHistory#getMostRecent(Object)
+	 */
+	public DataRecord<V> getMostRecentRecord(K key) {
+		R ring = rings.get(key);
+
+		if (ring == null) {
+			return null;
+		}
+
+		synchronized (ring) {
+			if (ring.size() == 0) {
+				return null;
+			}
+
+			return toRecord(ring, ring.last());
+		}
+	}
+
+	/**
+	 * Returns a {@link Map} containing the most recent value of each key as a
+	 * {@link DataRecord}
+	 * 
+	 * @return the map containing the most recent record of each key
+	 * @see DataHistory#getAllMostRecent()
+	 */
+	public Map<K, DataRecord<V>> getAllMostRecent() {
+		Map<K, DataRecord<V>> allMostRecent = new HashMap<K, DataRecord<V>>();
+
+		for (Map.Entry<K, R> entry : rings.entrySet()) {
+			R ring = entry.getValue();
+
+			synchronized (ring) {
+				if (ring.size() > 0) {
+					allMostRecent.put(entry.getKey(), toRecord(ring, ring.last()));
+				}
+			}
+		}
+
+		return allMostRecent;
+	}
+
+}
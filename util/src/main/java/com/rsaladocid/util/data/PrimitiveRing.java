@@ -0,0 +1,81 @@
+package com.rsaladocid.util.data;
+
+/**
+ * A fixed-capacity ring of timestamps and primitive values, where a new value
+ * overwrites the oldest one once the ring is full. Callers synchronize on the
+ * ring.
+ */
+abstract class PrimitiveRing {
+
+	final long[] timestamps;
+
+	/**
+	 * Slot of the next value
+	 */
+	private int end;
+
+	private int size;
+
+	PrimitiveRing(int capacity) {
+		timestamps = new long[capacity];
+	}
+
+	/**
+	 * Stores the given timestamp in the next slot, overwriting the oldest value if
+	 * the ring is full, and returns the slot so the value can be stored as well
+	 */
+	int append(long timestamp) {
+		int slot = end;
+
+		timestamps[slot] = timestamp;
+		end = slot + 1 == timestamps.length ? 0 : slot + 1;
+
+		if (size < timestamps.length) {
+			size++;
+		}
+
+		return slot;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the slot of the i-th oldest value
+	 */
+	int slot(int i) {
+		int slot = end - size + i;
+		return slot < 0 ? slot + timestamps.length : slot;
+	}
+
+	/**
+	 * Returns the slot of the most recent value
+	 */
+	int last() {
+		return end == 0 ? timestamps.length - 1 : end - 1;
+	}
+
+	static class OfDouble extends PrimitiveRing {
+
+		final double[] values;
+
+		OfDouble(int capacity) {
+			super(capacity);
+			values = new double[capacity];
+		}
+
+	}
+
+	static class OfLong extends PrimitiveRing {
+
+		final long[] values;
+
+		OfLong(int capacity) {
+			super(capacity);
+			values = new long[capacity];
+		}
+
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.rsaladocid.util.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The source of the timestamps of the {@link DataRecord records} of a
+ * {@link DataHistory}.
+ * </p>
+ * <p>
+ * The timestamps of a history are expressed in the unit of its clock, which is
+ * also the unit of the times given to its time queries. Implementations must be
+ * thread-safe.
+ * </p>
+ *
+ * @see RecordClocks#SYSTEM
+ * @see CoarseClock
+ * @see MonotonicClock
+ * @see ManualClock
+ */
+public interface RecordClock {
+
+	/**
+	 * Returns the current time
+	 * 
+	 * @return the current timestamp, in the unit of this clock
+	 */
+	long currentTimestamp();
+
+	/**
+	 * Returns the unit of the timestamps of this clock
+	 * 
+	 * @return the time unit
+	 */
+	TimeUnit getUnit();
+
+}
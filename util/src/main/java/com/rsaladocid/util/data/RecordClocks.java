@@ -0,0 +1,33 @@
+package com.rsaladocid.util.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RecordClock clocks} that need no configuration
+ */
+public final class RecordClocks {
+
+	/**
+	 * The clock of the system, in milliseconds, used by default
+	 * 
+	 * @see System#currentTimeMillis()
+	 */
+	public final static RecordClock SYSTEM = new RecordClock() {
+
+		@Override
+		public long currentTimestamp() {
+			return System.currentTimeMillis();
+		}
+
+		@Override
+		public TimeUnit getUnit() {
+			return TimeUnit.MILLISECONDS;
+		}
+
+	};
+
+	private RecordClocks() {
+
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.rsaladocid.util.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes the values of the records in slots of a fixed number of bytes, for
+ * the stores that keep the records outside the heap.
+ *
+ * @param <V>
+ *            the value type
+ * @see RecordCodecs
+ * @see MappedDataStore
+ */
+public interface RecordCodec<V> {
+
+	/**
+	 * Returns the number of bytes of an encoded value
+	 *
+	 * @return the size of every encoded value
+	 */
+	int size();
+
+	/**
+	 * Writes the given value at the given position of the buffer, without
+	 * changing the position of the buffer
+	 *
+	 * @param value
+	 *            the value
+	 * @param buffer
+	 *            the buffer
+	 * @param offset
+	 *            the absolute position of the first byte
+	 * @throws IllegalArgumentException
+	 *             if the value cannot be encoded in {@link #size()} bytes
+	 */
+	void encode(V value, ByteBuffer buffer, int offset);
+
+	/**
+	 * Reads the value stored at the given position of the buffer, without
+	 * changing the position of the buffer
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param offset
+	 *            the absolute position of the first byte
+	 * @return the value
+	 */
+	V decode(ByteBuffer buffer, int offset);
+
+}
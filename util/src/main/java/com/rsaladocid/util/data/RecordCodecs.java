@@ -0,0 +1,134 @@
+package com.rsaladocid.util.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The built-in {@link RecordCodec record codecs}. The numeric codecs do not
+ * support <code>null</code> values.
+ */
+public final class RecordCodecs {
+
+	/**
+	 * Encodes doubles in 8 bytes
+	 */
+	public final static RecordCodec<Double> DOUBLE = new RecordCodec<Double>() {
+
+		@Override
+		public int size() {
+			return 8;
+		}
+
+		@Override
+		public void encode(Double value, ByteBuffer buffer, int offset) {
+			buffer.putDouble(offset, value);
+		}
+
+		@Override
+		public Double decode(ByteBuffer buffer, int offset) {
+			return buffer.getDouble(offset);
+		}
+
+	};
+
+	/**
+	 * Encodes longs in 8 bytes
+	 */
+	public final static RecordCodec<Long> LONG = new RecordCodec<Long>() {
+
+		@Override
+		public int size() {
+			return 8;
+		}
+
+		@Override
+		public void encode(Long value, ByteBuffer buffer, int offset) {
+			buffer.putLong(offset, value);
+		}
+
+		@Override
+		public Long decode(ByteBuffer buffer, int offset) {
+			return buffer.getLong(offset);
+		}
+
+	};
+
+	/**
+	 * Encodes integers in 4 bytes
+	 */
+	public final static RecordCodec<Integer> INTEGER = new RecordCodec<Integer>() {
+
+		@Override
+		public int size() {
+			return 4;
+		}
+
+		@Override
+		public void encode(Integer value, ByteBuffer buffer, int offset) {
+			buffer.putInt(offset, value);
+		}
+
+		@Override
+		public Integer decode(ByteBuffer buffer, int offset) {
+			return buffer.getInt(offset);
+		}
+
+	};
+
+	private RecordCodecs() {
+
+	}
+
+	/**
+	 * Returns a codec that encodes strings in UTF-8, in slots of the given number
+	 * of bytes plus 4 bytes for the length
+	 *
+	 * @param maxBytes
+	 *            the maximum number of bytes of an encoded string
+	 * @return the codec
+	 */
+	public static RecordCodec<String> string(final int maxBytes) {
+		return new RecordCodec<String>() {
+
+			@Override
+			public int size() {
+				return 4 + maxBytes;
+			}
+
+			@Override
+			public void encode(String value, ByteBuffer buffer, int offset) {
+				if (value == null) {
+					buffer.putInt(offset, -1);
+					return;
+				}
+
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				if (bytes.length > maxBytes) {
+					throw new IllegalArgumentException("String longer than " + maxBytes + " bytes: " + value);
+				}
+
+				buffer.putInt(offset, bytes.length);
+				for (int i = 0; i < bytes.length; i++) {
+					buffer.put(offset + 4 + i, bytes[i]);
+				}
+			}
+
+			@Override
+			public String decode(ByteBuffer buffer, int offset) {
+				int length = buffer.getInt(offset);
+				if (length < 0) {
+					return null;
+				}
+
+				byte[] bytes = new byte[length];
+				for (int i = 0; i < length; i++) {
+					bytes[i] = buffer.get(offset + 4 + i);
+				}
+
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,389 @@
+package com.rsaladocid.util.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * The records of a key of a {@link DataHistory}, appended at the tail and
+ * evicted from the head without locks.
+ * </p>
+ * <p>
+ * The records are stored in an array and the live ones are delimited by an
+ * immutable {@link Window}, which is replaced with a compare-and-set on every
+ * change. A writer first claims the slot after the window with a
+ * compare-and-set on the slot, and then publishes it by advancing the window;
+ * a writer that finds the slot claimed helps to publish it and retries, so no
+ * writer waits for another one. The array is only replaced by a larger copy
+ * when every slot has been published, so a claimed slot is never lost.
+ * </p>
+ * <p>
+ * Readers take the current window and read its slots, never locking. Evicted
+ * slots are overwritten with a marker, so the records can be collected, and a
+ * reader that finds the marker retries with the new window. Iterators are
+ * weakly consistent: they skip the records evicted while iterating and do not
+ * see the records appended afterwards.
+ * </p>
+ * <p>
+ * As the records are kept in timestamp order in an array, searches by
+ * timestamp are binary searches over the live window.
+ * </p>
+ */
+final class RecordDeque<V> extends AppendOnlyDeque<V> {
+
+	private final static int INITIAL_CAPACITY = 16;
+
+	private final static DataRecord<Object> REMOVED = new ImmutableDataRecord<Object>(null, 0);
+
+	private final AtomicReference<Window<V>> window;
+
+	RecordDeque() {
+		window = new AtomicReference<Window<V>>(
+				new Window<V>(new AtomicReferenceArray<DataRecord<V>>(0), 0, 0, Long.MIN_VALUE));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> DataRecord<V> removed() {
+		return (DataRecord<V>) (DataRecord<?>) REMOVED;
+	}
+
+	@Override
+	public boolean offerLast(DataRecord<V> record) {
+		if (record == null) {
+			throw new NullPointerException();
+		}
+
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.to == current.slots.length()) {
+				grow(current);
+			} else if (current.slots.compareAndSet(current.to, null, record)) {
+				publish(current.slots, current.to);
+				return true;
+			} else {
+				help(current);
+			}
+		}
+	}
+
+	/**
+	 * Appends a record of the given value without locking. The timestamp is read
+	 * before claiming the slot and raised to the one of the record before the
+	 * slot, so a writer that claims a slot has always read a timestamp not before
+	 * the previous record, and concurrent appends keep the timestamp order.
+	 */
+	@Override
+	DataRecord<V> append(V value, RecordClock clock) {
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.to == current.slots.length()) {
+				grow(current);
+				continue;
+			}
+
+			long timestamp = Math.max(clock.currentTimestamp(), current.last);
+			DataRecord<V> record = new ImmutableDataRecord<V>(value, timestamp);
+
+			if (current.slots.compareAndSet(current.to, null, record)) {
+				publish(current.slots, current.to);
+				return record;
+			} else {
+				help(current);
+			}
+		}
+	}
+
+	/**
+	 * Publishes the slot after the given window, claimed by another writer
+	 */
+	private void help(Window<V> current) {
+		window.compareAndSet(current, current.append());
+	}
+
+	/**
+	 * Advances the window until it includes the given claimed slot
+	 */
+	private void publish(AtomicReferenceArray<DataRecord<V>> slots, int slot) {
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.slots != slots || current.to > slot) {
+				return;
+			}
+
+			window.compareAndSet(current, current.append());
+		}
+	}
+
+	/**
+	 * Replaces the full array of the given window with a copy of its live records
+	 * with room for as many new ones
+	 */
+	private void grow(Window<V> current) {
+		int size = current.to - current.from;
+		AtomicReferenceArray<DataRecord<V>> slots = new AtomicReferenceArray<DataRecord<V>>(
+				Math.max(INITIAL_CAPACITY, size * 2));
+
+		for (int i = 0; i < size; i++) {
+			slots.lazySet(i, current.slots.get(current.from + i));
+		}
+
+		window.compareAndSet(current, new Window<V>(slots, 0, size, current.last));
+	}
+
+	@Override
+	public DataRecord<V> pollFirst() {
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.from == current.to) {
+				return null;
+			}
+
+			DataRecord<V> record = current.slots.get(current.from);
+
+			if (window.compareAndSet(current, new Window<V>(current.slots, current.from + 1, current.to, current.last))) {
+				current.slots.set(current.from, RecordDeque.<V> removed());
+				return record;
+			}
+		}
+	}
+
+	@Override
+	boolean pollFirstIf(DataRecord<V> expected) {
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.from == current.to || current.slots.get(current.from) != expected) {
+				return false;
+			}
+
+			if (window.compareAndSet(current, new Window<V>(current.slots, current.from + 1, current.to, current.last))) {
+				current.slots.set(current.from, RecordDeque.<V> removed());
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public DataRecord<V> peekFirst() {
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.from == current.to) {
+				return null;
+			}
+
+			DataRecord<V> record = current.slots.get(current.from);
+			if (record != REMOVED) {
+				return record;
+			}
+		}
+	}
+
+	@Override
+	public DataRecord<V> peekLast() {
+		while (true) {
+			Window<V> current = window.get();
+
+			if (current.from == current.to) {
+				return null;
+			}
+
+			DataRecord<V> record = current.slots.get(current.to - 1);
+			if (record != REMOVED) {
+				return record;
+			}
+		}
+	}
+
+	@Override
+	public DataRecord<V> floor(long timestamp) {
+		retry: while (true) {
+			Window<V> current = window.get();
+			DataRecord<V> found = null;
+
+			int low = current.from;
+			int high = current.to - 1;
+
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				DataRecord<V> record = current.slots.get(middle);
+
+				if (record == REMOVED) {
+					continue retry;
+				}
+
+				if (record.getTimestamp() <= timestamp) {
+					found = record;
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+
+			return found;
+		}
+	}
+
+	@Override
+	public List<DataRecord<V>> range(long from, long to) {
+		retry: while (true) {
+			Window<V> current = window.get();
+
+			int low = current.from;
+			int high = current.to;
+
+			// Finds the first record not before the start time
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				DataRecord<V> record = current.slots.get(middle);
+
+				if (record == REMOVED) {
+					continue retry;
+				}
+
+				if (record.getTimestamp() < from) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+
+			List<DataRecord<V>> records = new ArrayList<DataRecord<V>>();
+
+			for (int i = low; i < current.to; i++) {
+				DataRecord<V> record = current.slots.get(i);
+
+				if (record == REMOVED) {
+					continue retry;
+				} else if (record.getTimestamp() > to) {
+					break;
+				}
+
+				records.add(record);
+			}
+
+			return Collections.unmodifiableList(records);
+		}
+	}
+
+	@Override
+	public int size() {
+		Window<V> current = window.get();
+		return current.to - current.from;
+	}
+
+	@Override
+	public void clear() {
+		while (true) {
+			Window<V> current = window.get();
+
+			// Keeps the array, so a writer that has claimed a slot can still publish it
+			if (window.compareAndSet(current, new Window<V>(current.slots, current.to, current.to, current.last))) {
+				for (int i = current.from; i < current.to; i++) {
+					current.slots.set(i, RecordDeque.<V> removed());
+				}
+
+				return;
+			}
+		}
+	}
+
+	@Override
+	public Iterator<DataRecord<V>> iterator() {
+		return new WindowIterator<V>(window.get(), false);
+	}
+
+	@Override
+	public Iterator<DataRecord<V>> descendingIterator() {
+		return new WindowIterator<V>(window.get(), true);
+	}
+
+	/**
+	 * The live slots of an array, from <code>from</code> (inclusive) to
+	 * <code>to</code> (exclusive), and the timestamp of the last record appended,
+	 * even if it has been evicted
+	 */
+	private static class Window<V> {
+
+		private final AtomicReferenceArray<DataRecord<V>> slots;
+		private final int from;
+		private final int to;
+		private final long last;
+
+		Window(AtomicReferenceArray<DataRecord<V>> slots, int from, int to, long last) {
+			this.slots = slots;
+			this.from = from;
+			this.to = to;
+			this.last = last;
+		}
+
+		/**
+		 * Returns the window that includes the claimed slot after this one
+		 */
+		Window<V> append() {
+			return new Window<V>(slots, from, to + 1, Math.max(last, slots.get(to).getTimestamp()));
+		}
+
+	}
+
+	private static class WindowIterator<V> implements Iterator<DataRecord<V>> {
+
+		private final AtomicReferenceArray<DataRecord<V>> slots;
+		private final int from;
+		private final int to;
+		private final boolean descending;
+
+		private int position;
+		private DataRecord<V> next;
+
+		WindowIterator(Window<V> window, boolean descending) {
+			this.slots = window.slots;
+			this.from = window.from;
+			this.to = window.to;
+			this.descending = descending;
+			this.position = descending ? to - 1 : from;
+
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+
+			while (next == null && position >= from && position < to) {
+				DataRecord<V> record = slots.get(position);
+				position += descending ? -1 : 1;
+
+				if (record != REMOVED) {
+					next = record;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public DataRecord<V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			DataRecord<V> record = next;
+			advance();
+			return record;
+		}
+
+	}
+
+}
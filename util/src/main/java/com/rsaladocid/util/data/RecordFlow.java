@@ -0,0 +1,103 @@
+package com.rsaladocid.util.data;
+
+/**
+ * <p>
+ * The interfaces of the reactive streams published by a {@link DataHistory}.
+ * </p>
+ * <p>
+ * They have the same methods and contract as the interfaces of
+ * <code>java.util.concurrent.Flow</code>, so a subscriber can be adapted to
+ * them by delegating each method: the subscriber signals its demand through
+ * {@link Subscription#request(long)} and receives at most that many items.
+ * </p>
+ *
+ * @see DataHistory#getPublisher(Object)
+ */
+public final class RecordFlow {
+
+	private RecordFlow() {
+
+	}
+
+	/**
+	 * A producer of items that are received by its subscribers
+	 *
+	 * @param <T>
+	 *            the type of the published items
+	 */
+	public interface Publisher<T> {
+
+		/**
+		 * Adds the given subscriber, which is notified with
+		 * {@link Subscriber#onSubscribe(Subscription)} before receiving any item.
+		 *
+		 * @param subscriber
+		 *            the subscriber
+		 */
+		void subscribe(Subscriber<? super T> subscriber);
+
+	}
+
+	/**
+	 * A receiver of the items of a {@link Publisher}
+	 *
+	 * @param <T>
+	 *            the type of the received items
+	 */
+	public interface Subscriber<T> {
+
+		/**
+		 * Invoked once before any other method of the subscription.
+		 *
+		 * @param subscription
+		 *            the subscription used to request items or cancel
+		 */
+		void onSubscribe(Subscription subscription);
+
+		/**
+		 * Invoked with the next item, only while there is outstanding demand.
+		 *
+		 * @param item
+		 *            the item
+		 */
+		void onNext(T item);
+
+		/**
+		 * Invoked when the subscription fails; no other method is invoked
+		 * afterwards.
+		 *
+		 * @param throwable
+		 *            the cause of the failure
+		 */
+		void onError(Throwable throwable);
+
+		/**
+		 * Invoked when no more items will be published; no other method is
+		 * invoked afterwards.
+		 */
+		void onComplete();
+
+	}
+
+	/**
+	 * The link between a {@link Publisher} and one of its {@link Subscriber
+	 * subscribers}
+	 */
+	public interface Subscription {
+
+		/**
+		 * Adds the given number of items to the demand of the subscriber.
+		 *
+		 * @param n
+		 *            the number of items, which must be positive
+		 */
+		void request(long n);
+
+		/**
+		 * Stops receiving items.
+		 */
+		void cancel();
+
+	}
+
+}
@@ -0,0 +1,226 @@
+package com.rsaladocid.util.data;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A {@link RecordFlow.Publisher} that delivers the published items to each
+ * subscriber from an {@link Executor}, so publishing never waits for the
+ * subscribers.
+ * </p>
+ * <p>
+ * Each subscriber has a bounded buffer of the items published but not yet
+ * requested. When a slow subscriber fills its buffer, its oldest buffered item
+ * is dropped in favour of the new one, so writers are never blocked and the
+ * subscriber always catches up with the most recent items.
+ * </p>
+ * <p>
+ * Once the publisher is {@link #close() closed}, each subscriber receives the
+ * items buffered for it and is then completed. A subscriber whose
+ * {@link RecordFlow.Subscriber#onNext(Object)} throws an exception receives it
+ * through {@link RecordFlow.Subscriber#onError(Throwable)} and is cancelled.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the published items
+ */
+final class RecordPublisher<T> implements RecordFlow.Publisher<T> {
+
+	private final Executor executor;
+	private final int capacity;
+
+	private final CopyOnWriteArrayList<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<BufferedSubscription>();
+
+	private volatile boolean closed;
+
+	RecordPublisher(Executor executor, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Non-positive capacity: " + capacity);
+		}
+
+		this.executor = executor;
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void subscribe(RecordFlow.Subscriber<? super T> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException();
+		}
+
+		BufferedSubscription subscription = new BufferedSubscription(subscriber);
+
+		// Added once the subscriber knows its subscription, so no item or signal
+		// is delivered before or during onSubscribe
+		subscriber.onSubscribe(subscription);
+		subscriptions.add(subscription);
+		subscription.start();
+
+		// Checked after adding it, so it is completed here or by close
+		if (closed) {
+			subscription.complete();
+		}
+	}
+
+	/**
+	 * Returns whether there is any subscriber, so the caller can avoid creating
+	 * items nobody receives
+	 */
+	boolean hasSubscribers() {
+		return !subscriptions.isEmpty();
+	}
+
+	/**
+	 * Buffers the given item for every subscriber and schedules its delivery
+	 */
+	void publish(T item) {
+		for (BufferedSubscription subscription : subscriptions) {
+			subscription.offer(item);
+		}
+	}
+
+	/**
+	 * Completes every subscriber once it has received the items buffered for it,
+	 * including those that subscribe afterwards
+	 */
+	void close() {
+		closed = true;
+
+		for (BufferedSubscription subscription : subscriptions) {
+			subscription.complete();
+		}
+	}
+
+	private class BufferedSubscription implements RecordFlow.Subscription, Runnable {
+
+		private final RecordFlow.Subscriber<? super T> subscriber;
+
+		private final Queue<T> buffer = new ConcurrentLinkedQueue<T>();
+		private final AtomicInteger size = new AtomicInteger();
+		private final AtomicLong demand = new AtomicLong();
+
+		// Number of pending signals; only the signal that raises it from 0 runs.
+		// Starts held by the subscribing thread until onSubscribe returns, so the
+		// requests made by onSubscribe are not served while it runs.
+		private final AtomicInteger signals = new AtomicInteger(1);
+
+		private volatile boolean cancelled;
+		private volatile boolean completed;
+		private volatile Throwable error;
+
+		BufferedSubscription(RecordFlow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		void offer(T item) {
+			buffer.offer(item);
+
+			if (size.incrementAndGet() > capacity && buffer.poll() != null) {
+				size.decrementAndGet();
+			}
+
+			signal();
+		}
+
+		/**
+		 * Releases the signals held while the subscriber was being subscribed
+		 */
+		void start() {
+			if (signals.decrementAndGet() != 0) {
+				executor.execute(this);
+			}
+		}
+
+		void complete() {
+			completed = true;
+			signal();
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException("Non-positive request: " + n);
+			} else {
+				long current;
+				do {
+					current = demand.get();
+				} while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+			}
+
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			subscriptions.remove(this);
+			signal();
+		}
+
+		private void signal() {
+			if (signals.getAndIncrement() == 0) {
+				executor.execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+
+			do {
+				if (cancelled) {
+					buffer.clear();
+				} else if (error != null) {
+					cancel();
+					subscriber.onError(error);
+				} else {
+					deliver();
+
+					if (completed && !cancelled && buffer.isEmpty()) {
+						cancel();
+						subscriber.onComplete();
+					}
+				}
+
+				missed = signals.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void deliver() {
+			long requested = demand.get();
+			long sent = 0;
+
+			while (sent < requested && !cancelled) {
+				T item = buffer.poll();
+				if (item == null) {
+					break;
+				}
+
+				size.decrementAndGet();
+				sent++;
+
+				try {
+					subscriber.onNext(item);
+				} catch (Throwable e) {
+					try {
+						subscriber.onError(e);
+					} finally {
+						cancel();
+					}
+					return;
+				}
+			}
+
+			if (sent > 0 && requested != Long.MAX_VALUE) {
+				demand.addAndGet(-sent);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.rsaladocid.util.data;
+
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * <p>
+ * A {@link Map} that stores the records of a {@link DataHistory} and creates
+ * the deques of new keys by itself, so the records can be kept somewhere else
+ * than in the heap.
+ * </p>
+ * <p>
+ * A store is plugged in through {@link DataHistory#DataHistory(Map)}. The
+ * history calls {@link #getOrCreate(Object)} to append the records of a key
+ * instead of creating an on-heap deque.
+ * </p>
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the value type of the records
+ * @see MappedDataStore
+ */
+public interface RecordStore<K, V> extends Map<K, Deque<DataRecord<V>>> {
+
+	/**
+	 * Returns the deque of the given key, creating an empty one if the key does
+	 * not exist. Concurrent calls for the same key return the same deque.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the deque of the key
+	 */
+	Deque<DataRecord<V>> getOrCreate(K key);
+
+}
@@ -0,0 +1,23 @@
+package com.rsaladocid.util.data;
+
+/**
+ * Estimates the memory used by a {@link DataRecord}, for the memory budget of a
+ * {@link DataHistory}.
+ *
+ * @param <V>
+ *            the value type of the weighed records
+ * @see DataHistory#setMemoryBudget(long, RecordWeigher)
+ */
+public interface RecordWeigher<V> {
+
+	/**
+	 * Returns the estimated size of the given record. The estimate must not
+	 * change while the record is stored in a history.
+	 *
+	 * @param record
+	 *            the record
+	 * @return the size in bytes
+	 */
+	long weigh(DataRecord<? extends V> record);
+
+}
@@ -0,0 +1,182 @@
+package com.rsaladocid.util.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Factory methods of the built-in {@link RetentionPolicy retention policies}.
+ * </p>
+ * <p>
+ * The durations given without a clock are converted to the unit of the clock
+ * of the {@link DataHistory} the policy is set to, so the same policy can be
+ * set to histories with different clocks. Used outside a history, they are
+ * converted to milliseconds.
+ * </p>
+ */
+public final class RetentionPolicies {
+
+	private RetentionPolicies() {
+
+	}
+
+	/**
+	 * Returns a policy that keeps at most the given number of records per key,
+	 * evicting the oldest ones.
+	 *
+	 * @param records
+	 *            the maximum number of records per key
+	 * @return the retention policy
+	 */
+	public static RetentionPolicy maxRecords(final int records) {
+		if (records < 0) {
+			throw new IllegalArgumentException("Negative number of records: " + records);
+		}
+
+		return new RetentionPolicy() {
+
+			@Override
+			public boolean isExpired(DataRecord<?> oldest, int size, long now) {
+				return size > records;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a policy that evicts the records whose timestamp is older than the
+	 * given age, measured by the clock of the history.
+	 *
+	 * @param age
+	 *            the maximum age of a record
+	 * @param unit
+	 *            the time unit of the age
+	 * @return the retention policy
+	 * @see DataRecord#getTimestamp()
+	 */
+	public static RetentionPolicy maxAge(final long age, final TimeUnit unit) {
+		return new ClockRelativePolicy(maxAge(age, unit, RecordClocks.SYSTEM)) {
+
+			@Override
+			RetentionPolicy forClock(RecordClock clock) {
+				return maxAge(age, unit, clock);
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a policy that evicts the records whose timestamp, given by the
+	 * given clock, is older than the given age.
+	 *
+	 * @param age
+	 *            the maximum age of a record
+	 * @param unit
+	 *            the time unit of the age
+	 * @param clock
+	 *            the clock of the history
+	 * @return the retention policy
+	 * @see DataHistory#getClock()
+	 */
+	public static RetentionPolicy maxAge(long age, TimeUnit unit, RecordClock clock) {
+		final long duration = clock.getUnit().convert(age, unit);
+
+		return new RetentionPolicy() {
+
+			@Override
+			public boolean isExpired(DataRecord<?> oldest, int size, long now) {
+				return now - oldest.getTimestamp() > duration;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a policy that only keeps the records of the current time bucket of
+	 * the given duration, for histories whose older values are read from their
+	 * {@link DataHistory#setRollupResolutions(RollupResolution...) rollups}.
+	 *
+	 * @param duration
+	 *            the duration of a bucket
+	 * @param unit
+	 *            the time unit of the duration
+	 * @return the retention policy
+	 */
+	public static RetentionPolicy rolledUp(final long duration, final TimeUnit unit) {
+		return new ClockRelativePolicy(rolledUp(duration, unit, RecordClocks.SYSTEM)) {
+
+			@Override
+			RetentionPolicy forClock(RecordClock clock) {
+				return rolledUp(duration, unit, clock);
+			}
+
+		};
+	}
+
+	/**
+	 * Returns a policy that only keeps the records of the current time bucket of
+	 * the given duration, for histories timestamped by the given clock.
+	 *
+	 * @param duration
+	 *            the duration of a bucket
+	 * @param unit
+	 *            the time unit of the duration
+	 * @param clock
+	 *            the clock of the history
+	 * @return the retention policy
+	 * @see #rolledUp(long, TimeUnit)
+	 */
+	public static RetentionPolicy rolledUp(long duration, TimeUnit unit, RecordClock clock) {
+		final long length = clock.getUnit().convert(duration, unit);
+
+		if (length <= 0) {
+			throw new IllegalArgumentException("Buckets shorter than a time unit of the clock");
+		}
+
+		return new RetentionPolicy() {
+
+			@Override
+			public boolean isExpired(DataRecord<?> oldest, int size, long now) {
+				return Math.floorDiv(oldest.getTimestamp(), length) < Math.floorDiv(now, length);
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the given policies with their durations converted to the unit of
+	 * the given clock
+	 */
+	static RetentionPolicy[] forClock(RetentionPolicy[] policies, RecordClock clock) {
+		RetentionPolicy[] converted = policies.clone();
+
+		for (int i = 0; i < converted.length; i++) {
+			if (converted[i] instanceof ClockRelativePolicy) {
+				converted[i] = ((ClockRelativePolicy) converted[i]).forClock(clock);
+			}
+		}
+
+		return converted;
+	}
+
+	/**
+	 * A policy whose duration is converted once the clock of the history is known,
+	 * and which is in milliseconds until then
+	 */
+	private static abstract class ClockRelativePolicy implements RetentionPolicy {
+
+		private final RetentionPolicy millis;
+
+		ClockRelativePolicy(RetentionPolicy millis) {
+			this.millis = millis;
+		}
+
+		abstract RetentionPolicy forClock(RecordClock clock);
+
+		@Override
+		public boolean isExpired(DataRecord<?> oldest, int size, long now) {
+			return millis.isExpired(oldest, size, now);
+		}
+
+	}
+
+}
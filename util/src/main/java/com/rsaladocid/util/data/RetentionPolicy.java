@@ -0,0 +1,33 @@
+package com.rsaladocid.util.data;
+
+/**
+ * <p>
+ * A rule that decides when the records of a key in a {@link DataHistory} are
+ * evicted.
+ * </p>
+ * <p>
+ * Records are appended in timestamp order, so a policy is only asked about the
+ * oldest record of a key, and that record is evicted while any policy of the
+ * history says it is expired.
+ * </p>
+ *
+ * @see RetentionPolicies
+ * @see DataHistory#setRetentionPolicies(RetentionPolicy...)
+ */
+public interface RetentionPolicy {
+
+	/**
+	 * Returns whether the oldest record of a key must be evicted
+	 *
+	 * @param oldest
+	 *            the oldest record of the key
+	 * @param size
+	 *            the number of records of the key, including the oldest one
+	 * @param now
+	 *            the current time, in the unit of the clock of the history
+	 * @return <code>true</code> if the record must be evicted, otherwise
+	 *         <code>false</code>
+	 */
+	boolean isExpired(DataRecord<?> oldest, int size, long now);
+
+}
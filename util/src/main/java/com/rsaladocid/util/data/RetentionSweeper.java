@@ -0,0 +1,96 @@
+package com.rsaladocid.util.data;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Applies periodically the retention rules of one or more
+ * {@link DataHistory histories} in a daemon thread.
+ * </p>
+ * <p>
+ * Histories evict their records when new records are written, so a sweeper is
+ * only needed to expire the records of keys that are no longer written.
+ * </p>
+ * <p>
+ * An exception thrown while sweeping a history, such as an
+ * {@link java.io.UncheckedIOException} of its write-ahead log, is reported to
+ * the {@link Thread#getUncaughtExceptionHandler() handler} of the daemon
+ * thread, which keeps sweeping the rest of the histories.
+ * </p>
+ *
+ * @see DataHistory#evictExpired()
+ */
+public class RetentionSweeper implements Closeable {
+
+	private final DataHistory<?, ?>[] histories;
+	private final long period;
+	private final Thread thread;
+
+	/**
+	 * Creates a sweeper and starts its daemon thread.
+	 *
+	 * @param period
+	 *            the time between sweeps, which is rounded up to one millisecond
+	 * @param unit
+	 *            the time unit of the period
+	 * @param histories
+	 *            the histories to sweep
+	 * @throws IllegalArgumentException
+	 *             if the period is not positive
+	 */
+	public RetentionSweeper(long period, TimeUnit unit, DataHistory<?, ?>... histories) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("Non-positive period: " + period);
+		}
+
+		this.histories = histories.clone();
+		this.period = Math.max(1, unit.toMillis(period));
+
+		thread = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				sweep();
+			}
+
+		}, "retention-sweeper");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops sweeping and terminates the daemon thread.
+	 */
+	@Override
+	public void close() {
+		thread.interrupt();
+	}
+
+	private void sweep() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				Thread.sleep(period);
+			} catch (InterruptedException e) {
+				return;
+			}
+
+			for (DataHistory<?, ?> history : histories) {
+				try {
+					history.evictExpired();
+				} catch (RuntimeException e) {
+					report(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reports an exception to the handler of the daemon thread without
+	 * terminating it
+	 */
+	private void report(RuntimeException e) {
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.rsaladocid.util.data;
+
+/**
+ * The aggregates of the numeric values of a key set during a time bucket.
+ *
+ * @see DataHistory#getRollups(Object, long, long, long)
+ */
+public final class Rollup {
+
+	private final long start;
+	private final long duration;
+	private final long count;
+	private final double min;
+	private final double max;
+	private final double sum;
+
+	Rollup(long start, long duration, long count, double min, double max, double sum) {
+		this.start = start;
+		this.duration = duration;
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.sum = sum;
+	}
+
+	/**
+	 * Returns the start of the bucket
+	 *
+	 * @return the timestamp, inclusive
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the end of the bucket
+	 *
+	 * @return the timestamp, exclusive
+	 */
+	public long getEnd() {
+		return start + duration;
+	}
+
+	/**
+	 * Returns the number of values set during the bucket
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the minimum value set during the bucket
+	 *
+	 * @return the minimum value
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * Returns the maximum value set during the bucket
+	 *
+	 * @return the maximum value
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the sum of the values set during the bucket
+	 *
+	 * @return the sum of the values
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * Returns the average of the values set during the bucket
+	 *
+	 * @return the average value
+	 */
+	public double getAverage() {
+		return sum / count;
+	}
+
+}
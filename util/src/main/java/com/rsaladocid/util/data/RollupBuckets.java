@@ -0,0 +1,89 @@
+package com.rsaladocid.util.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The most recent buckets of a key at a resolution, stored as a ring of
+ * primitive arrays indexed by bucket number, so adding a value only updates the
+ * aggregates of its bucket.
+ * </p>
+ * <p>
+ * A value older than the bucket that occupies its slot in the ring is too old
+ * to be kept and is ignored; a newer one recycles the slot.
+ * </p>
+ */
+final class RollupBuckets {
+
+	private final long duration;
+
+	private final long[] numbers;
+	private final long[] counts;
+	private final double[] mins;
+	private final double[] maxs;
+	private final double[] sums;
+
+	private long newest = Long.MIN_VALUE;
+
+	RollupBuckets(long duration, int buckets) {
+		this.duration = duration;
+
+		numbers = new long[buckets];
+		counts = new long[buckets];
+		mins = new double[buckets];
+		maxs = new double[buckets];
+		sums = new double[buckets];
+	}
+
+	long getDuration() {
+		return duration;
+	}
+
+	synchronized void add(long timestamp, double value) {
+		long number = Math.floorDiv(timestamp, duration);
+		int slot = (int) Math.floorMod(number, (long) numbers.length);
+		newest = Math.max(newest, number);
+
+		if (counts[slot] == 0 || numbers[slot] < number) {
+			numbers[slot] = number;
+			counts[slot] = 1;
+			mins[slot] = value;
+			maxs[slot] = value;
+			sums[slot] = value;
+		} else if (numbers[slot] == number) {
+			counts[slot]++;
+			mins[slot] = Math.min(mins[slot], value);
+			maxs[slot] = Math.max(maxs[slot], value);
+			sums[slot] += value;
+		}
+	}
+
+	/**
+	 * Returns the non-empty buckets that overlap the given period, in time order
+	 */
+	synchronized List<Rollup> get(long from, long to) {
+		List<Rollup> rollups = new ArrayList<Rollup>();
+
+		if (newest == Long.MIN_VALUE) {
+			return rollups;
+		}
+
+		long first = Math.floorDiv(from, duration);
+		long last = Math.min(Math.floorDiv(to, duration), newest);
+
+		// Only the last buckets of the ring can be stored
+		first = Math.max(first, last - numbers.length + 1);
+
+		for (long number = first; number <= last; number++) {
+			int slot = (int) Math.floorMod(number, (long) numbers.length);
+
+			if (counts[slot] > 0 && numbers[slot] == number) {
+				rollups.add(new Rollup(number * duration, duration, counts[slot], mins[slot], maxs[slot], sums[slot]));
+			}
+		}
+
+		return rollups;
+	}
+
+}
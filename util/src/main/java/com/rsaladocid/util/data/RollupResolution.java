@@ -0,0 +1,62 @@
+package com.rsaladocid.util.data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The size of the time buckets of a rollup, and the number of buckets kept for
+ * each key.
+ *
+ * @see DataHistory#setRollupResolutions(RollupResolution...)
+ */
+public final class RollupResolution {
+
+	private final long duration;
+	private final int buckets;
+
+	private RollupResolution(long duration, int buckets) {
+		this.duration = duration;
+		this.buckets = buckets;
+	}
+
+	/**
+	 * Returns a resolution of buckets of the given duration
+	 *
+	 * @param duration
+	 *            the duration of a bucket
+	 * @param unit
+	 *            the time unit of the duration
+	 * @param buckets
+	 *            the number of most recent buckets kept for each key
+	 * @return the resolution
+	 */
+	public static RollupResolution of(long duration, TimeUnit unit, int buckets) {
+		long millis = unit.toMillis(duration);
+
+		if (millis <= 0) {
+			throw new IllegalArgumentException("Buckets shorter than a millisecond");
+		} else if (buckets <= 0) {
+			throw new IllegalArgumentException("Non-positive number of buckets: " + buckets);
+		}
+
+		return new RollupResolution(millis, buckets);
+	}
+
+	/**
+	 * Returns the duration of a bucket
+	 *
+	 * @return the duration in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the number of buckets kept for each key
+	 *
+	 * @return the number of buckets
+	 */
+	public int getBuckets() {
+		return buckets;
+	}
+
+}
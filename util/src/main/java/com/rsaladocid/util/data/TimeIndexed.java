@@ -0,0 +1,36 @@
+package com.rsaladocid.util.data;
+
+import java.util.List;
+
+/**
+ * The records of a key stored in timestamp order, which can be searched by
+ * timestamp without iterating all of them.
+ *
+ * @param <V>
+ *            the value type of the records
+ */
+interface TimeIndexed<V> {
+
+	/**
+	 * Returns the most recent record whose timestamp is not after the given one
+	 *
+	 * @param timestamp
+	 *            the time, in the unit of the timestamps of the records
+	 * @return the record, or <code>null</code> if all the records are after the
+	 *         given time
+	 */
+	DataRecord<V> floor(long timestamp);
+
+	/**
+	 * Returns the records whose timestamp is between the given ones, both
+	 * inclusive
+	 *
+	 * @param from
+	 *            the start time, in the unit of the timestamps
+	 * @param to
+	 *            the end time, in the unit of the timestamps
+	 * @return the records in timestamp order
+	 */
+	List<DataRecord<V>> range(long from, long to);
+
+}
@@ -0,0 +1,51 @@
+package com.rsaladocid.util.data;
+
+/**
+ * Converts numeric values to and from the 64 bits compressed by a
+ * {@link GorillaBlock}
+ *
+ * @param <V>
+ *            the type of the values
+ */
+interface ValueBits<V> {
+
+	/**
+	 * Converts <code>double</code> values through their IEEE 754 bits, so values
+	 * that barely change share most of their bits
+	 */
+	ValueBits<Double> DOUBLE = new ValueBits<Double>() {
+
+		@Override
+		public long toBits(Double value) {
+			return Double.doubleToRawLongBits(value);
+		}
+
+		@Override
+		public Double fromBits(long bits) {
+			return Double.longBitsToDouble(bits);
+		}
+
+	};
+
+	/**
+	 * Converts <code>long</code> values to themselves
+	 */
+	ValueBits<Long> LONG = new ValueBits<Long>() {
+
+		@Override
+		public long toBits(Long value) {
+			return value;
+		}
+
+		@Override
+		public Long fromBits(long bits) {
+			return bits;
+		}
+
+	};
+
+	long toBits(V value);
+
+	V fromBits(long bits);
+
+}
@@ -0,0 +1,831 @@
+package com.rsaladocid.util.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * An append-only log of the changes of a {@link DataHistory}, which makes them
+ * durable and rebuilds the history after a restart or a crash.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * {@code WriteAheadLog<String, Double> log = new WriteAheadLog<String, Double>(directory, KeyCodecs.STRING, RecordCodecs.DOUBLE);}
+ * {@code DataHistory<String, Double> history = new DataHistory<String, Double>();}
+ * history.setWriteAheadLog(log); // Replays the log into the history
+ * history.putSingle("cpu", 0.42); // Returns once the record is durable
+ * </code>
+ * </pre>
+ * <p>
+ * Every entry is written through a {@link FileChannel} with its length and a
+ * CRC-32 checksum. The log is split in segment files of a maximum size, so it
+ * can be compacted without rewriting the current segment. Writers do not force
+ * their own entries: the first writer that needs its entry durable writes the
+ * entries of all the waiting writers and forces them with a single call, and
+ * the rest find their entries already durable (group commit).
+ * </p>
+ * <p>
+ * If a batch cannot be written or forced, the log fails: as the entries of the
+ * batch may not be durable, every writer waiting for them and every later
+ * change get an {@link IOException}, and the log has to be reopened.
+ * </p>
+ * <p>
+ * Replaying stops at the first entry that is incomplete or fails its checksum,
+ * which is where a crash interrupted the last write, and the log is truncated
+ * there. {@link #compact(DataHistory)} rewrites the closed segments keeping
+ * only the records that the history still retains.
+ * </p>
+ *
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the value type of the records
+ * @see DataHistory#setWriteAheadLog(WriteAheadLog)
+ */
+public class WriteAheadLog<K, V> implements Closeable {
+
+	/**
+	 * Maximum size of a segment file
+	 */
+	private final static long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+	private final static String SEGMENT_SUFFIX = ".wal";
+	private final static String COMPACTED_SUFFIX = ".compact";
+	private final static String COMPACTION_FILE = "compaction.tmp";
+
+	private final static byte RECORD = 0;
+	private final static byte REMOVE = 1;
+	private final static byte CLEAR = 2;
+
+	/**
+	 * Size of the length and the checksum that precede each entry
+	 */
+	private final static int ENTRY_HEADER = 8;
+
+	private final Path directory;
+	private final KeyCodec<K> keys;
+	private final RecordCodec<V> codec;
+	private final long segmentBytes;
+
+	/**
+	 * Guards the segments; held by the writer that flushes the pending entries
+	 */
+	private final Object flushLock = new Object();
+
+	/**
+	 * Serializes the compactions
+	 */
+	private final Object compactionLock = new Object();
+
+	private FileChannel segment;
+	private long segmentId;
+	private long compactedBytes;
+
+	/**
+	 * Entries not written yet, guarded by this log
+	 */
+	private ByteBuffer pending = ByteBuffer.allocate(8192);
+	private long appended;
+
+	private volatile long durable;
+
+	/**
+	 * The error that failed a write, after which no entry is durable
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * Opens the log stored in the given directory, completing a compaction that a
+	 * crash may have interrupted
+	 *
+	 * @param directory
+	 *            the directory of the log, which is created if it does not exist
+	 * @param keys
+	 *            the codec of the keys
+	 * @param codec
+	 *            the codec of the values
+	 * @throws IOException
+	 *             if the directory cannot be read
+	 */
+	public WriteAheadLog(Path directory, KeyCodec<K> keys, RecordCodec<V> codec) throws IOException {
+		this(directory, keys, codec, DEFAULT_SEGMENT_BYTES);
+	}
+
+	/**
+	 * Opens the log stored in the given directory, completing a compaction that a
+	 * crash may have interrupted
+	 *
+	 * @param directory
+	 *            the directory of the log, which is created if it does not exist
+	 * @param keys
+	 *            the codec of the keys
+	 * @param codec
+	 *            the codec of the values
+	 * @param segmentBytes
+	 *            the size from which a new segment file is started
+	 * @throws IOException
+	 *             if the directory cannot be read
+	 */
+	public WriteAheadLog(Path directory, KeyCodec<K> keys, RecordCodec<V> codec, long segmentBytes)
+			throws IOException {
+		this.directory = directory;
+		this.keys = keys;
+		this.codec = codec;
+		this.segmentBytes = segmentBytes;
+
+		Files.createDirectories(directory);
+		Files.deleteIfExists(directory.resolve(COMPACTION_FILE));
+
+		for (Path compacted : list(COMPACTED_SUFFIX)) {
+			finishCompaction(compacted, idOf(compacted, COMPACTED_SUFFIX));
+		}
+	}
+
+	/**
+	 * Replays the log into the given visitor and opens the last segment for
+	 * writing
+	 */
+	void replay(Visitor<K, V> visitor) throws IOException {
+		synchronized (flushLock) {
+			List<Path> segments = list(SEGMENT_SUFFIX);
+
+			for (int i = 0; i < segments.size(); i++) {
+				Path file = segments.get(i);
+
+				if (!replay(file, visitor)) {
+					// A torn write: nothing after it was acknowledged
+					for (int j = i + 1; j < segments.size(); j++) {
+						Files.delete(segments.get(j));
+					}
+
+					segments = segments.subList(0, i + 1);
+					break;
+				}
+			}
+
+			if (segments.isEmpty()) {
+				open(0);
+			} else {
+				segmentId = idOf(segments.get(segments.size() - 1), SEGMENT_SUFFIX);
+				segment = FileChannel.open(segments.get(segments.size() - 1), StandardOpenOption.WRITE,
+						StandardOpenOption.APPEND);
+			}
+
+			compactedBytes = size();
+		}
+	}
+
+	/**
+	 * Replays a segment, truncating it at the first invalid entry
+	 *
+	 * @return <code>true</code> if all the entries of the segment are valid
+	 */
+	private boolean replay(Path file, Visitor<K, V> visitor) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			CRC32 crc = new CRC32();
+
+			while (buffer.remaining() >= ENTRY_HEADER) {
+				int start = buffer.position();
+				int length = buffer.getInt();
+				int checksum = buffer.getInt();
+
+				if (length <= 0 || length > buffer.remaining()) {
+					channel.truncate(start);
+					return false;
+				}
+
+				ByteBuffer entry = buffer.slice();
+				entry.limit(length);
+
+				crc.reset();
+				crc.update(entry.duplicate());
+				if ((int) crc.getValue() != checksum) {
+					channel.truncate(start);
+					return false;
+				}
+
+				visit(entry, visitor);
+				buffer.position(buffer.position() + length);
+			}
+
+			if (buffer.hasRemaining()) {
+				channel.truncate(buffer.position());
+				return false;
+			}
+
+			return true;
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void visit(ByteBuffer entry, Visitor<K, V> visitor) {
+		byte type = entry.get();
+
+		if (type == CLEAR) {
+			visitor.clear();
+			return;
+		}
+
+		long timestamp = entry.getLong();
+		byte[] name = new byte[entry.getShort() & 0xFFFF];
+		entry.get(name);
+		K key = keys.decode(new String(name, StandardCharsets.UTF_8));
+
+		if (type == REMOVE) {
+			visitor.remove(key);
+		} else {
+			visitor.record(key, new ImmutableDataRecord<V>(codec.decode(entry, entry.position()), timestamp));
+		}
+	}
+
+	/**
+	 * Appends a record of the given value to the records of its key and to the
+	 * log as a single step, so the records of each key are logged in the order
+	 * they are appended, and waits until it is durable
+	 * 
+	 * @return the appended record
+	 */
+	DataRecord<V> record(K key, Deque<DataRecord<V>> entries, V value, RecordClock clock) throws IOException {
+		DataRecord<V> record;
+		long sequence;
+
+		synchronized (this) {
+			checkFailure();
+			record = AppendOnlyDeque.appendTo(entries, value, clock);
+			sequence = append(encode(RECORD, key, record));
+		}
+
+		sync(sequence);
+		return record;
+	}
+
+	/**
+	 * Appends the removal of the given key followed by the given records, and
+	 * replaces the records of the key in the given map by them, as a single step.
+	 * A compaction therefore sees the map either before or after the records are
+	 * logged, never in between. Waits once until all of them are durable.
+	 * 
+	 * @return the previous records of the key in the map
+	 */
+	Deque<DataRecord<V>> put(K key, Deque<DataRecord<V>> records, Map<K, Deque<DataRecord<V>>> map)
+			throws IOException {
+		List<ByteBuffer> entries = new ArrayList<ByteBuffer>(records.size() + 1);
+		int length = 0;
+
+		entries.add(encode(REMOVE, key, null));
+		for (DataRecord<V> record : records) {
+			entries.add(encode(RECORD, key, record));
+		}
+
+		for (ByteBuffer entry : entries) {
+			length += entry.remaining();
+		}
+
+		ByteBuffer batch = ByteBuffer.allocate(length);
+		for (ByteBuffer entry : entries) {
+			batch.put(entry);
+		}
+		batch.flip();
+
+		Deque<DataRecord<V>> previous;
+		long sequence;
+
+		synchronized (this) {
+			sequence = append(batch);
+			previous = map.put(key, records);
+		}
+
+		sync(sequence);
+		return previous;
+	}
+
+	/**
+	 * Appends the removal of the given key and waits until it is durable
+	 */
+	void remove(K key) throws IOException {
+		sync(append(encode(REMOVE, key, null)));
+	}
+
+	/**
+	 * Appends the removal of all the keys and waits until it is durable
+	 */
+	void clear() throws IOException {
+		sync(append(encode(CLEAR, null, null)));
+	}
+
+	private ByteBuffer encode(byte type, K key, DataRecord<V> record) {
+		byte[] name = key != null ? keys.encode(key).getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+		if (name.length > 0xFFFF) {
+			throw new IllegalArgumentException("Key too long: " + key);
+		}
+
+		int length = type == CLEAR ? 1 : 1 + 8 + 2 + name.length + (type == RECORD ? codec.size() : 0);
+		ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER + length);
+
+		entry.putInt(length);
+		entry.putInt(0);
+		entry.put(type);
+
+		if (type != CLEAR) {
+			entry.putLong(record != null ? record.getTimestamp() : 0);
+			entry.putShort((short) name.length);
+			entry.put(name);
+		}
+
+		if (type == RECORD) {
+			codec.encode(record.getValue(), entry, entry.position());
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(entry.array(), ENTRY_HEADER, length);
+		entry.putInt(4, (int) crc.getValue());
+
+		entry.clear();
+		return entry;
+	}
+
+	/**
+	 * Adds an encoded entry to the pending ones
+	 *
+	 * @return the sequence number of the entry
+	 */
+	private synchronized long append(ByteBuffer entry) throws IOException {
+		checkFailure();
+
+		if (pending.remaining() < entry.remaining()) {
+			ByteBuffer larger = ByteBuffer
+					.allocate(Math.max(pending.capacity() * 2, pending.position() + entry.remaining()));
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+
+		pending.put(entry);
+		return ++appended;
+	}
+
+	/**
+	 * Waits until the entry of the given sequence number is durable, writing and
+	 * forcing all the pending entries if no other writer is doing it
+	 */
+	private void sync(long sequence) throws IOException {
+		if (durable >= sequence) {
+			return;
+		}
+
+		synchronized (flushLock) {
+			if (durable < sequence) {
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Checks that the segments can be written, before taking the pending entries
+	 */
+	private void checkWritable() throws IOException {
+		checkFailure();
+
+		if (segment == null) {
+			throw new IOException("The log has not been replayed or it is closed");
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			throw new IOException("The log has failed", failure);
+		}
+	}
+
+	/**
+	 * Writes and forces the pending entries. Callers hold the flush lock.
+	 */
+	private void flush() throws IOException {
+		ByteBuffer batch;
+		long target;
+
+		checkWritable();
+		synchronized (this) {
+			batch = pending;
+			target = appended;
+			pending = ByteBuffer.allocate(batch.capacity());
+		}
+
+		write(batch, target);
+	}
+
+	/**
+	 * Writes and forces the given entries, up to the given sequence number, or
+	 * fails the log if they cannot be written. Callers hold the flush lock.
+	 */
+	private void write(ByteBuffer batch, long target) throws IOException {
+		try {
+			batch.flip();
+			if (batch.hasRemaining() && segment.size() > 0 && segment.size() + batch.remaining() > segmentBytes) {
+				roll();
+			}
+
+			while (batch.hasRemaining()) {
+				segment.write(batch);
+			}
+			segment.force(false);
+		} catch (IOException e) {
+			failure = e;
+			throw e;
+		}
+
+		durable = target;
+	}
+
+	/**
+	 * Closes the current segment and starts the next one. Callers hold the flush
+	 * lock.
+	 */
+	private void roll() throws IOException {
+		segment.force(false);
+		segment.close();
+		open(segmentId + 1);
+	}
+
+	private void open(long id) throws IOException {
+		segmentId = id;
+		segment = FileChannel.open(directory.resolve(id + SEGMENT_SUFFIX), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Returns the size of the log
+	 *
+	 * @return the size of all the segment files in bytes
+	 * @throws IOException
+	 *             if the segment files cannot be read
+	 */
+	public long size() throws IOException {
+		long size = 0;
+
+		for (Path file : list(SEGMENT_SUFFIX)) {
+			size += Files.size(file);
+		}
+
+		return size;
+	}
+
+	/**
+	 * Compacts the log if it has grown to more than twice its size after the last
+	 * compaction
+	 *
+	 * @param history
+	 *            the history whose changes are logged
+	 * @throws IOException
+	 *             if the log cannot be compacted
+	 */
+	public void compactIfGrown(DataHistory<K, V> history) throws IOException {
+		long size = size();
+
+		if (size > segmentBytes && size > 2 * compactedBytes) {
+			compact(history);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Rewrites the closed segments keeping only the records that the given history
+	 * still retains. The records of each key are logged in the order they are
+	 * appended and evicted from the oldest one, so the retained records of a key
+	 * are the ones logged after its last removal that are newer than its oldest
+	 * record, plus as many of the last ones with the same timestamp as the oldest
+	 * record as the history keeps.
+	 * </p>
+	 * <p>
+	 * The current segment is closed first, so writers keep appending to a new one
+	 * while the closed ones are rewritten. The rewritten segment is completed
+	 * before the closed ones are deleted, and a compaction interrupted by a crash
+	 * is completed when the log is opened again.
+	 * </p>
+	 *
+	 * @param history
+	 *            the history whose changes are logged
+	 * @throws IOException
+	 *             if the log cannot be compacted
+	 */
+	public void compact(DataHistory<K, V> history) throws IOException {
+		synchronized (compactionLock) {
+			compactClosedSegments(history);
+		}
+	}
+
+	private void compactClosedSegments(DataHistory<K, V> history) throws IOException {
+		List<Path> closed;
+		long lastId;
+		final Map<K, Retained> retained;
+
+		synchronized (flushLock) {
+			ByteBuffer batch;
+			long target;
+
+			checkWritable();
+			// The history is read while no record can be appended, so it matches
+			// the entries of the closed segments
+			synchronized (this) {
+				retained = retained(history);
+				batch = pending;
+				target = appended;
+				pending = ByteBuffer.allocate(batch.capacity());
+			}
+
+			write(batch, target);
+			roll();
+
+			closed = list(SEGMENT_SUFFIX);
+			closed.remove(closed.size() - 1);
+			lastId = segmentId - 1;
+		}
+
+		Path temporary = directory.resolve(COMPACTION_FILE);
+		final FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+		// Counts the records logged with the timestamp of the oldest retained one
+		// after the last removal of their key
+		for (Path file : closed) {
+			replay(file, new Visitor<K, V>() {
+
+				@Override
+				public void record(K key, DataRecord<V> record) {
+					Retained oldest = retained.get(key);
+
+					if (oldest != null) {
+						oldest.countRecord(record);
+					}
+				}
+
+				@Override
+				public void remove(K key) {
+					Retained oldest = retained.get(key);
+
+					if (oldest != null) {
+						oldest.countRemoval();
+					}
+				}
+
+				@Override
+				public void clear() {
+					for (Retained oldest : retained.values()) {
+						oldest.countRemoval();
+					}
+				}
+
+			});
+		}
+
+		try {
+			Visitor<K, V> writer = new Visitor<K, V>() {
+
+				@Override
+				public void record(K key, DataRecord<V> record) {
+					Retained oldest = retained.get(key);
+
+					if (oldest == null || !oldest.retains(record)) {
+						return;
+					}
+
+					try {
+						ByteBuffer entry = encode(RECORD, key, record);
+						while (entry.hasRemaining()) {
+							output.write(entry);
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+
+				@Override
+				public void remove(K key) {
+					Retained oldest = retained.get(key);
+
+					if (oldest != null) {
+						oldest.removed++;
+					}
+				}
+
+				@Override
+				public void clear() {
+					for (Retained oldest : retained.values()) {
+						oldest.removed++;
+					}
+				}
+
+			};
+
+			for (Path file : closed) {
+				replay(file, writer);
+			}
+
+			output.force(false);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			output.close();
+		}
+
+		Path compacted = directory.resolve(lastId + COMPACTED_SUFFIX);
+		Files.move(temporary, compacted, StandardCopyOption.ATOMIC_MOVE);
+		finishCompaction(compacted, lastId);
+
+		synchronized (flushLock) {
+			compactedBytes = size();
+		}
+	}
+
+	/**
+	 * Returns the timestamp of the oldest record of each key of the given history
+	 * and how many records have that timestamp
+	 */
+	private Map<K, Retained> retained(DataHistory<K, V> history) {
+		Map<K, Retained> retained = new HashMap<K, Retained>();
+
+		for (Map.Entry<K, Deque<DataRecord<V>>> entry : history.entrySet()) {
+			Iterator<DataRecord<V>> records = entry.getValue().iterator();
+
+			if (!records.hasNext()) {
+				continue;
+			}
+
+			Retained oldest = new Retained(records.next().getTimestamp());
+			while (records.hasNext() && records.next().getTimestamp() == oldest.timestamp) {
+				oldest.count++;
+			}
+
+			retained.put(entry.getKey(), oldest);
+		}
+
+		return retained;
+	}
+
+	/**
+	 * Replaces the segments up to the given one with the compacted segment
+	 */
+	private void finishCompaction(Path compacted, long lastId) throws IOException {
+		for (Path file : list(SEGMENT_SUFFIX)) {
+			if (idOf(file, SEGMENT_SUFFIX) <= lastId) {
+				Files.delete(file);
+			}
+		}
+
+		Files.move(compacted, directory.resolve(lastId + SEGMENT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns the files with the given suffix, sorted by their number
+	 */
+	private List<Path> list(final String suffix) throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + suffix);
+
+		try {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		} finally {
+			stream.close();
+		}
+
+		Collections.sort(files, new Comparator<Path>() {
+
+			@Override
+			public int compare(Path a, Path b) {
+				return Long.compare(idOf(a, suffix), idOf(b, suffix));
+			}
+
+		});
+
+		return files;
+	}
+
+	private static long idOf(Path file, String suffix) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - suffix.length()));
+	}
+
+	/**
+	 * Writes the pending entries and closes the current segment.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (flushLock) {
+			if (segment != null) {
+				if (failure == null) {
+					flush();
+				}
+				segment.close();
+				segment = null;
+			}
+		}
+	}
+
+	/**
+	 * The oldest records of a key retained by the history, used to select the
+	 * logged records that are still retained
+	 */
+	private static class Retained {
+
+		private final long timestamp;
+
+		/**
+		 * Number of retained records with the oldest timestamp
+		 */
+		private int count = 1;
+
+		/**
+		 * Number of logged records with the oldest timestamp after the last removal
+		 * of the key, and number of removals of the key
+		 */
+		private int logged;
+		private int removals;
+
+		/**
+		 * Number of removals and of records with the oldest timestamp after the
+		 * last removal already rewritten
+		 */
+		private int removed;
+		private int rewritten;
+
+		Retained(long timestamp) {
+			this.timestamp = timestamp;
+		}
+
+		/**
+		 * Counts a removal of the key while the log is read for the first time
+		 */
+		void countRemoval() {
+			removals++;
+			logged = 0;
+		}
+
+		/**
+		 * Counts a logged record of the key while the log is read for the first time
+		 */
+		void countRecord(DataRecord<?> record) {
+			if (record.getTimestamp() == timestamp) {
+				logged++;
+			}
+		}
+
+		/**
+		 * Returns whether the given logged record is retained, while the log is
+		 * rewritten in the same order
+		 */
+		boolean retains(DataRecord<?> record) {
+			if (removed < removals || record.getTimestamp() < timestamp) {
+				return false;
+			} else if (record.getTimestamp() > timestamp) {
+				return true;
+			}
+
+			// Only the last records with the oldest timestamp were not evicted
+			return ++rewritten > logged - count;
+		}
+
+	}
+
+	/**
+	 * Receives the entries of the log while it is replayed
+	 */
+	interface Visitor<K, V> {
+
+		void record(K key, DataRecord<V> record);
+
+		void remove(K key);
+
+		void clear();
+
+	}
+
+}
@@ -7,6 +7,7 @@ public class Person {
 	private int age;
 	private String email;
 	private String canonicalEmail;
+	private String nickname;
 
 	public String getName() {
 		return name;
@@ -53,6 +54,14 @@ public class Person {
 		this.canonicalEmail = canonicalEmail;
 	}
 
+	public void setNickname(String nickname) {
+		this.nickname = nickname;
+	}
+
+	public String nickname() {
+		return nickname;
+	}
+
 	public String get() {
 		return "foo";
 	}
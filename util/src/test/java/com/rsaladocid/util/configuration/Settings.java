@@ -0,0 +1,87 @@
+package com.rsaladocid.util.configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class Settings {
+
+	private int port;
+	private long size;
+	private boolean enabled;
+	private TimeUnit unit;
+	private Duration timeout;
+	@Property(name = "hostnames")
+	private String[] hosts;
+	@IgnoreProperty
+	private int[] weights;
+	private String label;
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	@Property(name = "enabled")
+	public boolean getEnabled() {
+		return enabled;
+	}
+
+	@Property(name = "enabled")
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public TimeUnit getUnit() {
+		return unit;
+	}
+
+	public void setUnit(TimeUnit unit) {
+		this.unit = unit;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	public String[] getHosts() {
+		return hosts;
+	}
+
+	public void setHosts(String[] hosts) {
+		this.hosts = hosts;
+	}
+
+	public int[] getWeights() {
+		return weights;
+	}
+
+	public void setWeights(int[] weights) {
+		this.weights = weights;
+	}
+
+	@Property(name = "multi\nline\r\tlabel\u0001")
+	public String getLabel() {
+		return label;
+	}
+
+	@Property(name = "multi\nline\r\tlabel\u0001")
+	public void setLabel(String label) {
+		this.label = label;
+	}
+
+}
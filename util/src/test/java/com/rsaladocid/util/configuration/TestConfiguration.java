@@ -0,0 +1,438 @@
+package com.rsaladocid.util.configuration;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestConfiguration {
+
+	private static final String NAME = "test";
+	private static final String SURNAMES = "foo stub";
+	private static final int AGE = 15;
+	private static final String EMAIL = "bar@foo.com";
+	private static final String CANONICAL_EMAIL = "bar@foo.com";
+
+	private Map<String, Object> properties;
+	private Person person;
+
+	@Before
+	public void setUp() throws Exception {
+		properties = new HashMap<String, Object>();
+		properties.put("name", NAME);
+		properties.put("surnames", SURNAMES);
+		properties.put("age", AGE);
+		properties.put("e-mail", EMAIL);
+
+		person = new Person();
+		person.setName(NAME);
+		person.setSurnames(SURNAMES);
+		person.setAge(AGE);
+		person.setEmail(EMAIL);
+	}
+
+	@Test
+	public void testGetProperties() {
+		Map<String, Object> properties = Configuration.getProperties(person);
+
+		assertTrue(properties.keySet().contains("name"));
+		assertTrue(properties.keySet().contains("surnames"));
+		assertTrue(properties.keySet().contains("e-mail"));
+		assertTrue(properties.keySet().contains("canonicalEmail"));
+	}
+
+	@Test
+	public void testGetRenamedProperty() {
+		assertTrue(Configuration.getProperties(person).get("e-mail").equals(EMAIL));
+	}
+
+	@Test
+	public void testGetIgnoredProperty() {
+		assertTrue(Configuration.getProperties(person).get("age") == null);
+	}
+
+	@Test
+	public void testSetProperties() {
+		Person test = new Person();
+		Configuration.setProperties(test, properties);
+
+		assertTrue(test.getName().equals(NAME));
+		assertTrue(test.getAge() == 0);
+		assertTrue(test.getEmail().equals(EMAIL));
+		assertTrue(test.getSurnames().equals(SURNAMES));
+	}
+
+	@Test
+	public void testSetRenamedProperties() {
+		Person test = new Person();
+		Configuration.setProperties(test, properties);
+
+		assertTrue(test.getCanonicalEmail().equals(CANONICAL_EMAIL));
+	}
+
+	@Test
+	public void testPreloadedAndInvalidatedClass() {
+		Configuration.preload(Person.class);
+		assertTrue(Configuration.getProperties(person).get("e-mail").equals(EMAIL));
+
+		Configuration.invalidate(Person.class);
+		assertTrue(Configuration.getProperties(person).get("e-mail").equals(EMAIL));
+	}
+
+	@Test
+	public void testSetPropertiesWithEquivalentStrategies() {
+		Person test = new Person();
+		Configuration.setProperties(test, properties, new AnnotatedPropertyNameStrategy());
+		Configuration.setProperties(test, properties, new AnnotatedPropertyNameStrategy());
+
+		assertTrue(test.getName().equals(NAME));
+		assertTrue(new AnnotatedPropertyNameStrategy().equals(new AnnotatedPropertyNameStrategy()));
+	}
+
+	@Test
+	public void testSetPropertyWithUnexpectedType() {
+		Person test = new Person();
+		properties.put("name", 5);
+		Configuration.setProperties(test, properties);
+
+		assertTrue(test.getName() == null);
+		assertTrue(test.getSurnames().equals(SURNAMES));
+	}
+
+	@Test
+	public void testGeneratedBinder() {
+		assertTrue(((Object) PropertyBinders.get(Person.class)) instanceof PersonPropertyBinder);
+		assertTrue(PropertyBinders.get(TestConfiguration.class) == null);
+	}
+
+	@Test
+	public void testCopyProperties() {
+		Person test = new Person();
+		test.setAge(AGE + 1);
+		Configuration.copyProperties(person, test);
+
+		assertTrue(test.getName().equals(NAME));
+		assertTrue(test.getSurnames().equals(SURNAMES));
+		assertTrue(test.getEmail().equals(EMAIL));
+		assertTrue(test.getCanonicalEmail().equals(CANONICAL_EMAIL));
+		assertTrue(test.getAge() == AGE + 1);
+	}
+
+	@Test
+	public void testView() {
+		Map<String, Object> view = Configuration.view(person);
+
+		assertTrue(view.get("name").equals(NAME));
+		assertTrue(view.containsKey("e-mail"));
+		assertTrue(!view.containsKey("age"));
+		assertTrue(view.equals(Configuration.getProperties(person)));
+
+		person.setName(SURNAMES);
+		assertTrue(view.get("name").equals(SURNAMES));
+	}
+
+	@Test
+	public void testMemoizedView() {
+		Map<String, Object> view = Configuration.view(person, true);
+
+		assertTrue(view.get("name").equals(NAME));
+
+		person.setName(SURNAMES);
+		assertTrue(view.get("name").equals(NAME));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetPropertiesIsImmutable() {
+		Map<String, Object> properties = Configuration.getProperties(person);
+
+		assertTrue(properties instanceof PropertyMap);
+		properties.put("name", SURNAMES);
+	}
+
+	@Test
+	public void testGetPropertiesWithStrategy() {
+		Map<String, Object> properties = Configuration.getProperties(person, new AnnotatedPropertyNameStrategy() {
+		});
+
+		assertTrue(properties instanceof PropertyMap);
+		assertTrue(properties.equals(new HashMap<String, Object>(Configuration.getProperties(person))));
+		assertTrue(properties.get("e-mail").equals(EMAIL));
+		assertTrue(!properties.containsKey("age"));
+	}
+
+	@Test
+	public void testSetConvertedProperties() {
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("port", "8080");
+		properties.put("size", 5);
+		properties.put("enabled", "true");
+		properties.put("unit", "SECONDS");
+		properties.put("timeout", "PT10S");
+		properties.put("hosts", "foo, bar");
+		properties.put("weights", Arrays.asList(1, 2));
+
+		PropertyNameStrategy reflective = new AnnotatedPropertyNameStrategy() {
+		};
+
+		for (PropertyNameStrategy strategy : new PropertyNameStrategy[] { new AnnotatedPropertyNameStrategy(),
+				reflective }) {
+			Settings settings = new Settings();
+			Configuration.setProperties(settings, properties, strategy);
+
+			assertTrue(settings.getPort() == 8080);
+			assertTrue(settings.getSize() == 5L);
+			assertTrue(settings.getEnabled());
+			assertTrue(settings.getUnit() == TimeUnit.SECONDS);
+			assertTrue(settings.getTimeout().equals(Duration.ofSeconds(10)));
+			assertTrue(Arrays.equals(settings.getHosts(), new String[] { "foo", "bar" }));
+			assertTrue(Arrays.equals(settings.getWeights(), new int[] { 1, 2 }));
+		}
+	}
+
+	@Test
+	public void testSetUnconvertibleProperties() {
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("port", "foo");
+		properties.put("size", null);
+		properties.put("unit", "foo");
+
+		Settings settings = new Settings();
+		settings.setPort(1);
+		settings.setSize(2);
+		settings.setUnit(TimeUnit.DAYS);
+		Configuration.setProperties(settings, properties);
+
+		assertTrue(settings.getPort() == 1);
+		assertTrue(settings.getSize() == 2);
+		assertTrue(settings.getUnit() == TimeUnit.DAYS);
+	}
+
+	@Test
+	public void testRegisteredConverter() {
+		TypeConverters.register(StringBuilder.class, Integer.class, new TypeConverter<StringBuilder, Integer>() {
+			@Override
+			public Integer convert(StringBuilder value) {
+				return value.length();
+			}
+		});
+
+		try {
+			Map<String, Object> properties = new HashMap<String, Object>();
+			properties.put("port", new StringBuilder("foo"));
+
+			Settings settings = new Settings();
+			Configuration.setProperties(settings, properties);
+
+			assertTrue(settings.getPort() == 3);
+		} finally {
+			TypeConverters.unregister(StringBuilder.class, Integer.class);
+		}
+
+		assertTrue(TypeConverters.find(StringBuilder.class, int.class) == null);
+	}
+
+	@Test
+	public void testGeneratedBinderWithControlCharactersInNames() {
+		String name = "multi\nline\r\tlabel\u0001";
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(name, "foo");
+
+		Settings settings = new Settings();
+		Configuration.setProperties(settings, properties);
+
+		assertTrue(((Object) PropertyBinders.get(Settings.class)) instanceof SettingsPropertyBinder);
+		assertTrue(settings.getLabel().equals("foo"));
+		assertTrue(Configuration.getProperties(settings).get(name).equals("foo"));
+	}
+
+	@Test
+	public void testCachedConverterFollowsRegisteredConverters() {
+		TypeConverter<Object, Integer> converter = TypeConverters.converterTo(int.class);
+
+		assertTrue(converter.convert("3") == 3);
+		assertTrue(converter.convert(4) == 4);
+
+		TypeConverters.register(StringBuilder.class, Integer.class, new TypeConverter<StringBuilder, Integer>() {
+			@Override
+			public Integer convert(StringBuilder value) {
+				return value.length();
+			}
+		});
+
+		try {
+			assertTrue(converter.convert(new StringBuilder("foo")) == 3);
+		} finally {
+			TypeConverters.unregister(StringBuilder.class, Integer.class);
+		}
+
+		try {
+			converter.convert(new StringBuilder("foo"));
+			fail();
+		} catch (IllegalArgumentException e) {
+
+		}
+	}
+
+	@Test
+	public void testLossyNumberConversionsAreRejected() {
+		assertTrue(TypeConverters.convert(3.0, int.class) == 3);
+		assertTrue(TypeConverters.convert(Integer.MAX_VALUE, long.class) == Integer.MAX_VALUE);
+
+		Object[] lossy = { 3.5, 1L << 40, Double.NaN, 0x1p63, Long.MAX_VALUE, new BigDecimal("1.5") };
+		Class<?>[] types = { int.class, int.class, long.class, long.class, int.class, long.class };
+
+		for (int i = 0; i < lossy.length; i++) {
+			try {
+				TypeConverters.convert(lossy[i], types[i]);
+				fail("Converted " + lossy[i] + " to " + types[i]);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void testApplyChanges() {
+		Person test = new Person();
+
+		// The age is ignored, so it is never applied
+		Set<String> applied = new HashSet<String>(properties.keySet());
+		applied.remove("age");
+
+		Set<String> changes = Configuration.applyChanges(test, properties);
+		assertTrue(changes.equals(applied));
+		assertTrue(test.getName().equals(NAME));
+
+		test.setName(SURNAMES);
+		properties.put("e-mail", SURNAMES);
+		changes = Configuration.applyChanges(test, properties);
+		assertTrue(changes.size() == 1 && changes.contains("e-mail"));
+		assertTrue(test.getName().equals(SURNAMES));
+		assertTrue(test.getEmail().equals(SURNAMES));
+
+		Configuration.forgetChanges(test);
+		changes = Configuration.applyChanges(test, properties);
+		assertTrue(changes.equals(applied));
+		assertTrue(test.getName().equals(NAME));
+	}
+
+	@Test
+	public void testApplyChangesOnlyRemembersAppliedValues() {
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put("port", "foo");
+		properties.put("size", 2);
+		properties.put("unknown", 3);
+
+		Settings settings = new Settings();
+		Set<String> changes = Configuration.applyChanges(settings, properties);
+		assertTrue(changes.size() == 1 && changes.contains("size"));
+
+		properties.put("port", "80");
+		changes = Configuration.applyChanges(settings, properties);
+		assertTrue(changes.size() == 1 && changes.contains("port"));
+		assertTrue(settings.getPort() == 80);
+	}
+
+	@Test
+	public void testExtractColumns() {
+		List<Settings> objects = new ArrayList<Settings>();
+		for (int i = 0; i < 10000; i++) {
+			Settings settings = new Settings();
+			settings.setPort(i);
+			settings.setTimeout(Duration.ofMillis(i));
+			objects.add(settings);
+		}
+		objects.add(null);
+
+		PropertyColumns columns = Configuration.extractColumns(objects, Settings.class);
+		int[] ports = (int[]) columns.getColumn("port");
+		Duration[] timeouts = (Duration[]) columns.getColumn("timeout");
+
+		assertTrue(columns.size() == 10001);
+		assertTrue(columns.getNames().contains("enabled"));
+		assertTrue(columns.getType("size") == long.class);
+		assertTrue(ports[9999] == 9999 && ports[10000] == 0);
+		assertTrue(timeouts[42].equals(Duration.ofMillis(42)) && timeouts[10000] == null);
+	}
+
+	@Test
+	public void testFieldAccess() {
+		PropertyNameStrategy strategy = new AnnotatedPropertyNameStrategy(PropertyAccess.FIELDS);
+
+		Map<String, Object> properties = Configuration.getProperties(person, strategy);
+		assertTrue(properties.get("age").equals(AGE));
+		assertTrue(properties.get("email").equals(EMAIL));
+		assertTrue(!properties.containsKey("e-mail"));
+
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("port", "80");
+		values.put("hostnames", new String[] { "foo" });
+		values.put("weights", new int[] { 1 });
+
+		Settings settings = new Settings();
+		Configuration.setProperties(settings, values, strategy);
+		assertTrue(settings.getPort() == 80);
+		assertTrue(settings.getHosts()[0].equals("foo"));
+		assertTrue(settings.getWeights() == null);
+	}
+
+	@Test
+	public void testConfigurationHolder() {
+		ConfigurationHolder<Person> holder = new ConfigurationHolder<Person>(new Supplier<Person>() {
+			@Override
+			public Person get() {
+				return new Person();
+			}
+		});
+		Person initial = holder.get();
+
+		holder.update(properties);
+		Map<String, Object> changes = new HashMap<String, Object>();
+		changes.put("name", SURNAMES);
+		ConfigurationHolder.Snapshot<Person> snapshot = holder.update(changes);
+
+		assertTrue(initial.getName() == null);
+		assertTrue(holder.get() == snapshot.getInstance());
+		assertTrue(holder.getVersion() == 2);
+		assertTrue(holder.get().getName().equals(SURNAMES));
+		assertTrue(holder.get().getEmail().equals(EMAIL));
+		assertTrue(snapshot.getProperties().get("name").equals(SURNAMES));
+	}
+
+	@Test
+	public void testConfigurationHolderKeepsWriteOnlyProperties() {
+		ConfigurationHolder<Person> holder = new ConfigurationHolder<Person>(new Supplier<Person>() {
+			@Override
+			public Person get() {
+				return new Person();
+			}
+		});
+
+		Map<String, Object> first = new HashMap<String, Object>();
+		first.put("nickname", "Al");
+		first.put("e-mail", EMAIL);
+		holder.update(first);
+
+		Map<String, Object> second = new HashMap<String, Object>();
+		second.put("name", SURNAMES);
+		ConfigurationHolder.Snapshot<Person> snapshot = holder.update(second);
+
+		assertTrue(holder.get().getName().equals(SURNAMES));
+		assertTrue(holder.get().nickname().equals("Al"));
+		assertTrue(holder.get().getCanonicalEmail().equals(EMAIL));
+		assertTrue(snapshot.getAppliedProperties().size() == 3);
+	}
+
+}
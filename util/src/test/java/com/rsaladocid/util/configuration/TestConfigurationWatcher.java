@@ -0,0 +1,129 @@
+package com.rsaladocid.util.configuration;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestConfigurationWatcher {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("configuration");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (Path file : Files.newDirectoryStream(directory)) {
+			Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void testLoadProperties() throws IOException {
+		Path file = write("settings.properties", "port=8080\nenabled=true\n");
+		Map<String, Object> values = new FileConfigurationSource(file).load();
+
+		assertTrue(values.size() == 2);
+		assertTrue(values.get("port").equals("8080"));
+	}
+
+	@Test
+	public void testLoadJson() throws IOException {
+		Path file = write("settings.json", "{\"port\":8080,\"hosts\":[\"foo\",\"bar\"]}");
+		Map<String, Object> values = new FileConfigurationSource(file).load();
+
+		assertTrue(values.get("port").equals(8080));
+
+		Settings settings = new Settings();
+		Configuration.setProperties(settings, values);
+		assertTrue(settings.getPort() == 8080);
+		assertTrue(settings.getHosts()[1].equals("bar"));
+	}
+
+	@Test
+	public void testReloadChangedFile() throws Exception {
+		Path file = write("settings.properties", "port=8080\nsize=1\n");
+		Settings settings = new Settings();
+
+		final BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<Set<String>>();
+		ConfigurationWatcher watcher = new ConfigurationWatcher();
+
+		try {
+			watcher.bind(new FileConfigurationSource(file), settings, new ConfigurationListener() {
+				@Override
+				public void configurationChanged(Object object, Set<String> keys) {
+					changes.add(keys);
+				}
+			});
+
+			assertTrue(settings.getPort() == 8080);
+			assertTrue(changes.poll().size() == 2);
+
+			write("settings.properties", "port=9090\nsize=1\n");
+			Set<String> keys = changes.poll(10, TimeUnit.SECONDS);
+
+			assertTrue(keys != null && keys.size() == 1 && keys.contains("port"));
+			assertTrue(settings.getPort() == 9090);
+		} finally {
+			watcher.close();
+		}
+	}
+
+	@Test
+	public void testFailedBindingDoesNotStopWatching() throws Exception {
+		Path file = write("settings.properties", "port=8080\n");
+		final Settings failing = new Settings();
+		Settings settings = new Settings();
+
+		final BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<Set<String>>();
+		ConfigurationWatcher watcher = new ConfigurationWatcher();
+
+		try {
+			watcher.bind(new FileConfigurationSource(file), failing, new ConfigurationListener() {
+				@Override
+				public void configurationChanged(Object object, Set<String> keys) {
+					if (failing.getPort() != 8080) {
+						throw new IllegalStateException("Reload rejected");
+					}
+				}
+			});
+			watcher.bind(new FileConfigurationSource(file), settings, new ConfigurationListener() {
+				@Override
+				public void configurationChanged(Object object, Set<String> keys) {
+					changes.add(keys);
+				}
+			});
+			changes.poll();
+
+			write("settings.properties", "port=9090\n");
+			assertTrue(changes.poll(10, TimeUnit.SECONDS) != null);
+			assertTrue(settings.getPort() == 9090);
+
+			write("settings.properties", "port=7070\n");
+			assertTrue(changes.poll(10, TimeUnit.SECONDS) != null);
+			assertTrue(settings.getPort() == 7070);
+		} finally {
+			watcher.close();
+		}
+	}
+
+	private Path write(String name, String content) throws IOException {
+		return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
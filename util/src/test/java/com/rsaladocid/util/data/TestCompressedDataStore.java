@@ -0,0 +1,89 @@
+package com.rsaladocid.util.data;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestCompressedDataStore {
+
+	@Test
+	public void testRecordsAreDecodedInOrder() {
+		DataHistory<String, Double> history = new DataHistory<String, Double>(
+				CompressedDataStore.<String> ofDoubles(16));
+		Deque<DataRecord<Double>> expected = new ArrayDeque<DataRecord<Double>>();
+		Random random = new Random(42);
+
+		long timestamp = 1000;
+		for (int i = 0; i < 100; i++) {
+			timestamp += random.nextInt(4) == 0 ? random.nextInt(100000) : 1000;
+			double value = random.nextBoolean() ? random.nextGaussian() : i;
+			expected.add(new DataRecord<Double>(value, timestamp));
+		}
+		history.put("test", expected);
+
+		Iterator<DataRecord<Double>> records = history.get("test").iterator();
+		for (DataRecord<Double> record : expected) {
+			DataRecord<Double> actual = records.next();
+
+			assertTrue(actual.getTimestamp() == record.getTimestamp());
+			assertTrue(actual.getValue().equals(record.getValue()));
+		}
+		assertTrue(!records.hasNext());
+
+		Iterator<DataRecord<Double>> descending = history.get("test").descendingIterator();
+		for (Iterator<DataRecord<Double>> iterator = expected.descendingIterator(); iterator.hasNext();) {
+			assertTrue(descending.next().getTimestamp() == iterator.next().getTimestamp());
+		}
+		assertTrue(!descending.hasNext());
+	}
+
+	@Test
+	public void testTimeQueriesAndEviction() {
+		DataHistory<String, Long> history = new DataHistory<String, Long>(CompressedDataStore.<String> ofLongs(8));
+		Deque<DataRecord<Long>> records = new ArrayDeque<DataRecord<Long>>();
+
+		for (long i = 0; i < 50; i++) {
+			records.add(new DataRecord<Long>(i * i, i * 10));
+		}
+		history.put("test", records);
+
+		assertTrue(history.getAt("test", 255).getValue() == 625);
+		assertTrue(history.getAt("test", 495).getValue() == 49 * 49);
+
+		List<DataRecord<Long>> range = history.getRange("test", 95, 205);
+		assertTrue(range.size() == 11);
+		assertTrue(range.get(0).getValue() == 100);
+
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(37));
+		history.evictExpired();
+
+		assertTrue(history.get("test").size() == 37);
+		assertTrue(history.get("test").peekFirst().getValue() == 169);
+		assertTrue(history.getAt("test", 125) == null);
+		assertTrue(history.getRange("test", 0, 135).size() == 1);
+		assertTrue(history.getMostRecent("test").getValue() == 49 * 49);
+	}
+
+	@Test
+	public void testRegularTelemetryIsCompressed() {
+		CompressedDataStore<String, Double> store = CompressedDataStore.ofDoubles();
+		DataHistory<String, Double> history = new DataHistory<String, Double>(store);
+		Deque<DataRecord<Double>> records = new ArrayDeque<DataRecord<Double>>();
+
+		for (int i = 0; i < 10240; i++) {
+			records.add(new DataRecord<Double>(i % 60 < 30 ? 0.5 : 0.75, 1526901443088L + i * 1000L));
+		}
+		history.put("cpu", records);
+
+		// 16 bytes per record without compression
+		assertTrue(store.getCompressedSize() * 10 < 10240 * 16);
+		assertTrue(history.getAt("cpu", 1526901443088L + 5010500L).getValue() == 0.75);
+	}
+
+}
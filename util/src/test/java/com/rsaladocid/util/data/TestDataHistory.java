@@ -0,0 +1,751 @@
+package com.rsaladocid.util.data;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TestDataHistory {
+
+	@Test
+	public void testPutSingleValueMultipleTimesInTheSameKey() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+
+		history.putSingle("test", "foo");
+		history.putSingle("test", "bar");
+
+		assertTrue(history.get("test").size() == 2);
+		assertTrue(history.get("test").peekFirst().getValue().equals("foo"));
+		assertTrue(history.get("test").peekLast().getValue().equals("bar"));
+	}
+
+	@Test
+	public void testGetAllMostRecentData() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+
+		history.putSingle("test1", "foo");
+		history.putSingle("test1", "bar");
+		history.putSingle("test2", "foo");
+		history.putSingle("test2", "bar");
+
+		Map<String, DataRecord<String>> mostRecent = history.getAllMostRecent();
+
+		assertTrue(mostRecent.keySet().size() == 2);
+		assertTrue(mostRecent.get("test1").getValue().equals("bar"));
+		assertTrue(mostRecent.get("test2").getValue().equals("bar"));
+	}
+
+	@Test
+	public void testGetAllMostRecentFromEmptyHistory() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+
+		Map<String, DataRecord<String>> mostRecent = history.getAllMostRecent();
+
+		assertTrue(mostRecent.keySet().size() == 0);
+	}
+
+	@Test
+	public void testGetMostRecentData() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+
+		history.putSingle("test1", "foo");
+		history.putSingle("test1", "bar");
+
+		assertTrue(history.getMostRecent("test1").getValue().equals("bar"));
+	}
+
+	@Test
+	public void testGetMostRecentDataFromUnexistingKey() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+
+		history.putSingle("test1", "foo");
+		history.putSingle("test1", "bar");
+
+		assertTrue(history.getMostRecent("test2") == null);
+	}
+
+	@Test
+	public void testGetAllMostRecentIsALiveReadOnlyView() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		Map<String, DataRecord<String>> mostRecent = history.getAllMostRecent();
+
+		history.putSingle("test1", "foo");
+		history.putSingle("test1", "bar");
+		history.put("test2", records(new ArrayDeque<DataRecord<String>>(), 100));
+
+		assertTrue(history.getAllMostRecent() == mostRecent);
+		assertTrue(mostRecent.size() == 2);
+		assertTrue(mostRecent.get("test1").getValue().equals("bar"));
+		assertTrue(mostRecent.get("test2").getValue().equals("100"));
+
+		history.remove("test2");
+		assertTrue(!mostRecent.containsKey("test2"));
+
+		try {
+			mostRecent.remove("test1");
+			fail();
+		} catch (UnsupportedOperationException e) {
+
+		}
+	}
+
+	@Test
+	public void testGetAllMostRecentIndexesExistingRecords() {
+		Map<String, Deque<DataRecord<String>>> map = new HashMap<String, Deque<DataRecord<String>>>();
+		map.put("test", records(new ArrayDeque<DataRecord<String>>(), 100, 200));
+
+		DataHistory<String, String> history = new DataHistory<String, String>(map);
+
+		assertTrue(history.getAllMostRecent().get("test").getValue().equals("200"));
+	}
+
+	@Test
+	public void testGetAllMostRecentAfterEvictingAllRecords() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.setRetentionPolicies(RetentionPolicies.maxAge(1, TimeUnit.HOURS));
+		history.put("test", records(new RecordDeque<String>(), 100));
+
+		history.evictExpired();
+
+		assertTrue(history.getAllMostRecent().isEmpty());
+	}
+
+	@Test
+	public void testMaxRecordsRetention() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(2));
+
+		history.putSingle("test", "foo");
+		history.putSingle("test", "bar");
+		history.putSingle("test", "baz");
+
+		assertTrue(history.get("test").size() == 2);
+		assertTrue(history.get("test").peekFirst().getValue().equals("bar"));
+		assertTrue(history.get("test").peekLast().getValue().equals("baz"));
+	}
+
+	@Test
+	public void testMaxAgeRetention() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+		history.setRetentionPolicies(RetentionPolicies.maxAge(1, TimeUnit.HOURS));
+
+		Deque<DataRecord<String>> records = new ArrayDeque<DataRecord<String>>();
+		records.add(record("foo", System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+		records.add(record("bar", System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1)));
+		history.put("test", records);
+
+		history.putSingle("test", "baz");
+
+		assertTrue(history.get("test").size() == 2);
+		assertTrue(history.get("test").peekFirst().getValue().equals("bar"));
+	}
+
+	@Test
+	public void testEvictExpiredRecordsOfKeysNotWritten() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+		history.setRetentionPolicies(RetentionPolicies.maxAge(1, TimeUnit.HOURS));
+
+		Deque<DataRecord<String>> records = new ArrayDeque<DataRecord<String>>();
+		records.add(record("foo", System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+		history.put("test", records);
+
+		history.evictExpired();
+
+		assertTrue(history.get("test").isEmpty());
+	}
+
+	@Test
+	public void testMemoryBudgetEvictsOldestRecordsOfAnyKey() {
+		DataHistory<String, String> history = new DataHistory<String, String>(
+				new HashMap<String, Deque<DataRecord<String>>>());
+		history.setMemoryBudget(80, new RecordWeigher<String>() {
+
+			@Override
+			public long weigh(DataRecord<? extends String> record) {
+				return 10;
+			}
+
+		});
+
+		Deque<DataRecord<String>> records = new ArrayDeque<DataRecord<String>>();
+		for (int i = 0; i < 4; i++) {
+			records.add(record("old" + i, i));
+		}
+		history.put("test1", records);
+
+		for (int i = 0; i < 5; i++) {
+			history.putSingle("test2", "new" + i);
+		}
+
+		assertTrue(history.getMemoryUsage() <= 80);
+		assertTrue(history.get("test1").size() < 4);
+		assertTrue(history.get("test2").size() == 5);
+		assertTrue(history.getMostRecent("test2").getValue().equals("new4"));
+	}
+
+	@Test
+	public void testConcurrentPutSingleDoesNotLoseRecords() throws InterruptedException {
+		final DataHistory<String, Integer> history = new DataHistory<String, Integer>();
+		final CountDownLatch start = new CountDownLatch(1);
+		final int writes = 10000;
+
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++) {
+			writers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < writes; j++) {
+						history.putSingle("test" + (j % 2), j);
+					}
+				}
+
+			});
+			writers[i].start();
+		}
+
+		start.countDown();
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertTrue(history.get("test0").size() + history.get("test1").size() == writers.length * writes);
+
+		int count = 0;
+		for (DataRecord<Integer> record : history.get("test0")) {
+			assertTrue(record.getValue() % 2 == 0);
+			count++;
+		}
+		assertTrue(count == writers.length * writes / 2);
+	}
+
+	@Test
+	public void testConcurrentPutSingleWithRetention() throws InterruptedException {
+		final DataHistory<String, Integer> history = new DataHistory<String, Integer>();
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(100));
+
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++) {
+			writers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						history.putSingle("test", j);
+					}
+				}
+
+			});
+			writers[i].start();
+		}
+
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertTrue(history.get("test").size() == 100);
+		assertTrue(history.getMostRecent("test") != null);
+	}
+
+	@Test
+	public void testConcurrentPutSingleKeepsTimestampOrder() throws InterruptedException {
+		final AtomicLong time = new AtomicLong();
+		final DataHistory<String, Integer> history = new DataHistory<String, Integer>(new RecordClock() {
+
+			@Override
+			public long currentTimestamp() {
+				return time.incrementAndGet();
+			}
+
+			@Override
+			public TimeUnit getUnit() {
+				return TimeUnit.NANOSECONDS;
+			}
+
+		});
+		final CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++) {
+			writers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < 10000; j++) {
+						history.putSingle("test", j);
+					}
+				}
+
+			});
+			writers[i].start();
+		}
+
+		start.countDown();
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		long previous = Long.MIN_VALUE;
+		for (DataRecord<Integer> record : history.get("test")) {
+			assertTrue(record.getTimestamp() >= previous);
+			previous = record.getTimestamp();
+		}
+		assertTrue(history.get("test").size() == writers.length * 10000);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRecordsCannotBeInsertedAtTheHead() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+
+		history.putSingle("test", "foo");
+		history.get("test").addFirst(new DataRecord<String>("bar"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRecordsOfTheHistoryCannotBeModified() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+
+		history.putSingle("test", "foo");
+		history.getMostRecent("test").setValue("bar");
+	}
+
+	@Test
+	public void testGetAtTimestamp() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.put("test", records(new RecordDeque<String>(), 100, 200, 300));
+
+		assertTrue(history.getAt("test", 99) == null);
+		assertTrue(history.getAt("test", 100).getValue().equals("100"));
+		assertTrue(history.getAt("test", 250).getValue().equals("200"));
+		assertTrue(history.getAt("test", 1000).getValue().equals("300"));
+		assertTrue(history.getAt("unexisting", 1000) == null);
+	}
+
+	@Test
+	public void testGetRangeOfTimestamps() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.put("test1", records(new RecordDeque<String>(), 100, 200, 300, 400));
+		history.put("test2", records(new ArrayDeque<DataRecord<String>>(), 100, 200, 300, 400));
+
+		for (String key : new String[] { "test1", "test2" }) {
+			List<DataRecord<String>> range = history.getRange(key, 150, 300);
+
+			assertTrue(range.size() == 2);
+			assertTrue(range.get(0).getValue().equals("200"));
+			assertTrue(range.get(1).getValue().equals("300"));
+			assertTrue(history.getRange(key, 500, 600).isEmpty());
+		}
+	}
+
+	@Test
+	public void testGetAllAtTimestamp() {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.put("test1", records(new RecordDeque<String>(), 100, 200));
+		history.put("test2", records(new ArrayDeque<DataRecord<String>>(), 150, 250));
+		history.put("test3", records(new RecordDeque<String>(), 300));
+
+		Map<String, DataRecord<String>> allAt = history.getAllAt(200);
+
+		assertTrue(allAt.size() == 2);
+		assertTrue(allAt.get("test1").getValue().equals("200"));
+		assertTrue(allAt.get("test2").getValue().equals("150"));
+	}
+
+	@Test
+	public void testRollupsAggregateTheValuesOfEachBucket() {
+		DataHistory<String, Double> history = new DataHistory<String, Double>(
+				new HashMap<String, Deque<DataRecord<Double>>>());
+		history.setRollupResolutions(RollupResolution.of(100, TimeUnit.MILLISECONDS, 10),
+				RollupResolution.of(1, TimeUnit.SECONDS, 10));
+
+		Deque<DataRecord<Double>> records = new ArrayDeque<DataRecord<Double>>();
+		records.add(new DataRecord<Double>(1.0, 1000));
+		records.add(new DataRecord<Double>(3.0, 1050));
+		records.add(new DataRecord<Double>(2.0, 1150));
+		history.put("test", records);
+
+		List<Rollup> rollups = history.getRollups("test", 100, 1000, 1199);
+
+		assertTrue(rollups.size() == 2);
+		assertTrue(rollups.get(0).getStart() == 1000 && rollups.get(0).getEnd() == 1100);
+		assertTrue(rollups.get(0).getCount() == 2);
+		assertTrue(rollups.get(0).getMin() == 1.0 && rollups.get(0).getMax() == 3.0);
+		assertTrue(rollups.get(0).getAverage() == 2.0);
+		assertTrue(rollups.get(1).getCount() == 1 && rollups.get(1).getSum() == 2.0);
+
+		rollups = history.getRollups("test", 1000, 0, 1999);
+
+		assertTrue(rollups.size() == 1);
+		assertTrue(rollups.get(0).getCount() == 3 && rollups.get(0).getSum() == 6.0);
+		assertTrue(history.getRollups("unknown", 1000, 0, 1999).isEmpty());
+	}
+
+	@Test
+	public void testRollupsAreRebuiltAndUpdatedAfterWrites() {
+		DataHistory<String, Integer> history = new DataHistory<String, Integer>(
+				new HashMap<String, Deque<DataRecord<Integer>>>());
+
+		history.putSingle("test", 1);
+		history.setRollupResolutions(RollupResolution.of(1, TimeUnit.HOURS, 2));
+		history.putSingle("test", 5);
+
+		List<Rollup> rollups = history.getRollups("test", TimeUnit.HOURS.toMillis(1), 0, Long.MAX_VALUE);
+
+		assertTrue(rollups.get(rollups.size() - 1).getMax() == 5.0);
+		assertTrue(rollups.get(0).getMin() == 1.0);
+
+		history.remove("test");
+
+		assertTrue(history.getRollups("test", TimeUnit.HOURS.toMillis(1), 0, Long.MAX_VALUE).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRollupsOfUnknownResolution() {
+		DataHistory<String, Double> history = new DataHistory<String, Double>(
+				new HashMap<String, Deque<DataRecord<Double>>>());
+		history.setRollupResolutions(RollupResolution.of(1, TimeUnit.SECONDS, 10));
+
+		history.getRollups("test", 60000, 0, 1000);
+	}
+
+	@Test
+	public void testRolledUpPolicyKeepsTheCurrentBucket() {
+		RetentionPolicy policy = RetentionPolicies.rolledUp(1, TimeUnit.SECONDS);
+
+		assertTrue(!policy.isExpired(new DataRecord<Double>(1.0, 1000), 1, 1999));
+		assertTrue(policy.isExpired(new DataRecord<Double>(1.0, 1999), 1, 2000));
+	}
+
+	@Test
+	public void testPublisherDeliversRecordsOnDemand() throws InterruptedException {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		RecordingSubscriber<DataRecord<String>> subscriber = new RecordingSubscriber<DataRecord<String>>(2);
+		history.getPublisher("test").subscribe(subscriber);
+
+		history.putSingle("other", "ignored");
+		history.putSingle("test", "foo");
+		history.putSingle("test", "bar");
+		history.putSingle("test", "baz");
+
+		assertTrue(subscriber.await(2));
+		Thread.sleep(50);
+		assertTrue(subscriber.items.size() == 2);
+		assertTrue(subscriber.items.get(0).getValue().equals("foo"));
+
+		subscriber.subscription.request(1);
+
+		assertTrue(subscriber.await(3));
+		assertTrue(subscriber.items.get(2).getValue().equals("baz"));
+	}
+
+	@Test
+	public void testPublisherOfAllKeysDropsTheOldestRecordsOfSlowSubscribers() throws InterruptedException {
+		DataHistory<String, Integer> history = new DataHistory<String, Integer>();
+		RecordingSubscriber<Entry<String, DataRecord<Integer>>> subscriber = new RecordingSubscriber<Entry<String, DataRecord<Integer>>>(
+				0);
+		history.getPublisher().subscribe(subscriber);
+
+		for (int i = 0; i < 1000; i++) {
+			history.putSingle("test" + (i % 2), i);
+		}
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+
+		assertTrue(subscriber.await(256));
+		Thread.sleep(50);
+		assertTrue(subscriber.items.size() == 256);
+		assertTrue(subscriber.items.get(255).getKey().equals("test1"));
+		assertTrue(subscriber.items.get(255).getValue().getValue() == 999);
+	}
+
+	@Test
+	public void testRemovingKeyCompletesItsSubscribers() throws InterruptedException {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		RecordFlow.Publisher<DataRecord<String>> publisher = history.getPublisher("test");
+		RecordingSubscriber<DataRecord<String>> subscriber = new RecordingSubscriber<DataRecord<String>>(
+				Long.MAX_VALUE);
+		publisher.subscribe(subscriber);
+
+		history.putSingle("test", "foo");
+		history.remove("test");
+
+		assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+		assertTrue(subscriber.completed);
+		assertTrue(subscriber.items.size() == 1);
+		assertTrue(history.getPublisher("test") != publisher);
+
+		RecordingSubscriber<DataRecord<String>> late = new RecordingSubscriber<DataRecord<String>>(1);
+		publisher.subscribe(late);
+
+		assertTrue(late.terminated.await(5, TimeUnit.SECONDS));
+		assertTrue(late.completed);
+	}
+
+	@Test
+	public void testNothingIsDeliveredDuringOnSubscribe() throws InterruptedException {
+		final DataHistory<String, String> history = new DataHistory<String, String>();
+		final AtomicBoolean subscribed = new AtomicBoolean();
+		final AtomicBoolean early = new AtomicBoolean();
+
+		RecordingSubscriber<DataRecord<String>> subscriber = new RecordingSubscriber<DataRecord<String>>(
+				Long.MAX_VALUE) {
+
+			@Override
+			public void onSubscribe(RecordFlow.Subscription subscription) {
+				super.onSubscribe(subscription);
+				history.putSingle("test", "foo");
+
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				subscribed.set(true);
+			}
+
+			@Override
+			public void onNext(DataRecord<String> item) {
+				if (!subscribed.get()) {
+					early.set(true);
+				}
+				super.onNext(item);
+			}
+
+		};
+		history.getPublisher("test").subscribe(subscriber);
+		history.putSingle("test", "bar");
+
+		assertTrue(subscriber.await(1));
+		assertTrue(!early.get());
+	}
+
+	@Test
+	public void testSubscriberReceivesTheExceptionsOfItsOnNext() throws InterruptedException {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		RecordingSubscriber<DataRecord<String>> subscriber = new RecordingSubscriber<DataRecord<String>>(
+				Long.MAX_VALUE) {
+
+			@Override
+			public void onNext(DataRecord<String> item) {
+				throw new IllegalStateException(item.getValue());
+			}
+
+		};
+		history.getPublisher("test").subscribe(subscriber);
+
+		history.putSingle("test", "foo");
+		history.putSingle("test", "bar");
+
+		assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+		assertTrue(subscriber.error instanceof IllegalStateException);
+		assertTrue(subscriber.error.getMessage().equals("foo"));
+		assertTrue(!subscriber.completed);
+	}
+
+	@Test
+	public void testSweeperKeepsSweepingAfterAFailure() throws InterruptedException {
+		final AtomicInteger sweeps = new AtomicInteger();
+		DataHistory<String, String> failing = new DataHistory<String, String>() {
+
+			@Override
+			public void evictExpired() {
+				throw new IllegalStateException("Sweep rejected");
+			}
+
+		};
+		DataHistory<String, String> history = new DataHistory<String, String>() {
+
+			@Override
+			public void evictExpired() {
+				sweeps.incrementAndGet();
+			}
+
+		};
+
+		RetentionSweeper sweeper = new RetentionSweeper(1, TimeUnit.MILLISECONDS, failing, history);
+		try {
+			for (int i = 0; i < 500 && sweeps.get() < 2; i++) {
+				Thread.sleep(10);
+			}
+
+			assertTrue(sweeps.get() >= 2);
+		} finally {
+			sweeper.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSweeperRejectsNonPositivePeriod() {
+		new RetentionSweeper(0, TimeUnit.SECONDS, new DataHistory<String, String>());
+	}
+
+	@Test
+	public void testRecordsAreTimestampedByTheClockOfTheHistory() {
+		ManualClock clock = new ManualClock(1000);
+		DataHistory<String, String> history = new DataHistory<String, String>(clock);
+		history.setRetentionPolicies(RetentionPolicies.maxAge(1, TimeUnit.SECONDS, clock));
+
+		history.putSingle("test", "foo");
+		clock.advance(500, TimeUnit.MILLISECONDS);
+		history.putSingle("test", "bar");
+
+		assertTrue(history.get("test").peekFirst().getTimestamp() == 1000);
+		assertTrue(history.getAt("test", 1499).getValue().equals("foo"));
+
+		clock.set(2001);
+		history.evictExpired();
+
+		assertTrue(history.get("test").size() == 1);
+		assertTrue(history.getMostRecent("test").getValue().equals("bar"));
+	}
+
+	@Test
+	public void testRetentionDurationsAreConvertedToTheClockOfTheHistory() {
+		ManualClock clock = new ManualClock(0, TimeUnit.NANOSECONDS);
+		DataHistory<String, String> history = new DataHistory<String, String>(clock);
+		history.setRetentionPolicies(RetentionPolicies.maxAge(1, TimeUnit.SECONDS));
+
+		history.putSingle("test", "foo");
+		clock.advance(500, TimeUnit.MILLISECONDS);
+		history.putSingle("test", "bar");
+
+		assertTrue(history.get("test").size() == 2);
+
+		clock.advance(600, TimeUnit.MILLISECONDS);
+		history.evictExpired();
+
+		assertTrue(history.get("test").size() == 1);
+		assertTrue(history.getMostRecent("test").getValue().equals("bar"));
+	}
+
+	@Test
+	public void testMonotonicClockOrdersRecordsOfTheSameMillisecond() {
+		DataHistory<String, Integer> history = new DataHistory<String, Integer>(new MonotonicClock());
+
+		for (int i = 0; i < 1000; i++) {
+			history.putSingle("test", i);
+		}
+
+		long previous = Long.MIN_VALUE;
+		for (DataRecord<Integer> record : history.get("test")) {
+			assertTrue(record.getTimestamp() > previous);
+			previous = record.getTimestamp();
+		}
+
+		long millis = TimeUnit.NANOSECONDS.toMillis(previous);
+		assertTrue(Math.abs(System.currentTimeMillis() - millis) < 60000);
+	}
+
+	@Test
+	public void testRecordValuesAreTimestampedByItsClock() {
+		ManualClock clock = new ManualClock(1000, TimeUnit.NANOSECONDS);
+		DataRecord<String> record = new DataRecord<String>("foo", clock);
+
+		clock.set(5000);
+		record.setValue("bar");
+
+		assertTrue(record.getTimestamp() == 5000);
+	}
+
+	private static class RecordingSubscriber<T> implements RecordFlow.Subscriber<T> {
+
+		private final List<T> items = new CopyOnWriteArrayList<T>();
+		private final CountDownLatch terminated = new CountDownLatch(1);
+		private final long initialRequest;
+
+		private volatile RecordFlow.Subscription subscription;
+		private volatile Throwable error;
+		private volatile boolean completed;
+
+		RecordingSubscriber(long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		boolean await(int count) throws InterruptedException {
+			for (int i = 0; i < 500 && items.size() < count; i++) {
+				Thread.sleep(10);
+			}
+
+			return items.size() >= count;
+		}
+
+		@Override
+		public void onSubscribe(RecordFlow.Subscription subscription) {
+			this.subscription = subscription;
+
+			if (initialRequest > 0) {
+				subscription.request(initialRequest);
+			}
+		}
+
+		@Override
+		public void onNext(T item) {
+			items.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			terminated.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+			terminated.countDown();
+		}
+
+	}
+
+	private static Deque<DataRecord<String>> records(Deque<DataRecord<String>> records, long... timestamps) {
+		for (long timestamp : timestamps) {
+			records.add(new DataRecord<String>(String.valueOf(timestamp), timestamp));
+		}
+
+		return records;
+	}
+
+	private static <V> DataRecord<V> record(V value, final long timestamp) {
+		return new DataRecord<V>(value) {
+
+			@Override
+			protected long currentTimestamp() {
+				return timestamp;
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.rsaladocid.util.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+public class TestDoubleDataHistory {
+
+	@Test
+	public void testGetMostRecentValue() {
+		DoubleDataHistory<String> history = new DoubleDataHistory<String>();
+
+		history.putSingle("test", 1.5);
+		history.putSingle("test", 2.5);
+
+		assertTrue(history.getMostRecent("test") == 2.5);
+		assertTrue(history.size("test") == 2);
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testGetMostRecentValueFromUnexistingKey() {
+		DoubleDataHistory<String> history = new DoubleDataHistory<String>();
+
+		history.getMostRecent("test");
+	}
+
+	@Test
+	public void testOverwriteOldestValuesWhenFull() {
+		DoubleDataHistory<String> history = new DoubleDataHistory<String>(3);
+
+		for (int i = 0; i < 5; i++) {
+			history.putSingle("test", i, 1000 + i);
+		}
+
+		Deque<DataRecord<Double>> records = history.get("test");
+
+		assertTrue(records.size() == 3);
+		assertTrue(records.peekFirst().getValue() == 2.0);
+		assertTrue(records.peekFirst().getTimestamp() == 1002);
+		assertTrue(records.peekLast().getValue() == 4.0);
+		assertTrue(history.getMostRecentTimestamp("test") == 1004);
+	}
+
+	@Test
+	public void testGetAllMostRecentRecords() {
+		DoubleDataHistory<String> history = new DoubleDataHistory<String>();
+
+		history.putSingle("test1", 1.0);
+		history.putSingle("test1", 2.0);
+		history.putSingle("test2", 3.0);
+
+		Map<String, DataRecord<Double>> mostRecent = history.getAllMostRecent();
+
+		assertTrue(mostRecent.size() == 2);
+		assertTrue(mostRecent.get("test1").getValue() == 2.0);
+		assertTrue(mostRecent.get("test2").getValue() == 3.0);
+		assertTrue(history.getMostRecentRecord("test3") == null);
+	}
+
+	@Test
+	public void testKeyBeingWrittenForTheFirstTimeHasNoRecords() {
+		DoubleDataHistory<String> history = new DoubleDataHistory<String>();
+
+		history.ringOf("test");
+
+		assertTrue(!history.containsKey("test"));
+		assertTrue(history.get("test") == null);
+		assertTrue(history.getMostRecentRecord("test") == null);
+		assertTrue(history.getAllMostRecent().isEmpty());
+
+		try {
+			history.getMostRecent("test");
+			fail();
+		} catch (NoSuchElementException e) {
+
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.rsaladocid.util.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TestLongDataHistory {
+
+	@Test
+	public void testGetMostRecentValue() {
+		LongDataHistory<String> history = new LongDataHistory<String>();
+
+		history.putSingle("test", 1);
+		history.putSingle("test", 2);
+
+		assertTrue(history.getMostRecent("test") == 2);
+		assertTrue(history.getMostRecentRecord("test").getValue() == 2L);
+	}
+
+	@Test
+	public void testOverwriteOldestValuesWhenFull() {
+		LongDataHistory<String> history = new LongDataHistory<String>(2);
+
+		history.putSingle("test", 1, 10);
+		history.putSingle("test", 2, 20);
+		history.putSingle("test", 3, 30);
+
+		Deque<DataRecord<Long>> records = history.get("test");
+
+		assertTrue(records.size() == 2);
+		assertTrue(records.peekFirst().getValue() == 2L);
+		assertTrue(records.peekLast().getTimestamp() == 30);
+	}
+
+	@Test
+	public void testConcurrentPutSingleKeepsTimestampOrder() throws InterruptedException {
+		final AtomicLong time = new AtomicLong();
+		final LongDataHistory<String> history = new LongDataHistory<String>(40000, new RecordClock() {
+
+			@Override
+			public long currentTimestamp() {
+				return time.incrementAndGet();
+			}
+
+			@Override
+			public TimeUnit getUnit() {
+				return TimeUnit.NANOSECONDS;
+			}
+
+		});
+		final CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++) {
+			writers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+
+					for (int j = 0; j < 10000; j++) {
+						history.putSingle("test", j);
+					}
+				}
+
+			});
+			writers[i].start();
+		}
+
+		start.countDown();
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		long previous = Long.MIN_VALUE;
+		for (DataRecord<Long> record : history.get("test")) {
+			assertTrue(record.getTimestamp() > previous);
+			previous = record.getTimestamp();
+		}
+		assertTrue(history.getMostRecentTimestamp("test") == 40000);
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.rsaladocid.util.data;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMappedDataStore {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("history");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	@Test
+	public void testPutSingleAndGetMostRecent() throws IOException {
+		DataHistory<String, Double> history = new DataHistory<String, Double>(
+				new MappedDataStore<String, Double>(directory, KeyCodecs.STRING, RecordCodecs.DOUBLE));
+
+		history.putSingle("cpu load", 1.5);
+		history.putSingle("cpu load", 2.5);
+
+		assertTrue(history.get("cpu load").size() == 2);
+		assertTrue(history.get("cpu load").peekFirst().getValue() == 1.5);
+		assertTrue(history.getMostRecent("cpu load").getValue() == 2.5);
+		assertTrue(history.getAllMostRecent().get("cpu load").getValue() == 2.5);
+	}
+
+	@Test
+	public void testRecordsSurviveReopening() throws IOException {
+		MappedDataStore<String, String> store = new MappedDataStore<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(16), 2);
+		DataHistory<String, String> history = new DataHistory<String, String>(store);
+		history.put("test", records(100, 200, 300, 400, 500));
+		store.close();
+
+		history = new DataHistory<String, String>(
+				new MappedDataStore<String, String>(directory, KeyCodecs.STRING, RecordCodecs.string(16)));
+
+		assertTrue(history.get("test").size() == 5);
+		assertTrue(history.getMostRecent("test").getValue().equals("500"));
+		assertTrue(history.getAt("test", 250).getValue().equals("200"));
+
+		List<DataRecord<String>> range = history.getRange("test", 200, 400);
+		assertTrue(range.size() == 3);
+		assertTrue(range.get(2).getValue().equals("400"));
+	}
+
+	@Test
+	public void testEvictionDeletesSegments() throws IOException {
+		MappedDataStore<Integer, Long> store = new MappedDataStore<Integer, Long>(directory, KeyCodecs.INTEGER,
+				RecordCodecs.LONG, 2);
+		DataHistory<Integer, Long> history = new DataHistory<Integer, Long>(store);
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(3));
+
+		for (long i = 0; i < 10; i++) {
+			history.putSingle(1, i);
+		}
+
+		Deque<DataRecord<Long>> records = history.get(1);
+		assertTrue(records.size() == 3);
+		assertTrue(records.peekFirst().getValue() == 7);
+		assertTrue(records.peekLast().getValue() == 9);
+		assertTrue(!Files.exists(directory.resolve("key-1").resolve("0.seg")));
+		assertTrue(Files.exists(directory.resolve("key-1").resolve("4.seg")));
+
+		history.remove(1);
+		assertTrue(!Files.exists(directory.resolve("key-1")));
+	}
+
+	@Test
+	public void testManyEvictedSegments() throws IOException {
+		MappedDataStore<String, String> store = new MappedDataStore<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(16), 2);
+		DataHistory<String, String> history = new DataHistory<String, String>(store);
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(5));
+
+		long[] timestamps = new long[1001];
+		for (int i = 0; i < timestamps.length; i++) {
+			timestamps[i] = i * 10;
+		}
+		history.put("test", records(timestamps));
+		history.evictExpired();
+		store.close();
+
+		history = new DataHistory<String, String>(
+				new MappedDataStore<String, String>(directory, KeyCodecs.STRING, RecordCodecs.string(16), 2));
+
+		assertTrue(history.get("test").size() == 5);
+		assertTrue(history.get("test").peekFirst().getValue().equals("9960"));
+		assertTrue(history.getRange("test", 9975, 10000).size() == 3);
+
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(5));
+		for (int i = 0; i < 100; i++) {
+			history.putSingle("test", String.valueOf(i));
+		}
+
+		assertTrue(history.get("test").size() == 5);
+		assertTrue(history.get("test").peekFirst().getValue().equals("95"));
+		assertTrue(history.getMostRecent("test").getValue().equals("99"));
+	}
+
+	@Test
+	public void testKeyNamesAreDistinctAndNeverEmpty() throws IOException {
+		String[] keys = { "", "A", "a", "a_b", "A.B*c d", "\u00e9%" };
+
+		MappedDataStore<String, String> store = new MappedDataStore<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(16));
+		DataHistory<String, String> history = new DataHistory<String, String>(store);
+		for (String key : keys) {
+			history.putSingle(key, "value of " + key);
+		}
+		store.close();
+
+		for (String key : keys) {
+			String name = KeyCodecs.STRING.encode(key);
+
+			assertTrue(KeyCodecs.STRING.decode(name).equals(key));
+			assertTrue(name.equals(name.toLowerCase()) || name.contains("%"));
+		}
+
+		history = new DataHistory<String, String>(
+				new MappedDataStore<String, String>(directory, KeyCodecs.STRING, RecordCodecs.string(16)));
+
+		assertTrue(history.size() == keys.length);
+		for (String key : keys) {
+			assertTrue(history.getMostRecent(key).getValue().equals("value of " + key));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReopeningRejectsCorruptSegmentSize() throws IOException {
+		MappedDataStore<String, String> store = new MappedDataStore<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(16));
+		new DataHistory<String, String>(store).putSingle("test", "foo");
+		store.close();
+
+		FileChannel header = FileChannel.open(directory.resolve("key-test").resolve("header"),
+				StandardOpenOption.WRITE);
+		try {
+			header.write(ByteBuffer.allocate(4), 24);
+		} finally {
+			header.close();
+		}
+
+		new MappedDataStore<String, String>(directory, KeyCodecs.STRING, RecordCodecs.string(16));
+	}
+
+	private static Deque<DataRecord<String>> records(long... timestamps) {
+		Deque<DataRecord<String>> records = new ArrayDeque<DataRecord<String>>();
+
+		for (long timestamp : timestamps) {
+			records.add(new DataRecord<String>(String.valueOf(timestamp), timestamp));
+		}
+
+		return records;
+	}
+
+}
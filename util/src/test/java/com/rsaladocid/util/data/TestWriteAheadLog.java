@@ -0,0 +1,228 @@
+package com.rsaladocid.util.data;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestWriteAheadLog {
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("log");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (Path file : Files.newDirectoryStream(directory)) {
+			Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void testReplayChanges() throws IOException {
+		DataHistory<String, String> history = open();
+		history.putSingle("test1", "foo");
+		history.putSingle("test1", "bar");
+		history.putSingle("test2", "foo");
+		history.putSingle("test3", "foo");
+		history.remove("test2");
+		history.getWriteAheadLog().close();
+
+		history = open();
+
+		assertTrue(history.size() == 2);
+		assertTrue(history.get("test1").size() == 2);
+		assertTrue(history.getMostRecent("test1").getValue().equals("bar"));
+		assertTrue(history.getAllMostRecent().get("test3").getValue().equals("foo"));
+		assertTrue(!history.containsKey("test2"));
+	}
+
+	@Test
+	public void testReplayStopsAtTornWrite() throws IOException {
+		DataHistory<String, String> history = open();
+		history.putSingle("test", "foo");
+		history.putSingle("test", "bar");
+		history.getWriteAheadLog().close();
+
+		Path segment = directory.resolve("0.wal");
+		long size = Files.size(segment);
+		FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 40, 1, 2, 3 }));
+		channel.close();
+
+		history = open();
+		assertTrue(history.get("test").size() == 2);
+		assertTrue(Files.size(segment) == size);
+
+		history.putSingle("test", "baz");
+		history.getWriteAheadLog().close();
+
+		history = open();
+		assertTrue(history.get("test").size() == 3);
+		assertTrue(history.getMostRecent("test").getValue().equals("baz"));
+	}
+
+	@Test
+	public void testCompactionDropsEvictedRecords() throws IOException {
+		WriteAheadLog<String, String> log = new WriteAheadLog<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(8), 64);
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(2));
+		history.setWriteAheadLog(log);
+
+		for (int i = 0; i < 20; i++) {
+			history.putSingle("test", "value" + i);
+		}
+
+		long size = log.size();
+		log.compact(history);
+		assertTrue(log.size() < size);
+		log.close();
+
+		history = new DataHistory<String, String>();
+		history.setWriteAheadLog(new WriteAheadLog<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(8), 64));
+
+		assertTrue(history.get("test").size() == 2);
+		assertTrue(history.getMostRecent("test").getValue().equals("value19"));
+	}
+
+	@Test
+	public void testCompactionKeepsRecordsPutMeanwhile() throws Exception {
+		final WriteAheadLog<String, String> log = new WriteAheadLog<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(8), 64);
+		final DataHistory<String, String> history = new DataHistory<String, String>();
+		history.setWriteAheadLog(log);
+
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		Thread compactor = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!done.get()) {
+						log.compact(history);
+					}
+				} catch (Exception e) {
+					failure.set(e);
+				}
+			}
+
+		});
+		compactor.start();
+
+		for (int i = 0; i < 200; i++) {
+			Deque<DataRecord<String>> records = new ArrayDeque<DataRecord<String>>();
+			records.add(new DataRecord<String>("a" + i, 1000 + i));
+			records.add(new DataRecord<String>("b" + i, 1000 + i));
+			history.put("test" + (i % 3), records);
+		}
+
+		done.set(true);
+		compactor.join();
+		assertTrue(failure.get() == null);
+		log.close();
+
+		DataHistory<String, String> replayed = new DataHistory<String, String>();
+		replayed.setWriteAheadLog(new WriteAheadLog<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(8), 64));
+
+		assertTrue(replayed.size() == 3);
+		assertTrue(replayed.get("test0").size() == 2);
+		assertTrue(replayed.getMostRecent("test0").getValue().equals("b198"));
+		assertTrue(replayed.getMostRecent("test2").getValue().equals("b197"));
+	}
+
+	@Test
+	public void testCompactionDropsEvictedRecordsOfTheSameTimestamp() throws IOException {
+		WriteAheadLog<String, String> log = new WriteAheadLog<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(8), 64);
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.setWriteAheadLog(log);
+
+		Deque<DataRecord<String>> records = new ArrayDeque<DataRecord<String>>();
+		for (int i = 0; i < 5; i++) {
+			records.add(new DataRecord<String>("old" + i, 1000));
+		}
+		history.put("test", records);
+		history.put("removed", records);
+		history.remove("removed");
+
+		records.clear();
+		for (int i = 0; i < 5; i++) {
+			records.add(new DataRecord<String>("value" + i, 1000));
+		}
+		history.put("test", records);
+
+		history.setRetentionPolicies(RetentionPolicies.maxRecords(2));
+		history.evictExpired();
+		log.compact(history);
+		log.close();
+
+		history = new DataHistory<String, String>();
+		history.setWriteAheadLog(new WriteAheadLog<String, String>(directory, KeyCodecs.STRING,
+				RecordCodecs.string(8), 64));
+
+		assertTrue(history.size() == 1);
+		assertTrue(history.get("test").size() == 2);
+		assertTrue(history.get("test").peekFirst().getValue().equals("value3"));
+		assertTrue(history.getMostRecent("test").getValue().equals("value4"));
+	}
+
+	@Test
+	public void testConcurrentWritersAreDurable() throws Exception {
+		final DataHistory<String, String> history = open();
+
+		Thread[] writers = new Thread[4];
+		for (int i = 0; i < writers.length; i++) {
+			final String key = "test" + i;
+
+			writers[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (int j = 0; j < 200; j++) {
+						history.putSingle(key, String.valueOf(j));
+					}
+				}
+
+			});
+			writers[i].start();
+		}
+
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		history.getWriteAheadLog().close();
+
+		DataHistory<String, String> replayed = open();
+		for (int i = 0; i < writers.length; i++) {
+			assertTrue(replayed.get("test" + i).size() == 200);
+			assertTrue(replayed.getMostRecent("test" + i).getValue().equals("199"));
+		}
+	}
+
+	private DataHistory<String, String> open() throws IOException {
+		DataHistory<String, String> history = new DataHistory<String, String>();
+		history.setWriteAheadLog(new WriteAheadLog<String, String>(directory, KeyCodecs.STRING, RecordCodecs.string(8)));
+		return history;
+	}
+
+}